@@ -0,0 +1,28 @@
+package org.xmlet.regex;
+
+import org.xmlet.regex.ir.BacktrackingAnalysis;
+
+import java.util.List;
+
+/**
+ * Thrown by a strict {@link Regex} whose match regex may backtrack exponentially, with the exponential findings of its
+ * {@link BacktrackingAnalysis}.
+ */
+public class BacktrackingException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<BacktrackingAnalysis.Finding> findings;
+
+    BacktrackingException(String regex, List<BacktrackingAnalysis.Finding> findings){
+        super("The regex " + regex + " may backtrack exponentially: " + findings);
+        this.findings = findings;
+    }
+
+    /**
+     * @return The parts of the regex that may backtrack exponentially.
+     */
+    public List<BacktrackingAnalysis.Finding> getFindings(){
+        return findings;
+    }
+}
@@ -0,0 +1,83 @@
+package org.xmlet.regex;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the matches of many inputs in parallel on a {@link ForkJoinPool}. The inputs are split in batches, and each
+ * batch is searched by a single {@link Matcher} which is reset for every input, so short inputs cost no allocation
+ * besides their results.
+ */
+final class BatchMatcher {
+
+    static final int BATCH_SIZE = 256;
+
+    private BatchMatcher(){}
+
+    /**
+     * @param pattern The pattern to search.
+     * @param inputs The texts to search.
+     * @param pool The pool that searches the batches.
+     * @return The start and end of each match of each input, in pairs, in input order.
+     */
+    static int[][] matchOffsets(Pattern pattern, CharSequence[] inputs, ForkJoinPool pool){
+        int[][] offsets = new int[inputs.length][];
+
+        if (inputs.length <= BATCH_SIZE){
+            new BatchTask(pattern, inputs, offsets, 0, inputs.length).compute();
+        } else {
+            pool.invoke(new BatchTask(pattern, inputs, offsets, 0, inputs.length));
+        }
+
+        return offsets;
+    }
+
+    /**
+     * Searches a range of inputs, splitting it in halves until it fits a batch.
+     */
+    private static final class BatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Pattern pattern;
+        private final CharSequence[] inputs;
+        private final int[][] offsets;
+        private final int from;
+        private final int to;
+
+        BatchTask(Pattern pattern, CharSequence[] inputs, int[][] offsets, int from, int to){
+            this.pattern = pattern;
+            this.inputs = inputs;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if (to - from > BATCH_SIZE){
+                int middle = (from + to) >>> 1;
+                invokeAll(new BatchTask(pattern, inputs, offsets, from, middle),
+                          new BatchTask(pattern, inputs, offsets, middle, to));
+                return;
+            }
+
+            Matcher matcher = pattern.matcher("");
+            IntList matches = new IntList();
+
+            for (int i = from; i < to; i++){
+                matcher.reset(inputs[i]);
+                matches.clear();
+
+                while (matcher.find()){
+                    matches.add(matcher.start());
+                    matches.add(matcher.end());
+                }
+
+                offsets[i] = matches.toArray();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.xmlet.regex;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link CharSequence} view of a buffer of single byte chars, such as a memory mapped ISO-8859-1 or US-ASCII file.
+ * Each byte is decoded when it's read, so the buffer is never copied. Bytes outside of US-ASCII are read as
+ * U+FFFD, like the US-ASCII decoder does, unless the buffer holds ISO-8859-1 text.
+ */
+final class ByteCharSequence implements CharSequence {
+
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int length;
+    private final boolean latin1;
+
+    ByteCharSequence(ByteBuffer buffer, boolean latin1){
+        this(buffer, 0, buffer.limit(), latin1);
+    }
+
+    private ByteCharSequence(ByteBuffer buffer, int start, int length, boolean latin1){
+        this.buffer = buffer;
+        this.start = start;
+        this.length = length;
+        this.latin1 = latin1;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length){
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+
+        byte value = buffer.get(start + index);
+
+        if (value >= 0 || latin1){
+            return (char) (value & 0xFF);
+        }
+
+        return '\uFFFD';
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end){
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+
+        return new ByteCharSequence(buffer, this.start + start, end - start, latin1);
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[length];
+
+        for (int i = 0; i < length; i++){
+            chars[i] = charAt(i);
+        }
+
+        return new String(chars);
+    }
+}
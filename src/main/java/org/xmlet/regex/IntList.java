@@ -0,0 +1,40 @@
+package org.xmlet.regex;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints, used to collect match offsets without boxing.
+ */
+final class IntList {
+
+    private int[] values;
+    private int size;
+
+    IntList(){
+        this(16);
+    }
+
+    IntList(int capacity){
+        values = new int[Math.max(capacity, 2)];
+    }
+
+    void add(int value){
+        if (size == values.length){
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        values[size++] = value;
+    }
+
+    void clear(){
+        size = 0;
+    }
+
+    int size(){
+        return size;
+    }
+
+    int[] toArray(){
+        return Arrays.copyOf(values, size);
+    }
+}
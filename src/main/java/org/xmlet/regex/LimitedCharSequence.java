@@ -0,0 +1,68 @@
+package org.xmlet.regex;
+
+/**
+ * A {@link CharSequence} view of the input of a search that counts the chars read by the engine and stops the search,
+ * by throwing a {@link SearchLimitException}, when it reads more than its steps or runs past its deadline. The clock is
+ * only read every {@value #CHECK_INTERVAL} steps, so the count is the only cost of most reads.
+ * <p>Sub sequences and Strings built from it aren't counted, since the engines only build them for the matches found.
+ */
+final class LimitedCharSequence implements CharSequence {
+
+    static final int CHECK_INTERVAL = 1024;
+
+    private final CharSequence input;
+    private final long maxSteps;
+    private final boolean timed;
+    private final long deadline;
+    private long steps;
+    private long nextCheck;
+
+    LimitedCharSequence(CharSequence input, long maxSteps, boolean timed, long deadline){
+        this.input = input;
+        this.maxSteps = maxSteps;
+        this.timed = timed;
+        this.deadline = deadline;
+        this.nextCheck = Math.min(maxSteps, CHECK_INTERVAL);
+    }
+
+    @Override
+    public int length() {
+        return input.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (++steps > nextCheck){
+            check(index);
+        }
+
+        return input.charAt(index);
+    }
+
+    /**
+     * Stops the search if it took more than its steps or ran past its deadline.
+     * @param position The position of the input the search is at.
+     * @throws SearchLimitException If the search exceeded its limit.
+     */
+    void check(int position){
+        if (steps > maxSteps){
+            throw new SearchLimitException("The search exceeded " + maxSteps + " steps", steps, position);
+        }
+
+        if (timed && System.nanoTime() - deadline > 0){
+            throw new SearchLimitException("The search exceeded its timeout", steps, position);
+        }
+
+        nextCheck = Math.min(maxSteps, steps + CHECK_INTERVAL);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return input.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return input.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package org.xmlet.regex;
+
+import org.xmlet.regex.engine.EngineMatcher;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.regex.MatchResult;
+
+/**
+ * Iterates the matches of a {@link EngineMatcher}, searching for the next match only when it's requested.
+ */
+final class MatchIterator implements Iterator<MatchResult> {
+
+    private final EngineMatcher matcher;
+    private MatchResult next;
+    private boolean finished;
+
+    MatchIterator(EngineMatcher matcher){
+        this.matcher = matcher;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished){
+            if (matcher.find()){
+                next = matcher.toMatchResult();
+            } else {
+                finished = true;
+            }
+        }
+
+        return next != null;
+    }
+
+    @Override
+    public MatchResult next() {
+        if (!hasNext()){
+            throw new NoSuchElementException();
+        }
+
+        MatchResult result = next;
+        next = null;
+        return result;
+    }
+}
@@ -0,0 +1,16 @@
+package org.xmlet.regex;
+
+/**
+ * Receives the matches found by {@link Regex#forEachMatch(CharSequence, MatchSink)} as they are found.
+ */
+@FunctionalInterface
+public interface MatchSink {
+
+    /**
+     * Handles a single match. The received {@link MatchView} is reused for every match, so it must not be kept after
+     * this method returns.
+     * @param match A view of the current match.
+     * @return True to keep searching for matches, false to stop the search.
+     */
+    boolean onMatch(MatchView match);
+}
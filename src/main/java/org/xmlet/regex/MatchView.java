@@ -0,0 +1,118 @@
+package org.xmlet.regex;
+
+import org.xmlet.regex.engine.EngineMatcher;
+
+import java.util.regex.MatchResult;
+
+/**
+ * A reusable view of the current match of a search. The view doesn't copy any characters, the bounds of the match and
+ * of its groups point into the searched input, and {@link MatchView#charAt(int)} reads the input directly. Only
+ * {@link MatchView#group()}, {@link MatchView#group(int)}, {@link MatchView#subSequence(int, int)} and
+ * {@link MatchView#toString()} create new objects.
+ * <p>As a {@link CharSequence} the view contains the characters of the whole match.
+ * <p>When the input is streamed, the bounds are relative to the window of the input currently held in memory, which
+ * starts at the absolute position given by {@link MatchView#getOffset()}.
+ */
+public final class MatchView implements MatchResult, CharSequence {
+
+    private final EngineMatcher matcher;
+    private CharSequence input;
+    private long offset;
+
+    MatchView(EngineMatcher matcher){
+        this.matcher = matcher;
+    }
+
+    void reset(CharSequence input){
+        this.input = input;
+        this.offset = 0;
+        matcher.reset(input);
+    }
+
+    /**
+     * Points the view at the window of a streamed input, whose matcher is driven by someone else.
+     */
+    void moveTo(CharSequence window, long windowOffset){
+        this.input = window;
+        this.offset = windowOffset;
+    }
+
+    boolean find(){
+        return matcher.find();
+    }
+
+    /**
+     * @return The input where the match was found or, for streamed input, the window currently held in memory.
+     */
+    public CharSequence getInput(){
+        return input;
+    }
+
+    /**
+     * @return The absolute position of the first char of {@link MatchView#getInput()}. Adding it to
+     * {@link MatchView#start()} or {@link MatchView#end()} gives the position of the match in a streamed input. It's
+     * always zero when the whole input is in memory.
+     */
+    public long getOffset(){
+        return offset;
+    }
+
+    @Override
+    public int start() {
+        return matcher.start();
+    }
+
+    @Override
+    public int start(int group) {
+        return matcher.start(group);
+    }
+
+    @Override
+    public int end() {
+        return matcher.end();
+    }
+
+    @Override
+    public int end(int group) {
+        return matcher.end(group);
+    }
+
+    @Override
+    public String group() {
+        return matcher.group();
+    }
+
+    @Override
+    public String group(int group) {
+        return matcher.group(group);
+    }
+
+    @Override
+    public int groupCount() {
+        return matcher.groupCount();
+    }
+
+    @Override
+    public int length() {
+        return matcher.end() - matcher.start();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()){
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length());
+        }
+
+        return input.charAt(matcher.start() + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return input.subSequence(matcher.start() + start, matcher.start() + end);
+    }
+
+    @Override
+    public String toString() {
+        return matcher.group();
+    }
+}
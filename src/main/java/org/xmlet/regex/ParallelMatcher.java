@@ -0,0 +1,228 @@
+package org.xmlet.regex;
+
+import org.xmlet.regex.ir.Construct;
+import org.xmlet.regex.ir.CostAnalysis;
+import org.xmlet.regex.ir.RegexTree;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the matches of a single large input by splitting it in chunks which are searched in parallel on a
+ * {@link ForkJoinPool}. The result is always the same as a sequential search, i.e. the bounds of the matches found by
+ * successive calls to {@link Matcher#find()}.
+ * <p>Each chunk reports the matches that start inside of it. When the regex has a bounded match length the chunks are
+ * searched up to that length past their end, otherwise, when no match can contain a {@code '\n'}, the chunks end
+ * right after a new line, which no match can cross. Both are known from the {@link CostAnalysis} of the regex. Regexes
+ * that fit neither case, that use {@code \G} or that can't be parsed are searched sequentially.
+ * <p>A chunk is searched as if no match started before it. When the last match of the previous chunks ends inside the
+ * chunk, the chunk is searched again sequentially from that end until a match agrees with the parallel search, from
+ * where on the remaining parallel matches are the sequential ones.
+ */
+final class ParallelMatcher {
+
+    static final int MINIMUM_CHUNK_SIZE = 32 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final Pattern pattern;
+    private final CostAnalysis analysis;
+    private final boolean sequential;
+
+    /**
+     * @param tree The parsed regex, or null if it can't be parsed.
+     */
+    ParallelMatcher(Pattern pattern, RegexTree tree){
+        this.pattern = pattern;
+        this.analysis = tree == null ? null : CostAnalysis.of(tree);
+        this.sequential = tree == null || tree.getConstructs().contains(Construct.PREVIOUS_MATCH_END);
+    }
+
+    /**
+     * @param input The text to search.
+     * @param pool The pool that searches the chunks.
+     * @return The start and end of each match, in pairs, in order.
+     */
+    int[] matchOffsets(CharSequence input, ForkJoinPool pool){
+        int chunkCount = Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, input.length() / MINIMUM_CHUNK_SIZE);
+
+        if (chunkCount < 2 || sequential){
+            return sequential(input);
+        }
+
+        int maxLength = analysis.getMaxLength();
+        int overlap;
+        int[] bounds;
+
+        if (maxLength != CostAnalysis.UNBOUNDED){
+            overlap = maxLength;
+            bounds = split(input, chunkCount, false);
+        } else if (!analysis.matchesNewLine()){
+            overlap = 0;
+            bounds = split(input, chunkCount, true);
+        } else {
+            return sequential(input);
+        }
+
+        int[][] chunks = new int[bounds.length - 1][];
+        pool.invoke(new ChunkTask(input, bounds, overlap, chunks, 0, chunks.length));
+
+        return merge(input, bounds, overlap, chunks);
+    }
+
+    private int[] sequential(CharSequence input){
+        Matcher matcher = pattern.matcher(input);
+        IntList offsets = new IntList();
+
+        while (matcher.find()){
+            offsets.add(matcher.start());
+            offsets.add(matcher.end());
+        }
+
+        return offsets.toArray();
+    }
+
+    /**
+     * @return The chunk bounds, starting with 0 and ending with the input length.
+     */
+    private static int[] split(CharSequence input, int chunkCount, boolean afterNewLine){
+        int length = input.length();
+        IntList bounds = new IntList(chunkCount + 1);
+        bounds.add(0);
+
+        int previous = 0;
+
+        for (int chunk = 1; chunk < chunkCount; chunk++){
+            int bound = (int) ((long) length * chunk / chunkCount);
+
+            if (afterNewLine){
+                bound = Math.max(bound, previous);
+
+                while (bound < length && input.charAt(bound) != '\n'){
+                    bound++;
+                }
+
+                bound = Math.min(bound + 1, length);
+            }
+
+            if (bound > previous && bound < length){
+                bounds.add(bound);
+                previous = bound;
+            }
+        }
+
+        bounds.add(length);
+        return bounds.toArray();
+    }
+
+    private Matcher chunkMatcher(CharSequence input){
+        return pattern.matcher(input).useTransparentBounds(true).useAnchoringBounds(false);
+    }
+
+    private static int searchEnd(CharSequence input, int[] bounds, int chunk, int overlap){
+        return (int) Math.min(input.length(), (long) bounds[chunk + 1] + overlap);
+    }
+
+    /**
+     * @return The position from where matches belong to the next chunk. The last chunk also takes a match at the end
+     * of the input.
+     */
+    private static int nextChunkStart(int[] bounds, int chunk){
+        return chunk + 2 == bounds.length ? bounds[chunk + 1] + 1 : bounds[chunk + 1];
+    }
+
+    private int[] merge(CharSequence input, int[] bounds, int overlap, int[][] chunks){
+        IntList offsets = new IntList();
+        Matcher matcher = null;
+        int next = 0;
+
+        for (int chunk = 0; chunk < chunks.length; chunk++){
+            int[] matches = chunks[chunk];
+            int index = 0;
+
+            if (next > bounds[chunk]){
+                index = matches.length;
+
+                if (next < nextChunkStart(bounds, chunk)){
+                    if (matcher == null){
+                        matcher = chunkMatcher(input);
+                    }
+
+                    matcher.region(next, searchEnd(input, bounds, chunk, overlap));
+                    int candidate = 0;
+
+                    while (matcher.find() && matcher.start() < nextChunkStart(bounds, chunk)){
+                        int start = matcher.start();
+                        int end = matcher.end();
+
+                        while (candidate < matches.length && matches[candidate] < start){
+                            candidate += 2;
+                        }
+
+                        if (candidate < matches.length && matches[candidate] == start && matches[candidate + 1] == end){
+                            index = candidate;
+                            break;
+                        }
+
+                        offsets.add(start);
+                        offsets.add(end);
+                        next = start == end ? end + 1 : end;
+                    }
+                }
+            }
+
+            for (; index < matches.length; index += 2){
+                offsets.add(matches[index]);
+                offsets.add(matches[index + 1]);
+                next = matches[index] == matches[index + 1] ? matches[index + 1] + 1 : matches[index + 1];
+            }
+        }
+
+        return offsets.toArray();
+    }
+
+    /**
+     * Searches a range of chunks, splitting it in halves until a single chunk remains.
+     */
+    private final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence input;
+        private final int[] bounds;
+        private final int overlap;
+        private final int[][] chunks;
+        private final int from;
+        private final int to;
+
+        ChunkTask(CharSequence input, int[] bounds, int overlap, int[][] chunks, int from, int to){
+            this.input = input;
+            this.bounds = bounds;
+            this.overlap = overlap;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if (to - from > 1){
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(input, bounds, overlap, chunks, from, middle),
+                          new ChunkTask(input, bounds, overlap, chunks, middle, to));
+                return;
+            }
+
+            Matcher matcher = chunkMatcher(input).region(bounds[from], searchEnd(input, bounds, from, overlap));
+            IntList offsets = new IntList();
+
+            while (matcher.find() && matcher.start() < nextChunkStart(bounds, from)){
+                offsets.add(matcher.start());
+                offsets.add(matcher.end());
+            }
+
+            chunks[from] = offsets.toArray();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package org.xmlet.regex;
+
+import org.xmlet.regex.engine.EnginePattern;
+import org.xmlet.regex.engine.EngineSelection;
+import org.xmlet.regex.engine.EngineSelector;
+import org.xmlet.regex.engine.RegexEngine;
+import org.xmlet.regex.ir.CharSet;
+import org.xmlet.regex.ir.RegexTree;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded, least recently used, cache of compiled patterns, keyed by regex String and flags. The
+ * {@link java.util.regex.Pattern}, {@link jregex.Pattern} and {@link EnginePattern} instances are kept, as well as the
+ * engine chosen for each regex and the {@link CharSet} of each character class, since all of them are immutable and
+ * can be shared by any number of threads.
+ * <p>Every {@link Regex} compiles its match regex through {@link PatternCache#getInstance()}, so a regex built many
+ * times, e.g. by {@link Regex#quickExpr}, is only compiled once while it stays in the cache. The maximum size of the
+ * shared cache defaults to {@value #DEFAULT_MAXIMUM_SIZE} and can be set with the
+ * {@code org.xmlet.regex.cache.maximumSize} system property or with {@link PatternCache#setMaximumSize(int)}.
+ */
+public final class PatternCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 512;
+
+    private static final PatternCache INSTANCE =
+            new PatternCache(Integer.getInteger("org.xmlet.regex.cache.maximumSize", DEFAULT_MAXIMUM_SIZE));
+
+    private final LinkedHashMap<Key, Object> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private int maximumSize;
+
+    /**
+     * @param maximumSize The maximum number of compiled patterns kept by the cache.
+     */
+    public PatternCache(int maximumSize){
+        checkMaximumSize(maximumSize);
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return The cache shared by every {@link Regex}.
+     */
+    public static PatternCache getInstance(){
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the {@link Pattern} of {@code regex} compiled with {@code flags}, compiling it only if it isn't cached.
+     * @param regex The regex to compile.
+     * @param flags The {@link Pattern} flags.
+     * @return The compiled pattern.
+     */
+    public Pattern compile(String regex, int flags){
+        return (Pattern) get(new Key(Pattern.class, regex, flags), () -> Pattern.compile(regex, flags));
+    }
+
+    /**
+     * Returns the {@link jregex.Pattern} of {@code regex} compiled with {@code flags}, compiling it only if it isn't
+     * cached.
+     * @param regex The regex to compile.
+     * @param flags The {@link jregex.REFlags} flags.
+     * @return The compiled pattern.
+     */
+    public jregex.Pattern compileConditional(String regex, int flags){
+        return (jregex.Pattern) get(new Key(jregex.Pattern.class, regex, flags), () -> new jregex.Pattern(regex, flags));
+    }
+
+    /**
+     * Returns the {@link EnginePattern} of {@code regex} compiled by {@code engine}, compiling it only if it isn't
+     * cached.
+     * @param regex The regex to compile.
+     * @param engine The engine that compiles the regex.
+     * @return The compiled pattern.
+     * @throws UnsupportedOperationException If the regex uses constructs the {@code engine} doesn't support.
+     */
+    public EnginePattern compile(String regex, RegexEngine engine){
+        return (EnginePattern) get(new Key(engine, regex, 0), () -> engine.compile(regex));
+    }
+
+    /**
+     * Returns the {@link EnginePattern} of the parsed regex {@code tree} compiled by {@code engine}, compiling it only
+     * if it isn't cached. The entry is shared with {@link #compile(String, RegexEngine)} for the source of the tree.
+     * @param tree The parsed regex to compile.
+     * @param engine The engine that compiles the regex.
+     * @return The compiled pattern.
+     * @throws UnsupportedOperationException If the regex uses constructs the {@code engine} doesn't support.
+     */
+    public EnginePattern compile(RegexTree tree, RegexEngine engine){
+        return (EnginePattern) get(new Key(engine, tree.getSource(), 0), () -> engine.compile(tree));
+    }
+
+    /**
+     * Returns the chars matched by the character class {@code charClass} compiled with {@code flags}, such as
+     * {@code [a-z]} or {@code \p{Lu}}, computing them only if they aren't cached. Computing a set tries every char, so
+     * the {@link org.xmlet.regex.ir.RegexParser} keeps the sets of the classes it parses here.
+     * @param charClass The character class.
+     * @param flags The {@link Pattern} flags.
+     * @return The chars matched by the class.
+     * @throws java.util.regex.PatternSyntaxException If the class isn't valid.
+     */
+    public CharSet compileCharSet(String charClass, int flags){
+        Key key = new Key(CharSet.class, charClass, flags);
+        return (CharSet) get(key, () -> CharSet.matching(Pattern.compile(charClass, flags)));
+    }
+
+    /**
+     * Returns the engine chosen by {@link EngineSelector#select(String)} for {@code regex}, choosing it only if the
+     * choice isn't cached.
+     * @param regex The regex to compile.
+     * @return The chosen engine, with the compiled pattern.
+     */
+    public EngineSelection select(String regex){
+        return (EngineSelection) get(new Key(EngineSelection.class, regex, 0), () -> EngineSelector.select(regex));
+    }
+
+    /**
+     * Returns the engine chosen by {@link EngineSelector#select(RegexTree)} for the parsed regex {@code tree},
+     * choosing it only if the choice isn't cached. The entry is shared with {@link #select(String)} for the source of
+     * the tree.
+     * @param tree The parsed regex to compile.
+     * @return The chosen engine, with the compiled pattern.
+     */
+    public EngineSelection select(RegexTree tree){
+        Key key = new Key(EngineSelection.class, tree.getSource(), 0);
+        return (EngineSelection) get(key, () -> EngineSelector.select(tree));
+    }
+
+    /**
+     * Changes the maximum number of compiled patterns kept by the cache, evicting the least recently used ones if
+     * needed.
+     * @param maximumSize The new maximum size.
+     */
+    public synchronized void setMaximumSize(int maximumSize){
+        checkMaximumSize(maximumSize);
+        this.maximumSize = maximumSize;
+        evictExcess();
+    }
+
+    public synchronized int getMaximumSize(){
+        return maximumSize;
+    }
+
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    /**
+     * Removes every compiled pattern from the cache. The statistics are kept.
+     */
+    public synchronized void clear(){
+        entries.clear();
+    }
+
+    /**
+     * @return The number of lookups that found a compiled pattern in the cache.
+     */
+    public long getHitCount(){
+        return hitCount.get();
+    }
+
+    /**
+     * @return The number of lookups that had to compile the pattern.
+     */
+    public long getMissCount(){
+        return missCount.get();
+    }
+
+    /**
+     * @return The number of compiled patterns removed from the cache to keep it within its maximum size.
+     */
+    public long getEvictionCount(){
+        return evictionCount.get();
+    }
+
+    /**
+     * Compilation happens outside the lock so that a slow regex doesn't block lookups of other regexes. If two threads
+     * miss the same key at the same time, the pattern compiled first is the one kept by both.
+     */
+    private Object get(Key key, Supplier<Object> compiler){
+        synchronized (this){
+            Object compiled = entries.get(key);
+
+            if (compiled != null){
+                hitCount.incrementAndGet();
+                return compiled;
+            }
+        }
+
+        missCount.incrementAndGet();
+        Object compiled = compiler.get();
+
+        synchronized (this){
+            Object previous = entries.putIfAbsent(key, compiled);
+
+            if (previous != null){
+                return previous;
+            }
+
+            evictExcess();
+            return compiled;
+        }
+    }
+
+    private void evictExcess(){
+        Iterator<Map.Entry<Key, Object>> iterator = entries.entrySet().iterator();
+
+        while (entries.size() > maximumSize){
+            iterator.next();
+            iterator.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private static void checkMaximumSize(int maximumSize){
+        if (maximumSize < 0){
+            throw new IllegalArgumentException("The maximum size can't be negative: " + maximumSize);
+        }
+    }
+
+    private static final class Key {
+
+        private final Object kind;
+        private final String regex;
+        private final int flags;
+
+        /**
+         * @param kind What the regex is compiled into, the class of the pattern or the engine.
+         */
+        private Key(Object kind, String regex, int flags){
+            this.kind = kind;
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)){
+                return false;
+            }
+
+            Key key = (Key) other;
+            return kind == key.kind && flags == key.flags && regex.equals(key.regex);
+        }
+
+        @Override
+        public int hashCode() {
+            return (regex.hashCode() * 31 + flags) * 31 + kind.hashCode();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.xmlet.regex;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * A small lock free pool of reusable objects, such as matchers. The slots are striped by thread id, so threads
+ * running on different cores rarely compete for the same slot. When every slot is empty a new object is created, and
+ * when every slot is full a released object is simply dropped.
+ */
+final class Pool<T> {
+
+    private static final int MAXIMUM_SLOTS = 16;
+
+    private final AtomicReferenceArray<T> slots;
+    private final Supplier<T> factory;
+    private final int mask;
+
+    Pool(Supplier<T> factory){
+        int size = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), MAXIMUM_SLOTS) * 2 - 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.factory = factory;
+        this.mask = size - 1;
+    }
+
+    T acquire(){
+        int start = (int) Thread.currentThread().getId();
+
+        for (int i = 0; i <= mask; i++){
+            int index = (start + i) & mask;
+            T pooled = slots.get(index);
+
+            if (pooled != null && slots.compareAndSet(index, pooled, null)){
+                return pooled;
+            }
+        }
+
+        return factory.get();
+    }
+
+    void release(T object){
+        int start = (int) Thread.currentThread().getId();
+
+        for (int i = 0; i <= mask; i++){
+            int index = (start + i) & mask;
+
+            if (slots.get(index) == null && slots.compareAndSet(index, null, object)){
+                return;
+            }
+        }
+    }
+}
@@ -1,32 +1,129 @@
 package org.xmlet.regex;
 
+import org.xmlet.regex.engine.EngineMatcher;
+import org.xmlet.regex.engine.EnginePattern;
+import org.xmlet.regex.engine.EngineSelection;
+import org.xmlet.regex.engine.EngineSelector;
+import org.xmlet.regex.engine.MatchEngine;
+import org.xmlet.regex.engine.RegexEngine;
+import org.xmlet.regex.ir.BacktrackingAnalysis;
+import org.xmlet.regex.ir.CostAnalysis;
+import org.xmlet.regex.ir.RegexTree;
 import org.xmlet.regex.visitor.RegexVisitor;
+import org.xmlet.regex.visitor.SubstitutionVisitor;
 import org.xmlet.regexapi.Element;
 import org.xmlet.regexapi.ElementVisitor;
 import org.xmlet.regexapi.RegexMatchExpression;
 import org.xmlet.regexapi.RegexSubstitutionExpression;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * A regular expression built with the regexApi fluent interface, given to the constructor, with an optional
+ * substitution expression.
+ * <p>A {@link Regex} is immutable once constructed and every method may be called concurrently from any number of
+ * threads. The compiled expressions are shared through the {@link PatternCache}, and the matchers used by each call
+ * are taken from a small striped pool and reset, instead of being allocated, so threads sharing a {@link Regex} don't
+ * allocate a matcher per call in steady state. The objects returned to the caller, such as
+ * iterators, streams and {@link MatchView} instances, aren't thread safe and belong to the calling thread.
+ */
 @SuppressWarnings("WeakerAccess")
 public class Regex implements Element<Regex, Element> {
 
     private final String matchRegex;
     private final String substitutionRegex;
     private final RegexVisitor matchVisitor;
-    private final RegexVisitor substitutionVisitor;
+    private final SubstitutionVisitor substitutionVisitor;
+    private final Replacer replacer;
+    private final RegexEngine engine;
+    private volatile Pattern pattern;
+    private volatile RegexTree regexTree;
+    private volatile CostAnalysis costAnalysis;
+    private volatile BacktrackingAnalysis backtrackingAnalysis;
+    private volatile int minLength = -1;
+    private volatile EngineSelection engineSelection;
+    private volatile jregex.Pattern conditionalPattern;
+    private volatile ParallelMatcher parallelMatcher;
+    private final Pool<EngineMatcher> matchers = new Pool<>(() -> getEnginePattern().matcher(""));
+    private final Pool<MatchView> matchViews = new Pool<>(() -> new MatchView(getEnginePattern().matcher("")));
+    private final Pool<jregex.Matcher> conditionalMatchers = new Pool<>(() -> getConditionalPattern().matcher());
 
     public Regex(Consumer<Regex> consumer){
+        this(consumer, null);
+    }
+
+    /**
+     * Builds a regex whose matches are searched by the given {@code engine}. The match regex is compiled by the engine
+     * the first time it's needed, which throws an {@link UnsupportedOperationException} if the engine doesn't support
+     * it. Without an engine, the fastest one that supports the constructs of the match regex is chosen by the
+     * {@link EngineSelector}, and the choice is reported by {@link Regex#getEngineSelection()}. The streaming,
+     * parallel and conditional methods always use {@link java.util.regex.Pattern} or jregex, with the same results.
+     * @param consumer Builds the match and substitution expressions.
+     * @param engine The engine that searches for the matches, or null to choose it automatically.
+     */
+    public Regex(Consumer<Regex> consumer, RegexEngine engine){
+        this(consumer, engine, false);
+    }
+
+    /**
+     * Builds a regex whose matches are searched by the given {@code engine}, as {@link Regex#Regex(Consumer,
+     * RegexEngine)}. A {@code strict} regex is analyzed by {@link Regex#getBacktrackingAnalysis()} while it's built, so
+     * a regex that may backtrack exponentially is rejected before it's ever searched, whatever engine is chosen, since
+     * the streaming and parallel methods always backtrack. Polynomial findings, such as the overlapping quantifiers of
+     * {@code .*foo.*}, are accepted. Regexes with a construct that has no node, such as {@code \X}, or with syntax
+     * that only jregex understands, can't be analyzed and are accepted, leaving their errors to the engine.
+     * @param consumer Builds the match and substitution expressions.
+     * @param engine The engine that searches for the matches, or null to choose it automatically.
+     * @param strict True to reject the match regexes with an exponential finding.
+     * @throws BacktrackingException If the regex is {@code strict} and may backtrack exponentially.
+     */
+    public Regex(Consumer<Regex> consumer, RegexEngine engine, boolean strict){
+        this.engine = engine;
         matchVisitor = new RegexVisitor();
-        substitutionVisitor = new RegexVisitor();
+        substitutionVisitor = new SubstitutionVisitor();
         consumer.accept(this);
 
         matchRegex = matchVisitor.getRegex();
         substitutionRegex = substitutionVisitor.getRegex();
+        replacer = new Replacer(substitutionVisitor.getTemplate(matchRegex));
+
+        if (strict && parseMatchRegex() != null && getBacktrackingAnalysis().isExponential()){
+            List<BacktrackingAnalysis.Finding> findings = new ArrayList<>();
+
+            for (BacktrackingAnalysis.Finding finding : getBacktrackingAnalysis().getFindings()){
+                if (finding.getKind().isExponential()){
+                    findings.add(finding);
+                }
+            }
+
+            throw new BacktrackingException(matchRegex, findings);
+        }
     }
 
     public static String quickExpr(Consumer<RegexMatchExpression<Regex>> expressionConsumer){
@@ -76,19 +173,154 @@ public class Regex implements Element<Regex, Element> {
         }
 
         List<String> res = new ArrayList<>();
-        Matcher matcher = Pattern.compile(this.matchRegex).matcher(toReplace);
 
-        while(matcher.find()){
-            String match = matcher.group();
+        if (isTooShort(toReplace)){
+            return res;
+        }
+
+        EngineMatcher matcher = acquireMatcher(toReplace);
 
-            if (ignoreEmptyStrings && match.length() != 0){
-                res.add(match.replaceAll(matchRegex, substitutionRegex));
+        try {
+            while(matcher.find()){
+                if (ignoreEmptyStrings && matcher.end() != matcher.start()){
+                    res.add(replacer.replaceMatch(matcher, toReplace));
+                }
             }
+        } finally {
+            releaseMatcher(matcher);
         }
 
         return res;
     }
 
+    /**
+     * Applies the {@link Regex#matchRegex} to the received String {@code toReplace} and performs the replace using the
+     * {@link Regex#substitutionRegex}, ignoring empty matches, within the received {@code limit}, as
+     * {@link Regex#match(String, SearchLimit)} does.
+     * @param toReplace The received String.
+     * @param limit The limit of the search, or null to search without one.
+     * @return A list of substitution results.
+     * @throws SearchLimitException If the search exceeds the {@code limit}, with the substitutions made so far.
+     * @throws UnsupportedOperationException If the {@code limit} has a maximum number of steps and the engine of this
+     * regex isn't {@link RegexEngine#isInterruptible()}.
+     */
+    public List<String> replace(String toReplace, SearchLimit limit){
+        if (limit == null){
+            return replace(toReplace);
+        }
+
+        checkLimit(limit, getEngine());
+
+        List<String> res = new ArrayList<>();
+
+        if (isTooShort(toReplace)){
+            return res;
+        }
+
+        LimitedCharSequence input = limit.start(toReplace);
+        EngineMatcher matcher = acquireMatcher(input);
+
+        try {
+            while(matcher.find()){
+                if (matcher.end() != matcher.start()){
+                    res.add(replacer.replaceMatch(matcher, toReplace));
+                }
+
+                input.check(matcher.end());
+            }
+        } catch (SearchLimitException e){
+            throw new SearchLimitException(e, res);
+        } finally {
+            releaseMatcher(matcher);
+        }
+
+        return res;
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received String {@code toReplace} and replaces every match with the
+     * {@link Regex#substitutionRegex}, in a single pass over the input.
+     * @param toReplace The received String.
+     * @return The received String with every match replaced.
+     */
+    public String replaceAll(String toReplace){
+        return replaceAll(toReplace, false);
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received String {@code toReplace} and replaces every match with the
+     * {@link Regex#substitutionRegex}, in a single pass over the input.
+     * @param toReplace The received String.
+     * @param printRegex Informs if the both {@link Regex#matchRegex} and {@link Regex#substitutionRegex} should be printed.
+     * @return The received String with every match replaced.
+     */
+    public String replaceAll(String toReplace, boolean printRegex){
+        if (printRegex){
+            System.out.println("Match regex: " + matchRegex);
+            System.out.println("Substitution regex: " + substitutionRegex);
+        }
+
+        if (isTooShort(toReplace)){
+            return toReplace;
+        }
+
+        EngineMatcher matcher = acquireMatcher(toReplace);
+
+        try {
+            return replacer.replaceAll(matcher, toReplace);
+        } finally {
+            releaseMatcher(matcher);
+        }
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received {@code toReplace} and writes it to {@code out}, with every
+     * match replaced by the {@link Regex#substitutionRegex}, in a single pass over the input.
+     * @param toReplace The received CharSequence.
+     * @param out The destination of the rewritten input.
+     * @throws IOException If {@code out} fails.
+     */
+    public void replace(CharSequence toReplace, Appendable out) throws IOException {
+        if (isTooShort(toReplace)){
+            out.append(toReplace);
+            return;
+        }
+
+        EngineMatcher matcher = acquireMatcher(toReplace);
+
+        try {
+            replacer.replaceAll(matcher, toReplace, out);
+        } finally {
+            releaseMatcher(matcher);
+        }
+    }
+
+    /**
+     * Reads the received {@code toReplace} and writes it to {@code out}, with every match of the
+     * {@link Regex#matchRegex} replaced by the {@link Regex#substitutionRegex}. The input is streamed through a window
+     * of 64K chars, so the memory used doesn't depend on the size of the input. Matches longer than half the window
+     * may not be found.
+     * @param toReplace The received Reader. It isn't closed by this method.
+     * @param out The destination of the rewritten input.
+     * @throws IOException If reading {@code toReplace} or writing to {@code out} fails.
+     */
+    public void replace(Reader toReplace, Appendable out) throws IOException {
+        replace(toReplace, out, WindowScanner.DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Reads the received {@code toReplace} and writes it to {@code out}, with every match of the
+     * {@link Regex#matchRegex} replaced by the {@link Regex#substitutionRegex}. The input is streamed through a window
+     * of {@code windowSize} chars, which bounds the memory used. Matches longer than half the window may not be found.
+     * @param toReplace The received Reader. It isn't closed by this method.
+     * @param out The destination of the rewritten input.
+     * @param windowSize The maximum number of chars of the input held in memory at once.
+     * @throws IOException If reading {@code toReplace} or writing to {@code out} fails.
+     */
+    public void replace(Reader toReplace, Appendable out, int windowSize) throws IOException {
+        replacer.replaceAll(getPattern(), toReplace, out, windowSize);
+    }
+
     /**
      * Applies the {@link Regex#matchRegex} to the received String {@code toReplace}.
      * @param toMatch The received String.
@@ -121,19 +353,396 @@ public class Regex implements Element<Regex, Element> {
         }
 
         List<String> res = new ArrayList<>();
-        Matcher matcher = Pattern.compile(this.matchRegex).matcher(toMatch);
 
-        while(matcher.find()){
-            String match = matcher.group();
+        if (isTooShort(toMatch)){
+            return res;
+        }
+
+        EngineMatcher matcher = acquireMatcher(toMatch);
+
+        try {
+            while(matcher.find()){
+                if (ignoreEmptyStrings && matcher.end() != matcher.start()){
+                    res.add(toMatch.substring(matcher.start(), matcher.end()));
+                }
+            }
+        } finally {
+            releaseMatcher(matcher);
+        }
+
+        return res;
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received String {@code toMatch}, ignoring empty matches, within the
+     * received {@code limit}. The chars read by the engine are counted as they are read, so a search that backtracks
+     * catastrophically is stopped while it runs. An engine that isn't {@link RegexEngine#isInterruptible()}, such as
+     * {@link MatchEngine#JREGEX}, can't be stopped while it searches, so a limit with a maximum number of steps is
+     * rejected, and a timeout is only checked after each match.
+     * @param toMatch The received String.
+     * @param limit The limit of the search, or null to search without one.
+     * @return A list of match results.
+     * @throws SearchLimitException If the search exceeds the {@code limit}, with the matches found so far.
+     * @throws UnsupportedOperationException If the {@code limit} has a maximum number of steps and the engine of this
+     * regex isn't {@link RegexEngine#isInterruptible()}.
+     */
+    public List<String> match(String toMatch, SearchLimit limit){
+        if (limit == null){
+            return match(toMatch);
+        }
+
+        checkLimit(limit, getEngine());
+
+        List<String> res = new ArrayList<>();
+
+        if (isTooShort(toMatch)){
+            return res;
+        }
+
+        LimitedCharSequence input = limit.start(toMatch);
+        EngineMatcher matcher = acquireMatcher(input);
+
+        try {
+            while(matcher.find()){
+                if (matcher.end() != matcher.start()){
+                    res.add(toMatch.substring(matcher.start(), matcher.end()));
+                }
+
+                input.check(matcher.end());
+            }
+        } catch (SearchLimitException e){
+            throw new SearchLimitException(e, res);
+        } finally {
+            releaseMatcher(matcher);
+        }
+
+        return res;
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received {@code toMatch} and returns the bounds of every match,
+     * including empty ones, without creating any String. The offsets point into {@code toMatch}.
+     * @param toMatch The received CharSequence.
+     * @return The start and end offsets of each match, stored consecutively, i.e. {@code [start0, end0, start1, end1, ...]}.
+     */
+    public int[] matchOffsets(CharSequence toMatch){
+        return matchOffsets(toMatch, false);
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received {@code toMatch} and returns the bounds of every match,
+     * including empty ones, without creating any String. The offsets point into {@code toMatch}.
+     * @param toMatch The received CharSequence.
+     * @param includeGroups Informs if the bounds of the capturing groups should be included. In that case each match
+     *                      takes {@code 2 * (groupCount + 1)} entries, the bounds of the whole match followed by the
+     *                      bounds of each group, with -1 for groups that didn't participate in the match.
+     * @return The offsets of each match, stored consecutively.
+     */
+    public int[] matchOffsets(CharSequence toMatch, boolean includeGroups){
+        if (isTooShort(toMatch)){
+            return new int[0];
+        }
+
+        EngineMatcher matcher = acquireMatcher(toMatch);
+        int groups = includeGroups ? matcher.groupCount() : 0;
+        IntList offsets = new IntList();
+
+        try {
+            while(matcher.find()){
+                for (int group = 0; group <= groups; group++){
+                    offsets.add(matcher.start(group));
+                    offsets.add(matcher.end(group));
+                }
+            }
+        } finally {
+            releaseMatcher(matcher);
+        }
+
+        return offsets.toArray();
+    }
+
+    /**
+     * Tells if the {@link Regex#matchRegex} has any match, possibly empty, in the received {@code toMatch}, stopping
+     * at the first one.
+     * @param toMatch The received CharSequence.
+     * @return True if a match was found.
+     */
+    public boolean containsMatch(CharSequence toMatch){
+        if (isTooShort(toMatch)){
+            return false;
+        }
+
+        EngineMatcher matcher = acquireMatcher(toMatch);
+
+        try {
+            return matcher.find();
+        } finally {
+            releaseMatcher(matcher);
+        }
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received String {@code toMatch}, searching chunks of it in parallel
+     * on the {@link ForkJoinPool#commonPool()}. The result is the same as {@link Regex#match(String)}.
+     * @param toMatch The received String.
+     * @return A list of match results.
+     */
+    public List<String> parallelMatch(String toMatch){
+        return parallelMatch(toMatch, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received String {@code toMatch}, searching chunks of it in parallel
+     * on the given {@code pool}. The result is the same as {@link Regex#match(String)}.
+     * @param toMatch The received String.
+     * @param pool The pool that searches the chunks.
+     * @return A list of match results.
+     */
+    public List<String> parallelMatch(String toMatch, ForkJoinPool pool){
+        int[] offsets = parallelMatchOffsets(toMatch, pool);
+        List<String> res = new ArrayList<>(offsets.length / 2);
+
+        for (int i = 0; i < offsets.length; i += 2){
+            if (offsets[i] != offsets[i + 1]){
+                res.add(toMatch.substring(offsets[i], offsets[i + 1]));
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received {@code toMatch}, searching chunks of it in parallel on the
+     * {@link ForkJoinPool#commonPool()}. The result is the same as {@link Regex#matchOffsets(CharSequence)}.
+     * @param toMatch The received CharSequence.
+     * @return The start and end offsets of each match, stored consecutively.
+     */
+    public int[] parallelMatchOffsets(CharSequence toMatch){
+        return parallelMatchOffsets(toMatch, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received {@code toMatch}, searching chunks of it in parallel on the
+     * given {@code pool}. Inputs shorter than a few chunks, or regexes whose matches may be arbitrarily long and
+     * contain new lines, are searched sequentially. The result is the same as {@link Regex#matchOffsets(CharSequence)}.
+     * @param toMatch The received CharSequence, which must not change during the search.
+     * @param pool The pool that searches the chunks.
+     * @return The start and end offsets of each match, stored consecutively.
+     */
+    public int[] parallelMatchOffsets(CharSequence toMatch, ForkJoinPool pool){
+        if (isTooShort(toMatch)){
+            return new int[0];
+        }
+
+        ParallelMatcher result = parallelMatcher;
+
+        if (result == null){
+            result = new ParallelMatcher(getPattern(), parseMatchRegex());
+            parallelMatcher = result;
+        }
+
+        return result.matchOffsets(toMatch, pool);
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to each of the received inputs, searching them in parallel on the
+     * {@link ForkJoinPool#commonPool()}.
+     * @param toMatch The received inputs.
+     * @return The result of {@link Regex#matchOffsets(CharSequence)} for each input, in the order of {@code toMatch}.
+     */
+    public List<int[]> matchAll(Collection<? extends CharSequence> toMatch){
+        return matchAll(toMatch, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to each of the received inputs, searching them in parallel on the given
+     * {@code pool}. The inputs are split in batches, each one searched by a single {@link Matcher} which is reset for
+     * every input.
+     * @param toMatch The received inputs.
+     * @param pool The pool that searches the batches.
+     * @return The result of {@link Regex#matchOffsets(CharSequence)} for each input, in the order of {@code toMatch}.
+     */
+    public List<int[]> matchAll(Collection<? extends CharSequence> toMatch, ForkJoinPool pool){
+        return Arrays.asList(BatchMatcher.matchOffsets(getPattern(), toMatch.toArray(new CharSequence[0]), pool));
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to each of the received inputs, searching them in parallel on the
+     * {@link ForkJoinPool#commonPool()}. The stream is consumed before the search starts.
+     * @param toMatch The received inputs.
+     * @return The result of {@link Regex#matchOffsets(CharSequence)} for each input, in the encounter order of
+     * {@code toMatch}.
+     */
+    public List<int[]> matchAll(Stream<? extends CharSequence> toMatch){
+        return Arrays.asList(BatchMatcher.matchOffsets(getPattern(), toMatch.toArray(CharSequence[]::new), ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received {@code toMatch} and hands each match to the {@code sink} as
+     * soon as it's found, including empty ones. The {@link MatchView} received by the sink is reused for every match
+     * and pooled across calls, so no object is allocated per match or, in steady state, per call.
+     * @param toMatch The received CharSequence.
+     * @param sink The receiver of the matches, which may stop the search by returning false.
+     * @return The number of matches handed to the {@code sink}.
+     */
+    public int forEachMatch(CharSequence toMatch, MatchSink sink){
+        if (isTooShort(toMatch)){
+            return 0;
+        }
+
+        MatchView view = matchViews.acquire();
+        view.reset(toMatch);
+        int count = 0;
+
+        try {
+            while (view.find()){
+                count++;
+
+                if (!sink.onMatch(view)){
+                    break;
+                }
+            }
+        } finally {
+            view.reset("");
+            matchViews.release(view);
+        }
+
+        return count;
+    }
+
+    /**
+     * Reads the received {@code toMatch} and hands each match of the {@link Regex#matchRegex}, including empty ones,
+     * to the {@code sink}. The input is streamed through a window of 64K chars, so the memory used doesn't depend on
+     * the size of the input. Matches longer than half the window may not be found.
+     * @param toMatch The received Reader. It isn't closed by this method.
+     * @param sink The receiver of the matches, which may stop the search by returning false. The absolute position of
+     *             each match is {@link MatchView#getOffset()} plus its start.
+     * @return The number of matches handed to the {@code sink}.
+     * @throws IOException If reading {@code toMatch} fails.
+     */
+    public long forEachMatch(Reader toMatch, MatchSink sink) throws IOException {
+        return forEachMatch(toMatch, sink, WindowScanner.DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Reads the received {@code toMatch} and hands each match of the {@link Regex#matchRegex}, including empty ones,
+     * to the {@code sink}. The input is streamed through a window of {@code windowSize} chars, which bounds the memory
+     * used. Matches longer than half the window may not be found.
+     * @param toMatch The received Reader. It isn't closed by this method.
+     * @param sink The receiver of the matches, which may stop the search by returning false. The absolute position of
+     *             each match is {@link MatchView#getOffset()} plus its start.
+     * @param windowSize The maximum number of chars of the input held in memory at once.
+     * @return The number of matches handed to the {@code sink}.
+     * @throws IOException If reading {@code toMatch} fails.
+     */
+    public long forEachMatch(Reader toMatch, MatchSink sink, int windowSize) throws IOException {
+        WindowScanner scanner = new WindowScanner(getPattern(), toMatch, windowSize, null);
+        MatchView view = new MatchView(EngineMatcher.wrap(scanner.matcher()));
+        long count = 0;
+
+        while (scanner.find()){
+            count++;
+            view.moveTo(scanner.text(), scanner.offset());
 
-            if (ignoreEmptyStrings && match.length() != 0){
-                res.add(match);
+            if (!sink.onMatch(view)){
+                break;
             }
         }
 
+        return count;
+    }
+
+    /**
+     * Decodes the received {@code toMatch} with {@code charset} and hands each match of the {@link Regex#matchRegex},
+     * including empty ones, to the {@code sink}, streaming the input as {@link Regex#forEachMatch(Reader, MatchSink)}
+     * does. Positions are counted in chars, not bytes.
+     * @param toMatch The received InputStream. It isn't closed by this method.
+     * @param charset The charset of {@code toMatch}.
+     * @param sink The receiver of the matches, which may stop the search by returning false.
+     * @return The number of matches handed to the {@code sink}.
+     * @throws IOException If reading {@code toMatch} fails.
+     */
+    public long forEachMatch(InputStream toMatch, Charset charset, MatchSink sink) throws IOException {
+        return forEachMatch(new InputStreamReader(toMatch, charset), sink);
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the contents of the received {@code file}, without reading it into a
+     * String. See {@link Regex#forEachMatch(Path, Charset, MatchSink)}.
+     * @param file The received file.
+     * @param charset The charset of {@code file}.
+     * @return A list of match results.
+     * @throws IOException If reading {@code file} fails.
+     */
+    public List<String> matchFile(Path file, Charset charset) throws IOException {
+        List<String> res = new ArrayList<>();
+
+        forEachMatch(file, charset, match -> {
+            if (match.length() != 0){
+                res.add(match.toString());
+            }
+
+            return true;
+        });
+
         return res;
     }
 
+    /**
+     * Applies the {@link Regex#matchRegex} to the contents of the received {@code file} and hands each match, including
+     * empty ones, to the {@code sink}. ISO-8859-1 and US-ASCII files of up to 2G are memory mapped and searched in
+     * place through a {@link CharSequence} view of the mapped bytes, so they aren't copied into the heap. Files in
+     * other charsets, or larger ones, are decoded in chunks and searched as
+     * {@link Regex#forEachMatch(Reader, MatchSink)} does.
+     * @param file The received file.
+     * @param charset The charset of {@code file}.
+     * @param sink The receiver of the matches, which may stop the search by returning false. The position of each
+     *             match, in chars, is {@link MatchView#getOffset()} plus its start.
+     * @return The number of matches handed to the {@code sink}.
+     * @throws IOException If reading {@code file} fails.
+     */
+    public long forEachMatch(Path file, Charset charset, MatchSink sink) throws IOException {
+        boolean latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            if ((latin1 || charset.equals(StandardCharsets.US_ASCII)) && channel.size() <= Integer.MAX_VALUE){
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return forEachMatch(new ByteCharSequence(mapped, latin1), sink);
+            }
+
+            return forEachMatch(Channels.newReader(channel, charset.newDecoder(), -1), sink);
+        }
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received {@code toMatch} lazily. Each match is only searched for
+     * when the iterator is asked for it, so stopping early stops the scan of the input. Every match is returned,
+     * including empty ones.
+     * @param toMatch The received CharSequence.
+     * @return An iterator over the match results.
+     */
+    public Iterator<MatchResult> iterator(CharSequence toMatch){
+        if (isTooShort(toMatch)){
+            return Collections.emptyIterator();
+        }
+
+        return new MatchIterator(getEnginePattern().matcher(toMatch));
+    }
+
+    /**
+     * Applies the {@link Regex#matchRegex} to the received {@code toMatch} lazily. The input is only scanned as far as
+     * the stream is consumed, so short-circuiting operations such as {@link Stream#findFirst()} or
+     * {@link Stream#limit(long)} stop the scan early. Every match is returned, including empty ones.
+     * @param toMatch The received CharSequence.
+     * @return An ordered stream of the match results.
+     */
+    public Stream<MatchResult> stream(CharSequence toMatch){
+        Spliterator<MatchResult> spliterator = Spliterators.spliteratorUnknownSize(
+                iterator(toMatch), Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+
+        return StreamSupport.stream(spliterator, false);
+    }
+
     /**
      * Method for conditional regex. Applies the {@link Regex#matchRegex} to the received String {@code toReplace}.
      * @param toMatch The received String.
@@ -166,23 +775,325 @@ public class Regex implements Element<Regex, Element> {
         }
 
         List<String> res = new ArrayList<>();
-        jregex.Matcher matcher = new jregex.Pattern(this.matchRegex).matcher(toMatch);
 
-        while(matcher.find()){
-            String match = matcher.toString();
+        if (isTooShort(toMatch)){
+            return res;
+        }
+
+        jregex.Matcher matcher = conditionalMatchers.acquire();
+        matcher.setTarget(toMatch);
+
+        try {
+            while(matcher.find()){
+                int start = matcher.start();
+                int end = matcher.end();
+
+                if (ignoreEmptyStrings && end != start){
+                    res.add(toMatch.substring(start, end));
+                }
+            }
+        } finally {
+            releaseConditionalMatcher(matcher);
+        }
+
+        return res;
+    }
+
+    /**
+     * Method for conditional regex. Applies the {@link Regex#matchRegex} to the received String {@code toMatch},
+     * ignoring empty matches, within the received {@code limit}. jregex copies the input into an array, so its reads
+     * can't be counted and a search can't be stopped while it runs: only limits without a maximum number of steps are
+     * accepted, and their timeout is only checked after each match.
+     * @param toMatch The received String.
+     * @param limit The limit of the search, or null to search without one.
+     * @return A list of match results.
+     * @throws SearchLimitException If the search exceeds the timeout of the {@code limit}, with the matches found so
+     * far.
+     * @throws UnsupportedOperationException If the {@code limit} has a maximum number of steps.
+     */
+    public List<String> conditionalMatch(String toMatch, SearchLimit limit) {
+        if (limit == null){
+            return conditionalMatch(toMatch);
+        }
+
+        checkLimit(limit, MatchEngine.JREGEX);
+
+        List<String> res = new ArrayList<>();
+
+        if (isTooShort(toMatch)){
+            return res;
+        }
+
+        LimitedCharSequence input = limit.start(toMatch);
+        jregex.Matcher matcher = conditionalMatchers.acquire();
+        matcher.setTarget(toMatch);
+
+        try {
+            while(matcher.find()){
+                int start = matcher.start();
+                int end = matcher.end();
+
+                if (end != start){
+                    res.add(toMatch.substring(start, end));
+                }
 
-            if (ignoreEmptyStrings && match.length() != 0){
-                res.add(match);
+                input.check(end);
             }
+        } catch (SearchLimitException e){
+            throw new SearchLimitException(e, res);
+        } finally {
+            releaseConditionalMatcher(matcher);
         }
 
         return res;
     }
 
+    /**
+     * Method for conditional regex. Applies the {@link Regex#matchRegex} to the received String {@code toMatch} and
+     * returns the bounds of every match, without creating any String.
+     * @param toMatch The received String.
+     * @return The start and end offsets of each match, stored consecutively, i.e. {@code [start0, end0, start1, end1, ...]}.
+     */
+    public int[] conditionalMatchOffsets(String toMatch) {
+        if (isTooShort(toMatch)){
+            return new int[0];
+        }
+
+        IntList offsets = new IntList();
+        jregex.Matcher matcher = conditionalMatchers.acquire();
+        matcher.setTarget(toMatch);
+
+        try {
+            while(matcher.find()){
+                offsets.add(matcher.start());
+                offsets.add(matcher.end());
+            }
+        } finally {
+            releaseConditionalMatcher(matcher);
+        }
+
+        return offsets.toArray();
+    }
+
     public String getMatchRegex() {
         return matchRegex;
     }
 
+    /**
+     * Returns the compiled {@link Regex#matchRegex}. The expression is obtained from the {@link PatternCache} the first
+     * time this method is called, so it's only compiled if no other {@link Regex} with the same match regex did it
+     * before, and the same {@link Pattern} instance is returned on every following call, from any thread.
+     * @return The compiled match regex.
+     */
+    public Pattern getPattern() {
+        Pattern result = pattern;
+
+        if (result == null){
+            result = PatternCache.getInstance().compile(matchRegex, 0);
+            pattern = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the typed representation of the {@link Regex#matchRegex}, built by its visitor on the first call, which
+     * the engines analyze and compile instead of parsing the regex again. {@link RegexTree#encode()} gives a compact
+     * form of it.
+     * @return The parsed match regex.
+     * @throws java.util.regex.PatternSyntaxException If the match regex isn't valid.
+     * @throws UnsupportedOperationException If the match regex uses a construct that has no node, such as {@code \X}.
+     */
+    public RegexTree getRegexTree() {
+        RegexTree result = regexTree;
+
+        if (result == null){
+            result = matchVisitor.getRegexTree();
+            regexTree = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the lengths of the matches of the {@link Regex#matchRegex} and the estimated cost of searching for them,
+     * computed from its {@link Regex#getRegexTree()} on the first call. Inputs shorter than the minimum length are
+     * rejected by every method of this class without being searched.
+     * @return The analysis of the match regex.
+     * @throws PatternSyntaxException If the match regex isn't valid.
+     * @throws UnsupportedOperationException If the match regex uses a construct that has no node, such as {@code \X}.
+     */
+    public CostAnalysis getCostAnalysis() {
+        CostAnalysis result = costAnalysis;
+
+        if (result == null){
+            result = CostAnalysis.of(getRegexTree());
+            costAnalysis = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the parts of the {@link Regex#matchRegex} that may make a backtracking engine take exponential or
+     * polynomial time, such as nested quantifiers, computed from its {@link Regex#getRegexTree()} on the first call.
+     * @return The analysis of the match regex.
+     * @throws PatternSyntaxException If the match regex isn't valid.
+     * @throws UnsupportedOperationException If the match regex uses a construct that has no node, such as {@code \X}.
+     */
+    public BacktrackingAnalysis getBacktrackingAnalysis() {
+        BacktrackingAnalysis result = backtrackingAnalysis;
+
+        if (result == null){
+            result = BacktrackingAnalysis.of(getRegexTree());
+            backtrackingAnalysis = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Estimates the steps of a search for the {@link Regex#matchRegex} in an input, by its {@link CostAnalysis}. The
+     * searches of the linear engines, such as {@link org.xmlet.regex.engine.MatchEngine#DFA}, grow with the length of
+     * the input, while the ones of the backtracking engines may grow with a power of it, or exponentially.
+     * @param inputLength The length of the input.
+     * @return The estimated number of steps, or {@link Long#MAX_VALUE} if it's larger or the regex can't be analyzed.
+     */
+    public long estimateSteps(int inputLength) {
+        if (parseMatchRegex() == null){
+            return Long.MAX_VALUE;
+        }
+
+        EngineSelection selection = getEngineSelection();
+        boolean linear = selection.getEngine().isLinear() && selection.getEngine().supports(selection.getConstructs());
+        return getCostAnalysis().estimateSteps(inputLength, linear);
+    }
+
+    /**
+     * Tells if the {@link Regex#matchRegex} may be searched within a budget, e.g. before accepting a regex built from
+     * user input, by the {@link Regex#estimateSteps(int)} of the longest input expected.
+     * @param maxInputLength The length of the longest input that will be searched.
+     * @param maxSteps The maximum number of steps a search may take.
+     * @return True if the estimated steps of a search don't exceed {@code maxSteps}, false if the regex can't be
+     * analyzed.
+     */
+    public boolean isAdmissible(int maxInputLength, long maxSteps) {
+        long steps = estimateSteps(maxInputLength);
+        return steps != Long.MAX_VALUE && steps <= maxSteps;
+    }
+
+    /**
+     * Returns the engine that searches for the matches of the {@link Regex#matchRegex}, with the constructs of the
+     * regex and the reason the engine was chosen. The engine is chosen, and the regex compiled by it, on the first
+     * call, and the automatic choice of each regex is kept by the {@link PatternCache}. Regexes that only jregex
+     * understands, such as conditionals, are searched by {@link org.xmlet.regex.engine.MatchEngine#JREGEX}.
+     * @return The engine used by this regex.
+     */
+    public EngineSelection getEngineSelection() {
+        EngineSelection result = engineSelection;
+
+        if (result == null){
+            RegexTree tree = parseMatchRegex();
+
+            if (tree == null){
+                result = engine == null ? PatternCache.getInstance().select(matchRegex)
+                                        : EngineSelector.choose(matchRegex, engine);
+            } else {
+                result = engine == null ? PatternCache.getInstance().select(tree) : EngineSelector.choose(tree, engine);
+            }
+
+            engineSelection = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The engine that searches for the matches of the {@link Regex#matchRegex}.
+     */
+    public RegexEngine getEngine() {
+        return getEngineSelection().getEngine();
+    }
+
+    /**
+     * @return The {@link Regex#getRegexTree()}, or null if the match regex uses a construct that has no node or syntax
+     * that only jregex understands.
+     */
+    private RegexTree parseMatchRegex() {
+        try {
+            return getRegexTree();
+        } catch (UnsupportedOperationException | PatternSyntaxException e){
+            return null;
+        }
+    }
+
+    /**
+     * Rejects the limits with a maximum number of steps for the searches of an {@code engine} that can't count them.
+     */
+    private static void checkLimit(SearchLimit limit, RegexEngine engine) {
+        if (!engine.isInterruptible() && limit.getMaxSteps() != Long.MAX_VALUE){
+            throw new UnsupportedOperationException(engine.getName() + " can't count the steps of a search: " + limit);
+        }
+    }
+
+    /**
+     * @return True if the {@code input} is shorter than the minimum length of a match, so it has no match.
+     */
+    private boolean isTooShort(CharSequence input) {
+        int result = minLength;
+
+        if (result == -1){
+            result = parseMatchRegex() == null ? 0 : getCostAnalysis().getMinLength();
+
+            minLength = result;
+        }
+
+        return input.length() < result;
+    }
+
+    private EnginePattern getEnginePattern() {
+        return getEngineSelection().getPattern();
+    }
+
+    /**
+     * Returns the {@link Regex#matchRegex} compiled by jregex, which is the engine used by the conditional methods.
+     * The expression is obtained from the {@link PatternCache} on the first call.
+     * @return The compiled conditional match regex.
+     */
+    private jregex.Pattern getConditionalPattern() {
+        jregex.Pattern result = conditionalPattern;
+
+        if (result == null){
+            result = PatternCache.getInstance().compileConditional(matchRegex, 0);
+            conditionalPattern = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Takes a matcher from the pool and points it at the received input.
+     */
+    private EngineMatcher acquireMatcher(CharSequence input) {
+        return matchers.acquire().reset(input);
+    }
+
+    /**
+     * Returns a matcher to the pool, dropping its reference to the last input.
+     */
+    private void releaseMatcher(EngineMatcher matcher) {
+        matcher.reset("");
+        matchers.release(matcher);
+    }
+
+    /**
+     * Returns a jregex matcher to the pool, dropping its reference to the last input.
+     */
+    private void releaseConditionalMatcher(jregex.Matcher matcher) {
+        matcher.setTarget("");
+        conditionalMatchers.release(matcher);
+    }
+
     @Override
     public Regex self() {
         return this;
@@ -0,0 +1,108 @@
+package org.xmlet.regex;
+
+import org.xmlet.regex.engine.PatternSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of {@link Regex} instances whose match expressions are searched together, so telling which of them match an
+ * input takes a single scan of the input instead of one scan per {@link Regex}.
+ * <p>The match expressions are combined into one automaton, a {@link PatternSet}. The ones that aren't regular, e.g.
+ * with lookarounds or backreferences, take part in the scan through a regular approximation, which only rules them out
+ * when it doesn't match, and the {@link Regex} instances it can't rule out are then searched on their own. The same
+ * happens when the scan can't decide, e.g. for inputs with surrogate chars. The results are always the ones of
+ * searching each {@link Regex} by itself.
+ * <p>A {@link RegexSet} is immutable and may be used concurrently from any number of threads.
+ */
+public final class RegexSet {
+
+    private final List<Regex> regexes;
+    private final PatternSet patterns;
+
+    /**
+     * @param regexes The regexes of the set, each one identified by its index.
+     * @throws java.util.regex.PatternSyntaxException If a match expression isn't valid.
+     */
+    public RegexSet(Regex... regexes){
+        this(Arrays.asList(regexes));
+    }
+
+    /**
+     * @param regexes The regexes of the set, each one identified by its index.
+     * @throws java.util.regex.PatternSyntaxException If a match expression isn't valid.
+     */
+    public RegexSet(List<Regex> regexes){
+        List<String> matchRegexes = new ArrayList<>(regexes.size());
+
+        for (Regex regex : regexes){
+            matchRegexes.add(regex.getMatchRegex());
+        }
+
+        this.regexes = Collections.unmodifiableList(new ArrayList<>(regexes));
+        this.patterns = PatternSet.compile(matchRegexes);
+    }
+
+    /**
+     * @return The number of regexes in the set.
+     */
+    public int size(){
+        return regexes.size();
+    }
+
+    /**
+     * @param index The index of a regex.
+     * @return The regex with the given {@code index}.
+     */
+    public Regex get(int index){
+        return regexes.get(index);
+    }
+
+    /**
+     * Finds which regexes of the set have at least one match, possibly empty, in {@code toMatch}.
+     * @param toMatch The received CharSequence.
+     * @return The indexes of the matching regexes.
+     */
+    public BitSet matches(CharSequence toMatch){
+        BitSet matches = new BitSet(regexes.size());
+        BitSet candidates = new BitSet(regexes.size());
+        patterns.scan(toMatch, matches, candidates);
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)){
+            if (regexes.get(i).containsMatch(toMatch)){
+                matches.set(i);
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * @param toMatch The received CharSequence.
+     * @return True if any regex of the set has a match in {@code toMatch}.
+     */
+    public boolean matchesAny(CharSequence toMatch){
+        return !matches(toMatch).isEmpty();
+    }
+
+    /**
+     * Finds which regexes of the set match {@code toMatch} and where. Only the regexes found by the scan are searched
+     * again for their offsets.
+     * @param toMatch The received CharSequence.
+     * @return For each regex of the set, by index, the result of {@link Regex#matchOffsets(CharSequence)}, which is
+     * empty for the regexes that don't match.
+     */
+    public List<int[]> matchOffsets(CharSequence toMatch){
+        BitSet matches = matches(toMatch);
+        int[][] offsets = new int[regexes.size()][];
+
+        for (int i = 0; i < offsets.length; i++){
+            offsets[i] = matches.get(i) ? regexes.get(i).matchOffsets(toMatch) : new int[0];
+        }
+
+        return Arrays.asList(offsets);
+    }
+}
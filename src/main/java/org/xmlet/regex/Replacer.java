@@ -0,0 +1,108 @@
+package org.xmlet.regex;
+
+import org.xmlet.regex.engine.EngineMatcher;
+import org.xmlet.regex.visitor.SubstitutionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the substitution regex directly from the state of a live {@link EngineMatcher}, so the input is scanned a single
+ * time and the match regex is never compiled again while replacing. The substitution is a precompiled
+ * {@link SubstitutionTemplate}, so no substitution syntax is parsed while replacing either. A template without group
+ * references is appended as a single String.
+ */
+final class Replacer {
+
+    private final SubstitutionTemplate template;
+    private final String literal;
+
+    Replacer(SubstitutionTemplate template){
+        this.template = template;
+        this.literal = template.isLiteral() ? template.getLiterals() : null;
+    }
+
+    /**
+     * Builds the substitution of the match the {@code matcher} is currently positioned at.
+     * @param matcher A matcher positioned at a match.
+     * @param input The input of the {@code matcher}.
+     * @return The substitution result for the current match.
+     */
+    String replaceMatch(EngineMatcher matcher, CharSequence input){
+        if (literal != null){
+            return literal;
+        }
+
+        StringBuilder builder = new StringBuilder(16 + matcher.end() - matcher.start());
+        template.appendTo(matcher, input, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Replaces every match found by the {@code matcher} in a single pass over the {@code input}.
+     * @param matcher A matcher reset to the beginning of the {@code input}.
+     * @param input The input of the {@code matcher}.
+     * @return The rewritten input.
+     */
+    String replaceAll(EngineMatcher matcher, CharSequence input){
+        if (!matcher.find()){
+            return input.toString();
+        }
+
+        StringBuilder builder = new StringBuilder(input.length() + 16);
+        int last = 0;
+
+        do {
+            builder.append(input, last, matcher.start());
+
+            if (literal != null){
+                builder.append(literal);
+            } else {
+                template.appendTo(matcher, input, builder);
+            }
+
+            last = matcher.end();
+        } while (matcher.find());
+
+        return builder.append(input, last, input.length()).toString();
+    }
+
+    /**
+     * Replaces every match found by the {@code matcher}, writing the rewritten input to {@code out} as it goes.
+     * @param matcher A matcher reset to the beginning of the {@code input}.
+     * @param input The input of the {@code matcher}.
+     * @param out The destination of the rewritten input.
+     * @throws IOException If {@code out} fails.
+     */
+    void replaceAll(EngineMatcher matcher, CharSequence input, Appendable out) throws IOException {
+        int last = 0;
+
+        while (matcher.find()){
+            out.append(input, last, matcher.start());
+
+            if (literal != null){
+                out.append(literal);
+            } else {
+                template.appendTo(matcher, input, out);
+            }
+
+            last = matcher.end();
+        }
+
+        out.append(input, last, input.length());
+    }
+
+    /**
+     * Replaces every match of {@code pattern} in the {@code input}, reading it through a window of at most
+     * {@code windowSize} chars and writing the rewritten text to {@code out} as it goes.
+     * @see WindowScanner
+     */
+    void replaceAll(Pattern pattern, Reader input, Appendable out, int windowSize) throws IOException {
+        WindowScanner scanner = new WindowScanner(pattern, input, windowSize, out);
+
+        while (scanner.find()){
+            template.appendTo(scanner.matcher(), scanner.text(), out);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.xmlet.regex;
+
+import java.time.Duration;
+
+/**
+ * Bounds the work of a single search, by a number of steps, a timeout, or both, e.g.
+ * {@code SearchLimit.steps(1_000_000).withTimeout(Duration.ofMillis(50))}. A step is a read of a char of the input by
+ * the engine, so a backtracking engine that retries the same chars uses more steps than the length of the input.
+ * <p>The limit is enforced cooperatively by the input given to the engine, which checks the steps on every read and
+ * the clock every {@value LimitedCharSequence#CHECK_INTERVAL} reads, and throws a {@link SearchLimitException} once
+ * either is exceeded. The timeout starts when the search starts, so a {@link SearchLimit} may be reused by any number
+ * of searches and threads.
+ * <p>Engines that copy the input, such as jregex, can't be limited this way: their searches reject a maximum number of
+ * steps, and only check the timeout after each match.
+ */
+public final class SearchLimit {
+
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final long maxSteps;
+    private final long timeoutNanos;
+
+    private SearchLimit(long maxSteps, long timeoutNanos){
+        this.maxSteps = maxSteps;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * @param maxSteps The maximum number of chars a search may read.
+     * @return A limit of {@code maxSteps} steps without a timeout.
+     */
+    public static SearchLimit steps(long maxSteps){
+        return new SearchLimit(requirePositive(maxSteps), UNLIMITED);
+    }
+
+    /**
+     * @param timeout The maximum time a search may take.
+     * @return A limit of {@code timeout} without a maximum number of steps.
+     */
+    public static SearchLimit timeout(Duration timeout){
+        return new SearchLimit(UNLIMITED, requirePositive(timeout.toNanos()));
+    }
+
+    /**
+     * @param maxSteps The maximum number of chars a search may read.
+     * @return A limit with the timeout of this one and {@code maxSteps} steps.
+     */
+    public SearchLimit withSteps(long maxSteps){
+        return new SearchLimit(requirePositive(maxSteps), timeoutNanos);
+    }
+
+    /**
+     * @param timeout The maximum time a search may take.
+     * @return A limit with the steps of this one and the received {@code timeout}.
+     */
+    public SearchLimit withTimeout(Duration timeout){
+        return new SearchLimit(maxSteps, requirePositive(timeout.toNanos()));
+    }
+
+    /**
+     * @return The maximum number of chars a search may read, or {@link Long#MAX_VALUE} if it has no maximum.
+     */
+    public long getMaxSteps(){
+        return maxSteps;
+    }
+
+    /**
+     * @return The maximum time a search may take, or null if it has no timeout.
+     */
+    public Duration getTimeout(){
+        return timeoutNanos == UNLIMITED ? null : Duration.ofNanos(timeoutNanos);
+    }
+
+    /**
+     * Starts a search of the {@code input} within this limit.
+     * @param input The input searched.
+     * @return The view of the {@code input} to give to the engine.
+     */
+    LimitedCharSequence start(CharSequence input){
+        long deadline = timeoutNanos == UNLIMITED ? 0 : System.nanoTime() + timeoutNanos;
+        return new LimitedCharSequence(input, maxSteps, timeoutNanos != UNLIMITED, deadline);
+    }
+
+    private static long requirePositive(long value){
+        if (value <= 0){
+            throw new IllegalArgumentException("The limit must be positive: " + value);
+        }
+
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimit{steps=" + (maxSteps == UNLIMITED ? "unlimited" : maxSteps) + ", timeout="
+                + (timeoutNanos == UNLIMITED ? "unlimited" : Duration.ofNanos(timeoutNanos)) + "}";
+    }
+}
@@ -0,0 +1,56 @@
+package org.xmlet.regex;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown by a search that exceeded its {@link SearchLimit}, with the progress it made before it was stopped: the
+ * results of the matches found so far, the position of the input it was reading and the steps it took.
+ */
+public class SearchLimitException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long steps;
+    private final int position;
+    private final transient List<String> partialResults;
+
+    SearchLimitException(String message, long steps, int position){
+        super(message + " at position " + position + " after " + steps + " steps");
+        this.steps = steps;
+        this.position = position;
+        this.partialResults = Collections.emptyList();
+    }
+
+    /**
+     * Adds the results collected by the search to the exception thrown by its input.
+     */
+    SearchLimitException(SearchLimitException cause, List<String> partialResults){
+        super(cause.getMessage() + ", with " + partialResults.size() + " results", cause);
+        this.steps = cause.steps;
+        this.position = cause.position;
+        this.partialResults = Collections.unmodifiableList(partialResults);
+    }
+
+    /**
+     * @return The number of chars read by the search.
+     */
+    public long getSteps(){
+        return steps;
+    }
+
+    /**
+     * @return The position of the input the search was at when it was stopped.
+     */
+    public int getPosition(){
+        return position;
+    }
+
+    /**
+     * @return The results of the matches found before the search was stopped, as the method that threw it would have
+     * returned them.
+     */
+    public List<String> getPartialResults(){
+        return partialResults;
+    }
+}
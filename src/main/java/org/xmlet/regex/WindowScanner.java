@@ -0,0 +1,235 @@
+package org.xmlet.regex;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Searches a {@link Reader} through a fixed size window of chars, so memory use depends on the window size and not on
+ * the length of the input.
+ * <p>A match is only reported once the matcher confirms that more input can't change it, i.e. it didn't hit the end of
+ * the window. Until then the unconsumed part of the window is kept and more input is read. When no match is found the
+ * window keeps its last half, so any match of up to {@code windowSize / 2} chars that crosses the window boundary is
+ * still found. Longer matches may be missed, and a match that fills the whole window is reported as it is. A few chars
+ * before the search position are kept as well, so lookbehinds and boundaries see the preceding text.
+ * <p>The text that isn't part of any match is handed to an optional {@link Appendable}, in order, as it's discarded.
+ * <p>Each search sets a new region, which moves the position {@code \G} matches at to the start of the region. So the
+ * region only starts at the end of the previous match, and when it starts after it, e.g. after an empty match, the
+ * search uses a copy of the pattern where {@code \G} never matches, as it couldn't match after the previous end.
+ */
+final class WindowScanner {
+
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024;
+    private static final int MINIMUM_WINDOW_SIZE = 16;
+
+    private final Reader reader;
+    private final Appendable unmatched;
+    private final Matcher matcher;
+    private final Pattern pattern;
+    private final Pattern withoutPreviousMatchEnd;
+    private final char[] buffer;
+    private final int overlap;
+    private final int context;
+    private CharBuffer text;
+    private long offset;
+    private int length;
+    private int position;
+    private int from;
+    private int previousEnd;
+    private boolean endOfInput;
+
+    /**
+     * @param pattern The pattern to search.
+     * @param reader The input.
+     * @param windowSize The maximum number of chars held at once.
+     * @param unmatched Receives the text between matches, may be null.
+     */
+    WindowScanner(Pattern pattern, Reader reader, int windowSize, Appendable unmatched){
+        if (windowSize < MINIMUM_WINDOW_SIZE){
+            throw new IllegalArgumentException("The window size must be at least " + MINIMUM_WINDOW_SIZE + ": " + windowSize);
+        }
+
+        this.reader = reader;
+        this.unmatched = unmatched;
+        this.buffer = new char[windowSize];
+        this.overlap = windowSize / 2;
+        this.context = windowSize / 8;
+        this.text = CharBuffer.wrap(buffer, 0, 0);
+        this.matcher = pattern.matcher(text).useTransparentBounds(true).useAnchoringBounds(false);
+        this.pattern = pattern;
+        this.withoutPreviousMatchEnd = withoutPreviousMatchEnd(pattern);
+    }
+
+    /**
+     * @return A copy of the {@code pattern} where {@code \G} never matches, or null if it has no {@code \G}.
+     */
+    static Pattern withoutPreviousMatchEnd(Pattern pattern){
+        if ((pattern.flags() & Pattern.LITERAL) != 0){
+            return null;
+        }
+
+        String regex = pattern.pattern();
+        StringBuilder result = new StringBuilder(regex.length() + 8);
+        boolean found = false;
+        boolean quoted = false;
+        int classDepth = 0;
+
+        for (int i = 0; i < regex.length(); i++){
+            char c = regex.charAt(i);
+
+            if (c != '\\' || i + 1 == regex.length()){
+                if (!quoted && c == '['){
+                    classDepth++;
+                } else if (!quoted && c == ']' && classDepth > 0){
+                    classDepth--;
+                }
+
+                result.append(c);
+                continue;
+            }
+
+            char next = regex.charAt(++i);
+
+            if (quoted){
+                quoted = next != 'E';
+            } else if (next == 'Q'){
+                quoted = true;
+            } else if (next == 'G' && classDepth == 0){
+                result.append("(?!)");
+                found = true;
+                continue;
+            }
+
+            result.append(c).append(next);
+        }
+
+        return found ? Pattern.compile(result.toString(), pattern.flags()) : null;
+    }
+
+    /**
+     * Finds the next match. On success the {@link #matcher()} is positioned at the match, in window coordinates.
+     * @return True if a match was found, false if the input ended.
+     */
+    boolean find() throws IOException {
+        while (true){
+            if (from <= length){
+                Pattern current = from == previousEnd ? pattern : withoutPreviousMatchEnd;
+
+                if (withoutPreviousMatchEnd != null && matcher.pattern() != current){
+                    matcher.usePattern(current);
+                }
+
+                matcher.region(from, length);
+
+                if (matcher.find()){
+                    int start = matcher.start();
+                    int end = matcher.end();
+
+                    if (!endOfInput && !isFinal(end)){
+                        emitUnmatched(Math.min(start, length - overlap));
+                    }
+
+                    if (endOfInput || isFinal(end) || isFull()){
+                        emitUnmatched(start);
+                        position = end;
+                        previousEnd = end;
+                        from = start == end ? end + 1 : end;
+                        return true;
+                    }
+                } else if (endOfInput){
+                    emitUnmatched(length);
+                    return false;
+                } else {
+                    emitUnmatched(length - overlap);
+                }
+            } else if (endOfInput){
+                return false;
+            }
+
+            fill();
+        }
+    }
+
+    /**
+     * @return The matcher, positioned at the last match found.
+     */
+    Matcher matcher(){
+        return matcher;
+    }
+
+    /**
+     * @return The chars currently held by the window. The bounds of the matcher are relative to this sequence.
+     */
+    CharSequence text(){
+        return text;
+    }
+
+    /**
+     * @return The absolute position, in the input, of the first char held by the window.
+     */
+    long offset(){
+        return offset;
+    }
+
+    /**
+     * A match is final if it didn't depend on the end of the window. {@code $} matches before a line terminator that
+     * ends the input without hitting the end, so a match must also end at least two chars, i.e. {@code \r\n}, before
+     * the end of the window.
+     */
+    private boolean isFinal(int end){
+        return !matcher.hitEnd() && !matcher.requireEnd() && end <= length - 2;
+    }
+
+    /**
+     * @return True if the window is full and none of its chars can be discarded.
+     */
+    private boolean isFull(){
+        return length == buffer.length && position - Math.min(position, context) == 0;
+    }
+
+    private void emitUnmatched(int end) throws IOException {
+        if (end > position){
+            if (unmatched != null){
+                unmatched.append(text, position, end);
+            }
+
+            position = end;
+            from = Math.max(from, end);
+        }
+    }
+
+    /**
+     * Discards the consumed chars, keeping a few of them as context, and reads more input.
+     */
+    private void fill() throws IOException {
+        int shift = position - Math.min(position, context);
+
+        if (shift > 0){
+            System.arraycopy(buffer, shift, buffer, 0, length - shift);
+            length -= shift;
+            position -= shift;
+            from -= shift;
+            previousEnd -= shift;
+            offset += shift;
+        }
+
+        if (length == buffer.length){
+            emitUnmatched(length - overlap);
+            fill();
+            return;
+        }
+
+        int read = reader.read(buffer, length, buffer.length - length);
+
+        if (read == -1){
+            endOfInput = true;
+        } else {
+            length += read;
+        }
+
+        text = CharBuffer.wrap(buffer, 0, length);
+        matcher.reset(text);
+    }
+}
@@ -0,0 +1,65 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.ir.CharSet;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Splits the chars in classes that no {@link CharSet} of a {@link Program} tells apart, so a DFA needs one transition
+ * per class instead of one per char.
+ */
+final class Alphabet {
+
+    private final byte[] ascii = new byte[128];
+    private final char[] starts;
+    private final boolean smallAscii;
+
+    Alphabet(CharSet[] sets){
+        TreeSet<Integer> bounds = new TreeSet<>();
+        bounds.add(0);
+
+        for (CharSet set : sets){
+            for (int range = 0; range < set.getRangeCount(); range++){
+                bounds.add((int) set.getRangeStart(range));
+
+                if (set.getRangeEnd(range) < Character.MAX_VALUE){
+                    bounds.add(set.getRangeEnd(range) + 1);
+                }
+            }
+        }
+
+        starts = new char[bounds.size()];
+        int index = 0;
+
+        for (int bound : bounds){
+            starts[index++] = (char) bound;
+        }
+
+        smallAscii = classOfSearch((char) 127) < Byte.MAX_VALUE;
+
+        for (char c = 0; c < 128 && smallAscii; c++){
+            ascii[c] = (byte) classOfSearch(c);
+        }
+    }
+
+    int size(){
+        return starts.length;
+    }
+
+    /**
+     * @return A char of the class, which every set contains or doesn't contain like any other char of the class.
+     */
+    char representative(int charClass){
+        return starts[charClass];
+    }
+
+    int classOf(char c){
+        return c < 128 && smallAscii ? ascii[c] : classOfSearch(c);
+    }
+
+    private int classOfSearch(char c){
+        int index = Arrays.binarySearch(starts, c);
+        return index >= 0 ? index : -index - 2;
+    }
+}
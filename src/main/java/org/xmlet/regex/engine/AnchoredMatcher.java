@@ -0,0 +1,117 @@
+package org.xmlet.regex.engine;
+
+import java.util.regex.MatchResult;
+
+/**
+ * Searches with the matcher of the underlying pattern of an {@link AnchoredPattern}, trying a single match at each
+ * position where a match may start, the beginning of the input and, for {@code ^} in multiline mode, the beginning of
+ * each line.
+ */
+final class AnchoredMatcher extends EngineMatcher {
+
+    private final EngineMatcher matcher;
+    private final boolean lines;
+    private CharSequence input;
+    private int next;
+
+    AnchoredMatcher(EngineMatcher matcher, boolean lines){
+        this.matcher = matcher;
+        this.lines = lines;
+    }
+
+    @Override
+    public EngineMatcher reset(CharSequence input) {
+        this.input = input;
+        this.next = 0;
+        matcher.reset(input);
+        return this;
+    }
+
+    @Override
+    public boolean find() {
+        for (int start = nextStart(next); start != -1; start = nextStart(start + 1)){
+            if (matcher.lookingAt(start)){
+                next = matcher.end() == start ? start + 1 : matcher.end();
+                return true;
+            }
+        }
+
+        next = input.length() + 1;
+        return false;
+    }
+
+    @Override
+    public boolean find(int from) {
+        if (from < 0 || from > input.length()){
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        next = from;
+        return find();
+    }
+
+    @Override
+    public boolean lookingAt(int from) {
+        if (from < 0 || from > input.length()){
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        next = input.length() + 1;
+
+        if (nextStart(from) != from || !matcher.lookingAt(from)){
+            return false;
+        }
+
+        next = matcher.end() == from ? from + 1 : matcher.end();
+        return true;
+    }
+
+    /**
+     * @return The first position, from {@code from} on, where a match may start, or -1 if there's none.
+     */
+    private int nextStart(int from){
+        if (from == 0){
+            return 0;
+        }
+
+        if (lines){
+            for (int i = from; i < input.length(); i++){
+                if (Look.at(input, i, Look.LINE_BEGIN) != 0){
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    protected CharSequence input() {
+        return input;
+    }
+
+    @Override
+    public int start(int group) {
+        return matcher.start(group);
+    }
+
+    @Override
+    public int end(int group) {
+        return matcher.end(group);
+    }
+
+    @Override
+    public String group(int group) {
+        return matcher.group(group);
+    }
+
+    @Override
+    public int groupCount() {
+        return matcher.groupCount();
+    }
+
+    @Override
+    public MatchResult toMatchResult() {
+        return matcher.toMatchResult();
+    }
+}
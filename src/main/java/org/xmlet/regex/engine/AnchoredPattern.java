@@ -0,0 +1,44 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.ir.Anchor;
+
+/**
+ * An {@link EnginePattern} whose matches all begin with {@code \A}, or with {@code ^}, so they can only start at the
+ * beginning of the input, or of a line. Instead of searching every position of the input, the underlying pattern
+ * tries a single match at each of those positions.
+ */
+final class AnchoredPattern implements EnginePattern {
+
+    private final EnginePattern pattern;
+    private final boolean lines;
+
+    /**
+     * @param pattern The underlying pattern.
+     * @param anchor The anchor every match begins with, {@link Anchor.Kind#INPUT_BEGIN} or
+     * {@link Anchor.Kind#LINE_BEGIN}.
+     */
+    AnchoredPattern(EnginePattern pattern, Anchor.Kind anchor){
+        this.pattern = pattern;
+        this.lines = anchor == Anchor.Kind.LINE_BEGIN;
+    }
+
+    @Override
+    public String pattern() {
+        return pattern.pattern();
+    }
+
+    @Override
+    public int groupCount() {
+        return pattern.groupCount();
+    }
+
+    @Override
+    public EngineMatcher matcher(CharSequence input) {
+        return new AnchoredMatcher(pattern.matcher(input), lines).reset(input);
+    }
+
+    @Override
+    public String toString() {
+        return pattern + (lines ? " at line starts" : " at the input start");
+    }
+}
@@ -0,0 +1,149 @@
+package org.xmlet.regex.engine;
+
+import java.util.regex.Matcher;
+
+/**
+ * Searches with a {@link DfaPattern}, handing the remaining searches of an input over to a {@link Matcher} when the
+ * DFA can't tell the result.
+ */
+final class DfaMatcher extends EngineMatcher {
+
+    private final DfaPattern pattern;
+    private final PikeVm.Cache cache;
+    private final int[] slots;
+    private CharSequence input;
+    private Matcher handover;
+    private int next;
+    private boolean matched;
+
+    DfaMatcher(DfaPattern pattern){
+        this.pattern = pattern;
+        this.cache = pattern.groupCount() == 0 ? null : pattern.groups().newCache();
+        this.slots = new int[(pattern.groupCount() + 1) * 2];
+    }
+
+    @Override
+    public EngineMatcher reset(CharSequence input) {
+        this.input = input;
+        this.handover = null;
+        this.next = 0;
+        this.matched = false;
+        return this;
+    }
+
+    @Override
+    public boolean find() {
+        if (handover != null){
+            return handover.find();
+        }
+
+        matched = false;
+
+        if (next > input.length()){
+            return false;
+        }
+
+        int from = next;
+        int start;
+        int matchEnd;
+
+        if (pattern.isEndAnchored()){
+            start = pattern.searchStartFromEnd(input, from);
+            matchEnd = start < 0 ? start : pattern.searchEnd(input, start, true);
+        } else {
+            matchEnd = pattern.searchEnd(input, from, false);
+            start = matchEnd < 0 ? matchEnd : pattern.searchStart(input, from, matchEnd);
+        }
+
+        if (start == DfaPattern.HANDOVER || matchEnd == DfaPattern.HANDOVER){
+            handover = pattern.fallback().matcher(input);
+            return handover.find(from);
+        }
+
+        if (matchEnd == DfaPattern.NO_MATCH){
+            next = input.length() + 1;
+            return false;
+        }
+
+        return matched(start, matchEnd);
+    }
+
+    @Override
+    public boolean lookingAt(int from) {
+        if (from < 0 || from > input.length()){
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        reset(input);
+        int matchEnd = pattern.searchEnd(input, from, true);
+
+        if (matchEnd == DfaPattern.HANDOVER){
+            handover = pattern.fallback().matcher(input);
+            return JdkMatcher.lookingAt(handover, input, from);
+        }
+
+        if (matchEnd == DfaPattern.NO_MATCH){
+            next = input.length() + 1;
+            return false;
+        }
+
+        return matched(from, matchEnd);
+    }
+
+    /**
+     * Records the match from {@code start} to {@code matchEnd}, finding the bounds of its groups.
+     */
+    private boolean matched(int start, int matchEnd){
+        if (cache == null){
+            slots[0] = start;
+            slots[1] = matchEnd;
+        } else {
+            pattern.groups().search(cache, input, start, matchEnd, true, slots);
+        }
+
+        matched = true;
+        next = start == matchEnd ? matchEnd + 1 : matchEnd;
+        return true;
+    }
+
+    @Override
+    public boolean find(int from) {
+        if (from < 0 || from > input.length()){
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        reset(input);
+        next = from;
+        return find();
+    }
+
+    @Override
+    protected CharSequence input() {
+        return input;
+    }
+
+    @Override
+    public int start(int group) {
+        if (handover != null){
+            return handover.start(group);
+        }
+
+        checkGroup(matched, group);
+        return slots[group * 2];
+    }
+
+    @Override
+    public int end(int group) {
+        if (handover != null){
+            return handover.end(group);
+        }
+
+        checkGroup(matched, group);
+        return slots[group * 2 + 1];
+    }
+
+    @Override
+    public int groupCount() {
+        return pattern.groupCount();
+    }
+}
@@ -0,0 +1,204 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.PatternCache;
+import org.xmlet.regex.ir.Anchor;
+import org.xmlet.regex.ir.RegexParser;
+import org.xmlet.regex.ir.RegexTree;
+
+import java.util.regex.Pattern;
+
+/**
+ * A regex compiled into a pair of {@link LazyDfa}s, so every search takes time linear in the length of the input it
+ * reads. The forward DFA finds where the leftmost match ends, following the preferences of {@link Pattern}, and the
+ * reverse DFA, run back from that end, finds where it starts. When the regex has capturing groups, a {@link PikeVm}
+ * then runs over the match alone to find their bounds, with the differences from {@link Pattern} that it describes.
+ * <p>When every match ends at the end of the input, with {@code \z}, {@code \Z} or {@code $} outside of multiline
+ * mode, the reverse DFA runs first, back from the end, so only the end of the input is read to find the leftmost
+ * match.
+ * <p>The DFAs read chars, not code points. Whenever a search reads a surrogate char, or needs a word boundary next to a
+ * non ASCII char, it's handed over to {@link Pattern} from that search on, so the matches are always the ones of
+ * {@link Pattern}.
+ */
+final class DfaPattern implements EnginePattern {
+
+    static final int NO_MATCH = -1;
+    static final int HANDOVER = -2;
+
+    private final String regex;
+    private final Alphabet alphabet;
+    private final LazyDfa forward;
+    private final LazyDfa reverse;
+    private final int groupCount;
+    private final PikeVm groups;
+    private final Pattern fallback;
+    private final boolean endAnchored;
+
+    private DfaPattern(String regex, RegexTree tree, Program forward, Program reverse, Program groups){
+        this.regex = regex;
+        this.groupCount = tree.getGroupCount();
+        this.endAnchored = tree.getEndAnchor() == Anchor.Kind.INPUT_END
+                || tree.getEndAnchor() == Anchor.Kind.INPUT_END_OR_FINAL_TERMINATOR;
+        this.groups = new PikeVm(groups);
+        this.fallback = PatternCache.getInstance().compile(regex, 0);
+        this.alphabet = new Alphabet(forward.sets);
+        this.forward = new LazyDfa(forward, alphabet, false);
+        this.reverse = new LazyDfa(reverse, alphabet, true);
+    }
+
+    /**
+     * @param regex A regex in the {@link Pattern} syntax.
+     * @return The compiled regex.
+     * @throws UnsupportedOperationException If the regex uses constructs that aren't regular.
+     */
+    static DfaPattern compile(String regex){
+        return compile(RegexParser.parse(regex));
+    }
+
+    /**
+     * @param tree A parsed regex.
+     * @return The compiled regex.
+     * @throws UnsupportedOperationException If the regex uses constructs that aren't regular.
+     */
+    static DfaPattern compile(RegexTree tree){
+        return new DfaPattern(tree.getSource(), tree, ProgramCompiler.compile(tree, false, true, false),
+                ProgramCompiler.compile(tree, true, false, false), ProgramCompiler.compile(tree, false, false, true));
+    }
+
+    @Override
+    public String pattern() {
+        return regex;
+    }
+
+    @Override
+    public int groupCount() {
+        return groupCount;
+    }
+
+    @Override
+    public EngineMatcher matcher(CharSequence input) {
+        return new DfaMatcher(this).reset(input);
+    }
+
+    PikeVm groups(){
+        return groups;
+    }
+
+    Pattern fallback(){
+        return fallback;
+    }
+
+    /**
+     * @return True if every match ends at the end of the input or before its final line terminator.
+     */
+    boolean isEndAnchored(){
+        return endAnchored;
+    }
+
+    /**
+     * @param anchored Only looks for a match that starts at {@code from}.
+     * @return The end of the leftmost match that starts at {@code from} or after it, {@link #NO_MATCH} or
+     * {@link #HANDOVER}.
+     */
+    int searchEnd(CharSequence input, int from, boolean anchored){
+        int n = input.length();
+        int mask = forward.getLookMask();
+        int end = NO_MATCH;
+        LazyDfa.State state = anchored ? forward.anchoredStart() : forward.start();
+
+        for (int i = from; ; i++){
+            int look = 0;
+
+            if (mask != 0 && (look = Look.at(input, i, mask)) == Look.HANDOVER){
+                return HANDOVER;
+            }
+
+            LazyDfa.Closure closure = forward.closure(state, look);
+
+            if (closure.matched){
+                end = i;
+            }
+
+            if (i == n){
+                return end;
+            }
+
+            char c = input.charAt(i);
+
+            if (Character.isSurrogate(c)){
+                return HANDOVER;
+            }
+
+            state = forward.next(closure, alphabet.classOf(c));
+
+            if (state.isDead()){
+                return end;
+            }
+        }
+    }
+
+    /**
+     * @return The start of the leftmost match that starts at {@code from} or after it, {@link #NO_MATCH} or
+     * {@link #HANDOVER}, for an {@link #isEndAnchored()} regex. Each position where a match may end is read back
+     * from, and the leftmost start found is the one of the leftmost match.
+     */
+    int searchStartFromEnd(CharSequence input, int from){
+        int n = input.length();
+        int start = NO_MATCH;
+
+        for (int end = Math.max(from, n - 2); end <= n; end++){
+            if (end == n || Look.at(input, end, Look.INPUT_END_OR_FINAL_TERMINATOR) != 0){
+                int candidate = searchStart(input, from, end);
+
+                if (candidate == HANDOVER){
+                    return HANDOVER;
+                }
+
+                if (candidate != NO_MATCH && (start == NO_MATCH || candidate < start)){
+                    start = candidate;
+                }
+            }
+        }
+
+        return start;
+    }
+
+    /**
+     * @return The start of the leftmost match that ends at {@code end}, not before {@code from}, {@link #NO_MATCH} or
+     * {@link #HANDOVER}.
+     */
+    int searchStart(CharSequence input, int from, int end){
+        int mask = reverse.getLookMask();
+        int start = NO_MATCH;
+        LazyDfa.State state = reverse.start();
+
+        for (int i = end; ; i--){
+            int look = 0;
+
+            if (mask != 0 && (look = Look.at(input, i, mask)) == Look.HANDOVER){
+                return HANDOVER;
+            }
+
+            LazyDfa.Closure closure = reverse.closure(state, look);
+
+            if (closure.matched){
+                start = i;
+            }
+
+            if (i == from){
+                return start;
+            }
+
+            char c = input.charAt(i - 1);
+
+            if (Character.isSurrogate(c)){
+                return HANDOVER;
+            }
+
+            state = reverse.next(closure, alphabet.classOf(c));
+
+            if (state.isDead()){
+                return start;
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package org.xmlet.regex.engine;
+
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+
+/**
+ * Searches an input for the matches of an {@link EnginePattern}, with the same contract as the corresponding methods
+ * of {@link Matcher}: {@link #find()} continues after the previous match, moving one position further after an empty
+ * one, and the {@link MatchResult} methods describe the current match. Matchers aren't thread safe.
+ */
+public abstract class EngineMatcher implements MatchResult {
+
+    /**
+     * Points the matcher at a new input and forgets the previous match.
+     * @param input The text to search.
+     * @return This matcher.
+     */
+    public abstract EngineMatcher reset(CharSequence input);
+
+    /**
+     * @return True if a match was found after the previous one.
+     */
+    public abstract boolean find();
+
+    /**
+     * Resets the matcher and searches for a match starting at {@code from} or after it.
+     * @param from The first position where a match may start.
+     * @return True if a match was found.
+     */
+    public abstract boolean find(int from);
+
+    /**
+     * Resets the matcher and searches for a match that starts at {@code from}, without trying the positions after it.
+     * After a match, {@link #find()} continues after it. The anchors and lookarounds still look at the whole input.
+     * @param from The position where the match must start.
+     * @return True if a match starts at {@code from}.
+     */
+    public boolean lookingAt(int from){
+        if (find(from) && start() == from){
+            return true;
+        }
+
+        reset(input());
+        return false;
+    }
+
+    /**
+     * @return The input being searched.
+     */
+    protected abstract CharSequence input();
+
+    /**
+     * @param matcher A matcher of {@link java.util.regex.Pattern}.
+     * @return A view of the {@code matcher} as an {@link EngineMatcher}.
+     */
+    public static EngineMatcher wrap(Matcher matcher){
+        return new JdkMatcher(matcher);
+    }
+
+    @Override
+    public int start() {
+        return start(0);
+    }
+
+    @Override
+    public int end() {
+        return end(0);
+    }
+
+    @Override
+    public String group() {
+        return group(0);
+    }
+
+    @Override
+    public String group(int group) {
+        int start = start(group);
+        return start == -1 ? null : input().subSequence(start, end(group)).toString();
+    }
+
+    /**
+     * Copies the current match, which isn't changed by further searches. Only the text spanned by the groups is copied,
+     * unless the input is a String, which is kept as is, so taking a snapshot of each match doesn't copy the input.
+     * @return A copy of the current match.
+     */
+    public MatchResult toMatchResult(){
+        int[] bounds = new int[(groupCount() + 1) * 2];
+        int first = Integer.MAX_VALUE;
+        int last = 0;
+
+        for (int group = 0; group <= groupCount(); group++){
+            bounds[group * 2] = start(group);
+            bounds[group * 2 + 1] = end(group);
+
+            if (bounds[group * 2] != -1){
+                first = Math.min(first, bounds[group * 2]);
+                last = Math.max(last, bounds[group * 2 + 1]);
+            }
+        }
+
+        CharSequence input = input();
+
+        if (input instanceof String){
+            return new Snapshot((String) input, 0, bounds);
+        }
+
+        return new Snapshot(input.subSequence(first, last).toString(), first, bounds);
+    }
+
+    /**
+     * Checks the arguments of the group methods, like {@link Matcher} does.
+     */
+    protected void checkGroup(boolean matched, int group){
+        if (!matched){
+            throw new IllegalStateException("No match available");
+        }
+
+        if (group < 0 || group > groupCount()){
+            throw new IndexOutOfBoundsException("No group " + group);
+        }
+    }
+
+    private static final class Snapshot implements MatchResult {
+
+        private final String text;
+        private final int offset;
+        private final int[] bounds;
+
+        /**
+         * @param text The text of the input from {@code offset}, which holds every group.
+         */
+        Snapshot(String text, int offset, int[] bounds){
+            this.text = text;
+            this.offset = offset;
+            this.bounds = bounds;
+        }
+
+        @Override
+        public int start() {
+            return start(0);
+        }
+
+        @Override
+        public int start(int group) {
+            check(group);
+            return bounds[group * 2];
+        }
+
+        @Override
+        public int end() {
+            return end(0);
+        }
+
+        @Override
+        public int end(int group) {
+            check(group);
+            return bounds[group * 2 + 1];
+        }
+
+        @Override
+        public String group() {
+            return group(0);
+        }
+
+        @Override
+        public String group(int group) {
+            int start = start(group);
+            return start == -1 ? null : text.substring(start - offset, end(group) - offset);
+        }
+
+        @Override
+        public int groupCount() {
+            return bounds.length / 2 - 1;
+        }
+
+        private void check(int group){
+            if (group < 0 || group > groupCount()){
+                throw new IndexOutOfBoundsException("No group " + group);
+            }
+        }
+    }
+}
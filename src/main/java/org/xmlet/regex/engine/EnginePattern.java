@@ -0,0 +1,24 @@
+package org.xmlet.regex.engine;
+
+/**
+ * A regex compiled by one of the {@link MatchEngine}s. Compiled patterns are immutable and may be shared by any number
+ * of threads, each one searching with its own {@link EngineMatcher}.
+ */
+public interface EnginePattern {
+
+    /**
+     * @return The regex this pattern was compiled from.
+     */
+    String pattern();
+
+    /**
+     * @return The number of capturing groups of the regex.
+     */
+    int groupCount();
+
+    /**
+     * @param input The text to search.
+     * @return A new matcher over the {@code input}.
+     */
+    EngineMatcher matcher(CharSequence input);
+}
@@ -0,0 +1,51 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.ir.Construct;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The engine chosen for a regex, with the regex compiled by it and the reason it was chosen, for diagnostics.
+ */
+public final class EngineSelection {
+
+    private final RegexEngine engine;
+    private final EnginePattern pattern;
+    private final Set<Construct> constructs;
+    private final String reason;
+
+    /**
+     * @param engine The chosen engine.
+     * @param pattern The regex compiled by the {@code engine}.
+     * @param constructs The constructs used by the regex, empty if they aren't known.
+     * @param reason Why the {@code engine} was chosen.
+     */
+    public EngineSelection(RegexEngine engine, EnginePattern pattern, Set<Construct> constructs, String reason){
+        this.engine = engine;
+        this.pattern = pattern;
+        this.constructs = Collections.unmodifiableSet(constructs);
+        this.reason = reason;
+    }
+
+    public RegexEngine getEngine(){
+        return engine;
+    }
+
+    public EnginePattern getPattern(){
+        return pattern;
+    }
+
+    public Set<Construct> getConstructs(){
+        return constructs;
+    }
+
+    public String getReason(){
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return engine.getName() + " " + constructs + ": " + reason;
+    }
+}
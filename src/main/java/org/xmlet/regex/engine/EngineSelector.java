@@ -0,0 +1,194 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.PatternCache;
+import org.xmlet.regex.ir.Anchor;
+import org.xmlet.regex.ir.Construct;
+import org.xmlet.regex.ir.RegexParser;
+import org.xmlet.regex.ir.RegexTree;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Chooses the engine that searches for the matches of a regex, from the constructs the regex uses. The candidates are
+ * tried from the fastest to the most capable one, {@link MatchEngine#LITERAL}, {@link MatchEngine#DFA},
+ * {@link MatchEngine#NFA}, {@link MatchEngine#JDK} and {@link MatchEngine#JREGEX}, and the first one that supports the
+ * regex and compiles it is chosen. A regex with syntax that only jregex understands is searched by jregex.
+ * <p>When every match of the regex has some literal text, the chosen pattern is wrapped by a {@link Prefilter}, which
+ * looks for that text before running the engine. When every match begins with {@code \A} or {@code ^}, only the
+ * positions where a match may start are tried.
+ */
+public final class EngineSelector {
+
+    private static final List<RegexEngine> CANDIDATES = Collections.unmodifiableList(
+            Arrays.asList(MatchEngine.LITERAL, MatchEngine.DFA, MatchEngine.NFA, MatchEngine.JDK, MatchEngine.JREGEX));
+
+    private EngineSelector(){}
+
+    /**
+     * @param regex A regex in the {@link java.util.regex.Pattern} syntax.
+     * @return The fastest engine that supports the regex.
+     */
+    public static EngineSelection select(String regex){
+        return select(regex, CANDIDATES);
+    }
+
+    /**
+     * @param regex A regex in the {@link java.util.regex.Pattern} syntax.
+     * @param candidates The engines to choose from, the preferred ones first.
+     * @return The first of the {@code candidates} that supports the regex, {@link MatchEngine#JREGEX} if it's one of
+     * them and the regex uses syntax that only jregex understands.
+     * @throws PatternSyntaxException If the regex isn't valid.
+     * @throws UnsupportedOperationException If none of the {@code candidates} supports the regex.
+     */
+    public static EngineSelection select(String regex, List<? extends RegexEngine> candidates){
+        RegexTree tree;
+
+        try {
+            tree = parse(regex);
+        } catch (PatternSyntaxException e){
+            if (!candidates.contains(MatchEngine.JREGEX)){
+                throw e;
+            }
+
+            return new EngineSelection(MatchEngine.JREGEX, compileJregex(regex, e), Collections.emptySet(),
+                    "The regex uses syntax that only jregex understands.");
+        }
+
+        if (tree == null){
+            return new EngineSelection(MatchEngine.JDK, PatternCache.getInstance().compile(regex, MatchEngine.JDK),
+                    Collections.emptySet(), "The regex uses syntax that only java.util.regex understands.");
+        }
+
+        return select(tree, candidates);
+    }
+
+    /**
+     * @param tree A parsed regex, which isn't parsed again by the engines of this library.
+     * @return The fastest engine that supports the regex.
+     */
+    public static EngineSelection select(RegexTree tree){
+        return select(tree, CANDIDATES);
+    }
+
+    /**
+     * @param tree A parsed regex, which isn't parsed again by the engines of this library.
+     * @param candidates The engines to choose from, the preferred ones first.
+     * @return The first of the {@code candidates} that supports the regex.
+     * @throws UnsupportedOperationException If none of the {@code candidates} supports the regex.
+     */
+    public static EngineSelection select(RegexTree tree, List<? extends RegexEngine> candidates){
+        Set<Construct> constructs = tree.getConstructs();
+        StringBuilder rejected = new StringBuilder();
+
+        for (RegexEngine engine : candidates){
+            if (!engine.supports(constructs)){
+                rejected.append(engine.getName()).append(" doesn't support the constructs. ");
+                continue;
+            }
+
+            try {
+                EnginePattern pattern = PatternCache.getInstance().compile(tree, engine);
+
+                if (pattern instanceof JdkPattern && engine != MatchEngine.JDK){
+                    rejected.append(engine.getName()).append(" falls back to JDK. ");
+                    continue;
+                }
+
+                return selection(engine, pattern, tree, rejected + "Fastest engine that supports the regex.");
+            } catch (UnsupportedOperationException e){
+                rejected.append(engine.getName()).append(": ").append(e.getMessage()).append(". ");
+            } catch (PatternSyntaxException e){
+                rejected.append(engine.getName()).append(" doesn't understand the syntax: ")
+                        .append(e.getDescription()).append(". ");
+            }
+        }
+
+        throw new UnsupportedOperationException("No engine supports the regex " + tree.getSource() + ". " + rejected);
+    }
+
+    /**
+     * @param regex A regex in the {@link java.util.regex.Pattern} syntax.
+     * @param engine The engine chosen by the caller.
+     * @return The {@code engine}, with the regex compiled by it.
+     * @throws UnsupportedOperationException If the {@code engine} doesn't support the regex.
+     * @throws PatternSyntaxException If the {@code engine} doesn't understand the syntax of the regex.
+     */
+    public static EngineSelection choose(String regex, RegexEngine engine){
+        RegexTree tree;
+
+        try {
+            tree = parse(regex);
+        } catch (PatternSyntaxException e){
+            tree = null;
+        }
+
+        if (tree == null){
+            return new EngineSelection(engine, PatternCache.getInstance().compile(regex, engine),
+                    Collections.emptySet(), "Chosen by the caller.");
+        }
+
+        return choose(tree, engine);
+    }
+
+    /**
+     * @param tree A parsed regex, which isn't parsed again by the engines of this library.
+     * @param engine The engine chosen by the caller.
+     * @return The {@code engine}, with the regex compiled by it.
+     * @throws UnsupportedOperationException If the {@code engine} doesn't support the regex.
+     */
+    public static EngineSelection choose(RegexTree tree, RegexEngine engine){
+        return selection(engine, PatternCache.getInstance().compile(tree, engine), tree, "Chosen by the caller.");
+    }
+
+    /**
+     * Wraps the {@code pattern} with the {@link Prefilter} of the regex, if it has literal text to look for, isn't a
+     * literal itself and may match after the beginning of the input, and with an {@link AnchoredPattern}, if every
+     * match begins with {@code \A} or {@code ^} and the {@code engine} can try a single match at a position.
+     */
+    private static EngineSelection selection(RegexEngine engine, EnginePattern pattern, RegexTree tree, String reason){
+        boolean prefiltered = !(pattern instanceof LiteralPattern) && tree.getStartAnchor() != Anchor.Kind.INPUT_BEGIN;
+        Prefilter prefilter = prefiltered ? Prefilter.of(tree) : null;
+        StringBuilder description = new StringBuilder(reason);
+
+        if (prefilter != null){
+            pattern = new PrefilteredPattern(pattern, prefilter);
+            description.append(" Prefiltered by ").append(prefilter).append('.');
+        }
+
+        if (tree.getStartAnchor() != null
+                && (engine == MatchEngine.JDK || engine == MatchEngine.DFA || engine == MatchEngine.NFA)){
+            pattern = new AnchoredPattern(pattern, tree.getStartAnchor());
+            description.append(" Anchored at ").append(tree.getStartAnchor()).append('.');
+        }
+
+        return new EngineSelection(engine, pattern, tree.getConstructs(), description.toString());
+    }
+
+    /**
+     * Compiles with jregex a {@code regex} that the {@link RegexParser} rejected, which is only valid if jregex
+     * understands its syntax.
+     * @throws PatternSyntaxException The {@code error} of the parser, if jregex rejects the regex as well.
+     */
+    private static EnginePattern compileJregex(String regex, PatternSyntaxException error){
+        try {
+            return PatternCache.getInstance().compile(regex, MatchEngine.JREGEX);
+        } catch (IllegalArgumentException e){
+            throw error;
+        }
+    }
+
+    /**
+     * @return The parsed {@code regex}, or null if it uses syntax that the {@link RegexParser} doesn't support.
+     */
+    private static RegexTree parse(String regex){
+        try {
+            return RegexParser.parse(regex);
+        } catch (UnsupportedOperationException e){
+            return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.xmlet.regex.engine;
+
+import java.util.Arrays;
+
+/**
+ * Searches a literal with Boyer-Moore-Horspool: the input is read at the last char of each window, and the window
+ * shifts by the distance from that char to its last occurrence in the literal. The shifts are kept for the low byte of
+ * each char, so any char maps to a shift no longer than the real one. Strings are searched with
+ * {@link String#indexOf(String, int)} instead, which the JVM already optimizes.
+ */
+final class Horspool {
+
+    private final String literal;
+    private final int[] shifts = new int[256];
+
+    Horspool(String literal){
+        this.literal = literal;
+        int last = literal.length() - 1;
+
+        Arrays.fill(shifts, literal.length());
+
+        for (int i = 0; i < last; i++){
+            shifts[literal.charAt(i) & 0xFF] = last - i;
+        }
+    }
+
+    /**
+     * @return The first occurrence of the literal in {@code input}, from {@code from} on, or -1 if there's none.
+     */
+    int indexOf(CharSequence input, int from){
+        if (input instanceof String){
+            return ((String) input).indexOf(literal, from);
+        }
+
+        int last = literal.length() - 1;
+        char lastChar = literal.charAt(last);
+
+        for (int i = Math.max(from, 0); i + last < input.length(); ){
+            char c = input.charAt(i + last);
+
+            if (c == lastChar && matchesAt(input, i)){
+                return i;
+            }
+
+            i += shifts[c & 0xFF];
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return True if the literal occurs in {@code input} at {@code i}.
+     */
+    boolean startsAt(CharSequence input, int i){
+        int last = literal.length() - 1;
+        return i + last < input.length() && input.charAt(i + last) == literal.charAt(last) && matchesAt(input, i);
+    }
+
+    private boolean matchesAt(CharSequence input, int i){
+        for (int j = literal.length() - 2; j >= 0; j--){
+            if (input.charAt(i + j) != literal.charAt(j)){
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+package org.xmlet.regex.engine;
+
+import java.util.regex.Matcher;
+
+/**
+ * An {@link EngineMatcher} backed by a {@link Matcher}.
+ */
+final class JdkMatcher extends EngineMatcher {
+
+    private final Matcher matcher;
+    private CharSequence input;
+
+    JdkMatcher(Matcher matcher){
+        this.matcher = matcher;
+    }
+
+    @Override
+    public EngineMatcher reset(CharSequence input) {
+        this.input = input;
+        matcher.reset(input);
+        return this;
+    }
+
+    @Override
+    public boolean find() {
+        return matcher.find();
+    }
+
+    @Override
+    public boolean find(int from) {
+        return matcher.find(from);
+    }
+
+    @Override
+    public boolean lookingAt(int from) {
+        return lookingAt(matcher, input, from);
+    }
+
+    /**
+     * Tries a single match of {@code matcher} at {@code from}, through a region with transparent and non anchoring
+     * bounds, so the anchors and lookarounds see the whole {@code input}.
+     */
+    static boolean lookingAt(Matcher matcher, CharSequence input, int from){
+        return matcher.useTransparentBounds(true).useAnchoringBounds(false).region(from, input.length()).lookingAt();
+    }
+
+    @Override
+    protected CharSequence input() {
+        return input;
+    }
+
+    @Override
+    public int start(int group) {
+        return matcher.start(group);
+    }
+
+    @Override
+    public int end(int group) {
+        return matcher.end(group);
+    }
+
+    @Override
+    public String group(int group) {
+        return matcher.group(group);
+    }
+
+    @Override
+    public int groupCount() {
+        return matcher.groupCount();
+    }
+}
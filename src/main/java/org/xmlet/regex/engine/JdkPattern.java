@@ -0,0 +1,30 @@
+package org.xmlet.regex.engine;
+
+import java.util.regex.Pattern;
+
+/**
+ * An {@link EnginePattern} backed by a {@link Pattern}.
+ */
+final class JdkPattern implements EnginePattern {
+
+    private final Pattern pattern;
+
+    JdkPattern(Pattern pattern){
+        this.pattern = pattern;
+    }
+
+    @Override
+    public String pattern() {
+        return pattern.pattern();
+    }
+
+    @Override
+    public int groupCount() {
+        return pattern.matcher("").groupCount();
+    }
+
+    @Override
+    public EngineMatcher matcher(CharSequence input) {
+        return new JdkMatcher(pattern.matcher(input)).reset(input);
+    }
+}
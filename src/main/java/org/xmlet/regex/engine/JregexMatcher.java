@@ -0,0 +1,63 @@
+package org.xmlet.regex.engine;
+
+/**
+ * An {@link EngineMatcher} backed by a {@link jregex.Matcher}, which counts the whole match as a group and only
+ * searches Strings.
+ */
+final class JregexMatcher extends EngineMatcher {
+
+    private final jregex.Matcher matcher;
+    private CharSequence input;
+    private boolean matched;
+
+    JregexMatcher(jregex.Matcher matcher){
+        this.matcher = matcher;
+    }
+
+    @Override
+    public EngineMatcher reset(CharSequence input) {
+        this.input = input;
+        this.matched = false;
+        matcher.setTarget(input.toString());
+        return this;
+    }
+
+    @Override
+    public boolean find() {
+        matched = matcher.find();
+        return matched;
+    }
+
+    @Override
+    public boolean find(int from) {
+        if (from < 0 || from > input.length()){
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        reset(input);
+        matcher.setPosition(from);
+        return find();
+    }
+
+    @Override
+    protected CharSequence input() {
+        return input;
+    }
+
+    @Override
+    public int start(int group) {
+        checkGroup(matched, group);
+        return matcher.isCaptured(group) ? matcher.start(group) : -1;
+    }
+
+    @Override
+    public int end(int group) {
+        checkGroup(matched, group);
+        return matcher.isCaptured(group) ? matcher.end(group) : -1;
+    }
+
+    @Override
+    public int groupCount() {
+        return matcher.groupCount() - 1;
+    }
+}
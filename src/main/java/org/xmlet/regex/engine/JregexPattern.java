@@ -0,0 +1,28 @@
+package org.xmlet.regex.engine;
+
+/**
+ * An {@link EnginePattern} backed by a {@link jregex.Pattern}.
+ */
+final class JregexPattern implements EnginePattern {
+
+    private final jregex.Pattern pattern;
+
+    JregexPattern(jregex.Pattern pattern){
+        this.pattern = pattern;
+    }
+
+    @Override
+    public String pattern() {
+        return pattern.toString();
+    }
+
+    @Override
+    public int groupCount() {
+        return pattern.matcher().groupCount() - 1;
+    }
+
+    @Override
+    public EngineMatcher matcher(CharSequence input) {
+        return new JregexMatcher(pattern.matcher()).reset(input);
+    }
+}
@@ -0,0 +1,255 @@
+package org.xmlet.regex.engine;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A DFA built lazily from a {@link Program}, one state and one transition at a time, as the input requires them.
+ * <p>Each state is an ordered list of NFA threads, highest priority first, so the DFA follows the preferences of a
+ * backtracking engine: once a thread reaches a match, the threads with lower priority are dropped. In longest mode no
+ * thread is ever dropped, which finds the longest match instead, and the closures report every {@link Program#MATCH}
+ * reached, which tells the regexes of a set that match.
+ * <p>The anchors are evaluated when leaving a position, so the transitions of a state depend on the {@link Look} bits
+ * of the position as well as on the char read. The states are cached and shared by every thread searching with the
+ * DFA. Their transitions are filled without locking, which at worst computes the same transition twice. When the
+ * cache grows too large it's dropped and the states are built again.
+ */
+final class LazyDfa {
+
+    private static final int MAXIMUM_TRANSITIONS = 1 << 20;
+    private static final int MINIMUM_STATES = 64;
+
+    private final Program program;
+    private final Alphabet alphabet;
+    private final boolean longest;
+    private final int[] lookIndexes = new int[1 << Look.COUNT];
+    private final int lookCount;
+    private final int maximumStates;
+    private volatile Map<Key, State> states = new ConcurrentHashMap<>();
+    private volatile State start;
+    private volatile State anchoredStart;
+
+    LazyDfa(Program program, Alphabet alphabet, boolean longest){
+        this.program = program;
+        this.alphabet = alphabet;
+        this.longest = longest;
+
+        for (int look = 0; look < lookIndexes.length; look++){
+            int index = 0;
+
+            for (int bit = 0, used = 0; bit < Look.COUNT; bit++){
+                if ((program.lookMask & 1 << bit) != 0){
+                    index |= (look >> bit & 1) << used++;
+                }
+            }
+
+            lookIndexes[look] = index;
+        }
+
+        this.lookCount = 1 << Integer.bitCount(program.lookMask);
+        this.maximumStates = Math.max(MINIMUM_STATES, MAXIMUM_TRANSITIONS / (lookCount * alphabet.size()));
+    }
+
+    int getLookMask(){
+        return program.lookMask;
+    }
+
+    State start(){
+        State result = start;
+
+        if (result == null){
+            result = intern(new int[]{program.start});
+            start = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The start state of the matches that begin where the search does, without the unanchored prefix.
+     */
+    State anchoredStart(){
+        State result = anchoredStart;
+
+        if (result == null){
+            result = intern(new int[]{program.anchoredStart});
+            anchoredStart = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The threads of {@code state} once the anchors and the other instructions that don't read a char are
+     * followed, at a position with the {@code look} bits.
+     */
+    Closure closure(State state, int look){
+        int index = lookIndexes[look];
+        Closure result = state.closures[index];
+
+        if (result == null){
+            result = computeClosure(state, look);
+            state.closures[index] = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The state reached by reading a char of the {@code charClass}.
+     */
+    State next(Closure closure, int charClass){
+        State result = closure.next[charClass];
+
+        if (result == null){
+            char c = alphabet.representative(charClass);
+            int[] pcs = new int[closure.consuming.length];
+            int count = 0;
+
+            for (int pc : closure.consuming){
+                if (program.sets[program.arguments[pc]].contains(c)){
+                    pcs[count++] = pc + 1;
+                }
+            }
+
+            result = intern(Arrays.copyOf(pcs, count));
+            closure.next[charClass] = result;
+        }
+
+        return result;
+    }
+
+    private Closure computeClosure(State state, int look){
+        boolean[] visited = new boolean[program.size()];
+        int[] stack = new int[program.size() * 2 + 1];
+        int[] consuming = new int[program.size()];
+        int[] matches = new int[program.size()];
+        int count = 0;
+        int matchCount = 0;
+
+        threads:
+        for (int pc : state.pcs){
+            int top = 0;
+            stack[top++] = pc;
+
+            while (top > 0){
+                int current = stack[--top];
+
+                if (visited[current]){
+                    continue;
+                }
+
+                visited[current] = true;
+
+                switch (program.opcodes[current]){
+                    case Program.CHAR:
+                        consuming[count++] = current;
+                        break;
+                    case Program.SPLIT:
+                        stack[top++] = program.seconds[current];
+                        stack[top++] = program.arguments[current];
+                        break;
+                    case Program.JUMP:
+                        stack[top++] = program.arguments[current];
+                        break;
+                    case Program.ASSERT:
+                        if ((look & program.arguments[current]) != 0){
+                            stack[top++] = current + 1;
+                        }
+                        break;
+                    case Program.SAVE:
+                        stack[top++] = current + 1;
+                        break;
+                    default:
+                        matches[matchCount++] = program.arguments[current];
+
+                        if (!longest){
+                            break threads;
+                        }
+                }
+            }
+        }
+
+        return new Closure(Arrays.copyOf(matches, matchCount), Arrays.copyOf(consuming, count), new State[alphabet.size()]);
+    }
+
+    private State intern(int[] pcs){
+        Map<Key, State> current = states;
+
+        if (current.size() >= maximumStates){
+            current = new ConcurrentHashMap<>();
+            states = current;
+            start = null;
+            anchoredStart = null;
+        }
+
+        Key key = new Key(pcs);
+        State state = current.get(key);
+
+        if (state == null){
+            state = new State(pcs, new Closure[lookCount]);
+            State previous = current.putIfAbsent(key, state);
+
+            if (previous != null){
+                state = previous;
+            }
+        }
+
+        return state;
+    }
+
+    static final class State {
+
+        final int[] pcs;
+        final Closure[] closures;
+
+        State(int[] pcs, Closure[] closures){
+            this.pcs = pcs;
+            this.closures = closures;
+        }
+
+        boolean isDead(){
+            return pcs.length == 0;
+        }
+    }
+
+    static final class Closure {
+
+        final boolean matched;
+        final int[] matches;
+        final int[] consuming;
+        final State[] next;
+
+        /**
+         * @param matches The arguments of the {@link Program#MATCH} instructions reached.
+         */
+        Closure(int[] matches, int[] consuming, State[] next){
+            this.matched = matches.length > 0;
+            this.matches = matches;
+            this.consuming = consuming;
+            this.next = next;
+        }
+    }
+
+    private static final class Key {
+
+        private final int[] pcs;
+        private final int hash;
+
+        Key(int[] pcs){
+            this.pcs = pcs;
+            this.hash = Arrays.hashCode(pcs);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(pcs, ((Key) other).pcs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
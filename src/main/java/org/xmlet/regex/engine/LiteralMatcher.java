@@ -0,0 +1,79 @@
+package org.xmlet.regex.engine;
+
+/**
+ * Searches the occurrences of the literal of a {@link LiteralPattern}, each one after the end of the previous one.
+ */
+final class LiteralMatcher extends EngineMatcher {
+
+    private final LiteralPattern pattern;
+    private CharSequence input;
+    private int start;
+    private int next;
+    private boolean matched;
+
+    LiteralMatcher(LiteralPattern pattern){
+        this.pattern = pattern;
+    }
+
+    @Override
+    public EngineMatcher reset(CharSequence input) {
+        this.input = input;
+        this.next = 0;
+        this.matched = false;
+        return this;
+    }
+
+    @Override
+    public boolean find() {
+        start = next > input.length() ? -1 : pattern.indexOf(input, next);
+        matched = start != -1;
+        next = matched ? start + pattern.length() : input.length() + 1;
+        return matched;
+    }
+
+    @Override
+    public boolean find(int from) {
+        if (from < 0 || from > input.length()){
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        reset(input);
+        next = from;
+        return find();
+    }
+
+    @Override
+    public boolean lookingAt(int from) {
+        if (from < 0 || from > input.length()){
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        reset(input);
+        start = from;
+        matched = pattern.startsAt(input, from);
+        next = matched ? from + pattern.length() : input.length() + 1;
+        return matched;
+    }
+
+    @Override
+    protected CharSequence input() {
+        return input;
+    }
+
+    @Override
+    public int start(int group) {
+        checkGroup(matched, group);
+        return start;
+    }
+
+    @Override
+    public int end(int group) {
+        checkGroup(matched, group);
+        return start + pattern.length();
+    }
+
+    @Override
+    public int groupCount() {
+        return 0;
+    }
+}
@@ -0,0 +1,84 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.ir.LiteralAnalysis;
+import org.xmlet.regex.ir.RegexParser;
+import org.xmlet.regex.ir.RegexTree;
+
+/**
+ * A regex that only matches one literal text, whose matches are searched as substrings by a {@link Horspool}, without
+ * running any engine. Its matches are the ones of {@link java.util.regex.Pattern}.
+ */
+final class LiteralPattern implements EnginePattern {
+
+    private final String regex;
+    private final String literal;
+    private final Horspool search;
+
+    private LiteralPattern(String regex, String literal){
+        this.regex = regex;
+        this.literal = literal;
+        this.search = new Horspool(literal);
+    }
+
+    /**
+     * @param regex A regex in the {@link java.util.regex.Pattern} syntax.
+     * @return The compiled regex.
+     * @throws UnsupportedOperationException If the regex matches anything other than one literal text.
+     */
+    static LiteralPattern compile(String regex){
+        return compile(RegexParser.parse(regex));
+    }
+
+    /**
+     * @param tree A parsed regex.
+     * @return The compiled regex.
+     * @throws UnsupportedOperationException If the regex matches anything other than one literal text.
+     */
+    static LiteralPattern compile(RegexTree tree){
+        String literal = LiteralAnalysis.of(tree).getLiteral();
+
+        if (literal == null || literal.isEmpty() || !tree.getConstructs().isEmpty()){
+            throw new UnsupportedOperationException("The regex isn't a literal");
+        }
+
+        for (int i = 0; i < literal.length(); i++){
+            if (Character.isSurrogate(literal.charAt(i))){
+                throw new UnsupportedOperationException("The literal has surrogate chars");
+            }
+        }
+
+        return new LiteralPattern(tree.getSource(), literal);
+    }
+
+    @Override
+    public String pattern() {
+        return regex;
+    }
+
+    @Override
+    public int groupCount() {
+        return 0;
+    }
+
+    @Override
+    public EngineMatcher matcher(CharSequence input) {
+        return new LiteralMatcher(this).reset(input);
+    }
+
+    int length(){
+        return literal.length();
+    }
+
+    int indexOf(CharSequence input, int from){
+        return search.indexOf(input, from);
+    }
+
+    boolean startsAt(CharSequence input, int from){
+        return search.startsAt(input, from);
+    }
+
+    @Override
+    public String toString() {
+        return "literal \"" + literal + "\"";
+    }
+}
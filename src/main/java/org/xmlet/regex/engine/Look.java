@@ -0,0 +1,122 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.ir.Anchor;
+
+/**
+ * Evaluates the anchors at a position of the input, returning one bit per anchor that holds there. The anchors have
+ * the meaning {@link java.util.regex.Matcher} gives them with transparent and non anchoring bounds, i.e. they always
+ * look at the whole input.
+ * <p>Word boundaries are only evaluated between ASCII chars. Next to other chars the definition of a word char changed
+ * between JDK versions, so {@link #HANDOVER} is returned instead, telling the engine to let
+ * {@link java.util.regex.Pattern} do the search.
+ */
+final class Look {
+
+    static final int LINE_BEGIN = 1;
+    static final int LINE_END = 1 << 1;
+    static final int INPUT_BEGIN = 1 << 2;
+    static final int INPUT_END = 1 << 3;
+    static final int INPUT_END_OR_FINAL_TERMINATOR = 1 << 4;
+    static final int WORD_BOUNDARY = 1 << 5;
+    static final int NON_WORD_BOUNDARY = 1 << 6;
+    static final int COUNT = 7;
+
+    static final int HANDOVER = -1;
+
+    private static final int WORD = WORD_BOUNDARY | NON_WORD_BOUNDARY;
+
+    private Look(){}
+
+    static int bit(Anchor.Kind kind){
+        switch (kind){
+            case LINE_BEGIN: return LINE_BEGIN;
+            case LINE_END: return LINE_END;
+            case INPUT_BEGIN: return INPUT_BEGIN;
+            case INPUT_END: return INPUT_END;
+            case INPUT_END_OR_FINAL_TERMINATOR: return INPUT_END_OR_FINAL_TERMINATOR;
+            case WORD_BOUNDARY: return WORD_BOUNDARY;
+            case NON_WORD_BOUNDARY: return NON_WORD_BOUNDARY;
+            default: throw new UnsupportedOperationException("\\G isn't supported by this engine");
+        }
+    }
+
+    /**
+     * @param input The searched input.
+     * @param i A position of the input, from 0 to its length.
+     * @param mask The bits to evaluate.
+     * @return The bits of {@code mask} that hold at {@code i}, or {@link #HANDOVER}.
+     */
+    static int at(CharSequence input, int i, int mask){
+        int n = input.length();
+        int bits = 0;
+
+        if ((mask & INPUT_BEGIN) != 0 && i == 0){
+            bits |= INPUT_BEGIN;
+        }
+
+        if ((mask & INPUT_END) != 0 && i == n){
+            bits |= INPUT_END;
+        }
+
+        if ((mask & LINE_BEGIN) != 0 && i < n && (i == 0 || isLineStart(input, i))){
+            bits |= LINE_BEGIN;
+        }
+
+        if ((mask & LINE_END) != 0 && (i == n || isLineEnd(input, i))){
+            bits |= LINE_END;
+        }
+
+        if ((mask & INPUT_END_OR_FINAL_TERMINATOR) != 0 && isFinalTerminator(input, i, n)){
+            bits |= INPUT_END_OR_FINAL_TERMINATOR;
+        }
+
+        if ((mask & WORD) != 0){
+            char before = i > 0 ? input.charAt(i - 1) : ' ';
+            char after = i < n ? input.charAt(i) : ' ';
+
+            if (before >= 128 || after >= 128){
+                return HANDOVER;
+            }
+
+            bits |= isWord(before) != isWord(after) ? WORD_BOUNDARY : NON_WORD_BOUNDARY;
+            bits &= mask | ~WORD;
+        }
+
+        return bits;
+    }
+
+    private static boolean isLineStart(CharSequence input, int i){
+        char previous = input.charAt(i - 1);
+        return isTerminator(previous) && !(previous == '\r' && input.charAt(i) == '\n');
+    }
+
+    private static boolean isLineEnd(CharSequence input, int i){
+        char c = input.charAt(i);
+
+        if (c == '\n'){
+            return i == 0 || input.charAt(i - 1) != '\r';
+        }
+
+        return isTerminator(c);
+    }
+
+    private static boolean isFinalTerminator(CharSequence input, int i, int n){
+        if (i == n){
+            return true;
+        }
+
+        if (i == n - 2){
+            return input.charAt(i) == '\r' && input.charAt(i + 1) == '\n';
+        }
+
+        return i == n - 1 && isLineEnd(input, i);
+    }
+
+    private static boolean isTerminator(char c){
+        return c == '\n' || c == '\r' || c == '\u0085' || (c | 1) == '\u2029';
+    }
+
+    private static boolean isWord(char c){
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+}
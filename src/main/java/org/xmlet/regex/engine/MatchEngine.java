@@ -0,0 +1,149 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.PatternCache;
+import org.xmlet.regex.ir.Construct;
+import org.xmlet.regex.ir.RegexTree;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The engines that can search for the matches of a {@link org.xmlet.regex.Regex}.
+ */
+public enum MatchEngine implements RegexEngine {
+
+    /**
+     * {@link java.util.regex.Pattern}, a backtracking engine that supports every construct of the regex syntax but
+     * conditionals, and whose searches may take exponential time.
+     */
+    JDK {
+        @Override
+        public boolean supports(Set<Construct> constructs) {
+            return !constructs.contains(Construct.CONDITIONAL);
+        }
+
+        @Override
+        public EnginePattern compile(String regex) {
+            return new JdkPattern(PatternCache.getInstance().compile(regex, 0));
+        }
+    },
+
+    /**
+     * A substring search, for the regexes that only match one literal text, such as {@code abc} or {@code a\.b}, which
+     * takes sublinear time on average. Its matches are the ones of {@link #JDK}. Any other regex is rejected.
+     */
+    LITERAL {
+        @Override
+        public boolean supports(Set<Construct> constructs) {
+            return constructs.isEmpty();
+        }
+
+        @Override
+        public EnginePattern compile(String regex) {
+            return LiteralPattern.compile(regex);
+        }
+
+        @Override
+        public EnginePattern compile(RegexTree tree) {
+            return LiteralPattern.compile(tree);
+        }
+
+        @Override
+        public boolean isLinear() {
+            return true;
+        }
+    },
+
+    /**
+     * A lazily built DFA, whose searches take linear time in the length of the input. It supports the regular subset
+     * of the regex syntax: literals, character classes, anchors, alternations, greedy and lazy quantifiers and
+     * groups. The bounds of the capturing groups are found by running {@link #NFA} over each match. Its matches are
+     * the ones of {@link #JDK}, and so are the bounds of the groups but for the ones described by {@link #NFA}.
+     */
+    DFA {
+        @Override
+        public boolean supports(Set<Construct> constructs) {
+            return Collections.disjoint(constructs, NOT_REGULAR);
+        }
+
+        @Override
+        public EnginePattern compile(String regex) {
+            return DfaPattern.compile(regex);
+        }
+
+        @Override
+        public EnginePattern compile(RegexTree tree) {
+            return DfaPattern.compile(tree);
+        }
+
+        @Override
+        public boolean isLinear() {
+            return true;
+        }
+    },
+
+    /**
+     * A Pike VM, which simulates the NFA of the regex over the input, so a search takes at most {@code O(n * m)} time
+     * for an input of {@code n} chars and a regex of size {@code m}. It supports the same constructs as {@link #DFA},
+     * including capturing groups and lazy quantifiers. The regexes it doesn't support, e.g. the ones with
+     * backreferences or lookarounds, are compiled by {@link #JDK} instead of being rejected.
+     * <p>Its matches are the ones of {@link #JDK}. The bounds of a group are the ones captured along the path of the
+     * match, while {@link #JDK} may keep the bounds captured by an iteration of a repetition that it backtracked out
+     * of, e.g. the group of {@code (?:(a)b)*a} matching {@code "a"} in {@code "ab"}, which only {@link #JDK} reports
+     * as participating.
+     */
+    NFA {
+        @Override
+        public boolean supports(Set<Construct> constructs) {
+            return Collections.disjoint(constructs, NOT_REGULAR);
+        }
+
+        @Override
+        public EnginePattern compile(String regex) {
+            return NfaPattern.compile(regex);
+        }
+
+        @Override
+        public EnginePattern compile(RegexTree tree) {
+            return NfaPattern.compile(tree);
+        }
+
+        @Override
+        public boolean isLinear() {
+            return true;
+        }
+    },
+
+    /**
+     * jregex, a backtracking engine that also supports conditionals, {@code (?(condition)then|else)}.
+     */
+    JREGEX {
+        @Override
+        public boolean supports(Set<Construct> constructs) {
+            return true;
+        }
+
+        @Override
+        public EnginePattern compile(String regex) {
+            return new JregexPattern(PatternCache.getInstance().compileConditional(regex, 0));
+        }
+    };
+
+    private static final Set<Construct> NOT_REGULAR = EnumSet.of(Construct.POSSESSIVE_QUANTIFIER,
+            Construct.EMPTY_REPETITION, Construct.ATOMIC_GROUP, Construct.LOOKAROUND, Construct.BACK_REFERENCE,
+            Construct.CONDITIONAL, Construct.PREVIOUS_MATCH_END);
+
+    @Override
+    public String getName() {
+        return name();
+    }
+
+    /**
+     * @return True for every engine but {@link #JREGEX}, which copies the input into an array.
+     */
+    @Override
+    public boolean isInterruptible() {
+        return this != JREGEX;
+    }
+}
@@ -0,0 +1,128 @@
+package org.xmlet.regex.engine;
+
+import java.util.regex.Matcher;
+
+/**
+ * Searches with a {@link NfaPattern}, handing the remaining searches of an input over to a {@link Matcher} when the
+ * program can't tell the result.
+ */
+final class NfaMatcher extends EngineMatcher {
+
+    private final NfaPattern pattern;
+    private final PikeVm.Cache cache;
+    private final int[] slots;
+    private CharSequence input;
+    private Matcher handover;
+    private int next;
+    private boolean matched;
+
+    NfaMatcher(NfaPattern pattern){
+        this.pattern = pattern;
+        this.cache = pattern.vm().newCache();
+        this.slots = new int[pattern.vm().getSlotCount()];
+    }
+
+    @Override
+    public EngineMatcher reset(CharSequence input) {
+        this.input = input;
+        this.handover = null;
+        this.next = 0;
+        this.matched = false;
+        return this;
+    }
+
+    @Override
+    public boolean find() {
+        if (handover != null){
+            return handover.find();
+        }
+
+        matched = false;
+
+        if (next > input.length()){
+            return false;
+        }
+
+        int from = next;
+        int end = pattern.vm().search(cache, input, from, input.length(), false, slots);
+
+        if (end == DfaPattern.HANDOVER){
+            handover = pattern.fallback().matcher(input);
+            return handover.find(from);
+        }
+
+        if (end == DfaPattern.NO_MATCH){
+            next = input.length() + 1;
+            return false;
+        }
+
+        matched = true;
+        next = slots[0] == end ? end + 1 : end;
+        return true;
+    }
+
+    @Override
+    public boolean lookingAt(int from) {
+        if (from < 0 || from > input.length()){
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        reset(input);
+        int end = pattern.vm().search(cache, input, from, input.length(), true, slots);
+
+        if (end == DfaPattern.HANDOVER){
+            handover = pattern.fallback().matcher(input);
+            return JdkMatcher.lookingAt(handover, input, from);
+        }
+
+        if (end == DfaPattern.NO_MATCH){
+            next = input.length() + 1;
+            return false;
+        }
+
+        matched = true;
+        next = from == end ? end + 1 : end;
+        return true;
+    }
+
+    @Override
+    public boolean find(int from) {
+        if (from < 0 || from > input.length()){
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        reset(input);
+        next = from;
+        return find();
+    }
+
+    @Override
+    protected CharSequence input() {
+        return input;
+    }
+
+    @Override
+    public int start(int group) {
+        if (handover != null){
+            return handover.start(group);
+        }
+
+        checkGroup(matched, group);
+        return slots[group * 2];
+    }
+
+    @Override
+    public int end(int group) {
+        if (handover != null){
+            return handover.end(group);
+        }
+
+        checkGroup(matched, group);
+        return slots[group * 2 + 1];
+    }
+
+    @Override
+    public int groupCount() {
+        return pattern.groupCount();
+    }
+}
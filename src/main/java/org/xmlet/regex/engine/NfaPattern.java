@@ -0,0 +1,81 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.PatternCache;
+import org.xmlet.regex.ir.RegexParser;
+import org.xmlet.regex.ir.RegexTree;
+
+import java.util.regex.Pattern;
+
+/**
+ * A regex compiled into a {@link PikeVm}, which finds the matches and the bounds of their capturing groups in time
+ * linear in the length of the input for a given regex.
+ * <p>Like {@link DfaPattern} the program reads chars, so a search that reads a surrogate char, or needs a word boundary
+ * next to a non ASCII char, is handed over to {@link Pattern}.
+ */
+final class NfaPattern implements EnginePattern {
+
+    private final String regex;
+    private final int groupCount;
+    private final PikeVm vm;
+    private final Pattern fallback;
+
+    private NfaPattern(String regex, int groupCount, Program program){
+        this.regex = regex;
+        this.groupCount = groupCount;
+        this.vm = new PikeVm(program);
+        this.fallback = PatternCache.getInstance().compile(regex, 0);
+    }
+
+    /**
+     * @param regex A regex in the {@link Pattern} syntax.
+     * @return The compiled regex, or a {@link Pattern} if the regex uses backreferences, lookarounds or any other
+     * construct that isn't regular.
+     */
+    static EnginePattern compile(String regex){
+        RegexTree tree;
+
+        try {
+            tree = RegexParser.parse(regex);
+        } catch (UnsupportedOperationException e){
+            return new JdkPattern(PatternCache.getInstance().compile(regex, 0));
+        }
+
+        return compile(tree);
+    }
+
+    /**
+     * @param tree A parsed regex.
+     * @return The compiled regex, or a {@link Pattern} if the regex isn't regular.
+     */
+    static EnginePattern compile(RegexTree tree){
+        try {
+            Program program = ProgramCompiler.compile(tree, false, true, true);
+            return new NfaPattern(tree.getSource(), tree.getGroupCount(), program);
+        } catch (UnsupportedOperationException e){
+            return new JdkPattern(PatternCache.getInstance().compile(tree.getSource(), 0));
+        }
+    }
+
+    @Override
+    public String pattern() {
+        return regex;
+    }
+
+    @Override
+    public int groupCount() {
+        return groupCount;
+    }
+
+    @Override
+    public EngineMatcher matcher(CharSequence input) {
+        return new NfaMatcher(this).reset(input);
+    }
+
+    PikeVm vm(){
+        return vm;
+    }
+
+    Pattern fallback(){
+        return fallback;
+    }
+}
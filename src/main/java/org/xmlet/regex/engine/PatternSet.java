@@ -0,0 +1,118 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.ir.Construct;
+import org.xmlet.regex.ir.RegexParser;
+import org.xmlet.regex.ir.RegexTree;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Many regexes compiled into a single {@link LazyDfa}, which tells which of them match an input in one scan, in time
+ * linear in the length of the input whatever the number of regexes.
+ * <p>The regexes that aren't regular are compiled into regular approximations that match at least the same Strings,
+ * so for them the scan only tells that they may match. The same goes for the regexes the DFA can't compile and for the
+ * inputs it hands over, e.g. the ones with surrogate chars. Those candidates must be confirmed by searching them with
+ * their own engine.
+ */
+public final class PatternSet {
+
+    private static final Set<Construct> APPROXIMATED = EnumSet.of(Construct.POSSESSIVE_QUANTIFIER,
+            Construct.EMPTY_REPETITION, Construct.ATOMIC_GROUP, Construct.LOOKAROUND, Construct.BACK_REFERENCE,
+            Construct.CONDITIONAL, Construct.PREVIOUS_MATCH_END);
+
+    private final int size;
+    private final BitSet compiled = new BitSet();
+    private final BitSet exact = new BitSet();
+    private final Alphabet alphabet;
+    private final LazyDfa dfa;
+
+    private PatternSet(List<RegexTree> trees){
+        this.size = trees.size();
+
+        Program program = ProgramCompiler.compileSet(trees, compiled);
+        this.alphabet = new Alphabet(program.sets);
+        this.dfa = new LazyDfa(program, alphabet, true);
+
+        for (int i = compiled.nextSetBit(0); i >= 0; i = compiled.nextSetBit(i + 1)){
+            if (Collections.disjoint(trees.get(i).getConstructs(), APPROXIMATED)){
+                exact.set(i);
+            }
+        }
+    }
+
+    /**
+     * @param regexes Regexes in the {@link java.util.regex.Pattern} syntax.
+     * @return The compiled set.
+     * @throws java.util.regex.PatternSyntaxException If a regex isn't valid.
+     */
+    public static PatternSet compile(List<String> regexes){
+        List<RegexTree> trees = new ArrayList<>(regexes.size());
+
+        for (String regex : regexes){
+            try {
+                trees.add(RegexParser.parse(regex));
+            } catch (UnsupportedOperationException e){
+                trees.add(null);
+            }
+        }
+
+        return new PatternSet(trees);
+    }
+
+    /**
+     * @return The number of regexes in the set.
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Scans {@code input} once, stopping as soon as every regex is known to match.
+     * @param input The text to search.
+     * @param matches Receives the indexes of the regexes that match the input.
+     * @param candidates Receives the indexes of the regexes that may match the input and must be confirmed.
+     */
+    public void scan(CharSequence input, BitSet matches, BitSet candidates){
+        BitSet found = new BitSet(size);
+        int n = input.length();
+        int mask = dfa.getLookMask();
+        int remaining = compiled.cardinality();
+        LazyDfa.State state = dfa.start();
+
+        for (int i = 0; remaining > 0; i++){
+            int look = mask == 0 ? 0 : Look.at(input, i, mask);
+
+            if (look == Look.HANDOVER || i < n && Character.isSurrogate(input.charAt(i))){
+                BitSet unknown = (BitSet) compiled.clone();
+                unknown.andNot(found);
+                candidates.or(unknown);
+                break;
+            }
+
+            LazyDfa.Closure closure = dfa.closure(state, look);
+
+            for (int index : closure.matches){
+                if (!found.get(index)){
+                    found.set(index);
+                    remaining--;
+                    (exact.get(index) ? matches : candidates).set(index);
+                }
+            }
+
+            if (i == n){
+                break;
+            }
+
+            state = dfa.next(closure, alphabet.classOf(input.charAt(i)));
+        }
+
+        for (int i = compiled.nextClearBit(0); i < size; i = compiled.nextClearBit(i + 1)){
+            candidates.set(i);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.xmlet.regex.engine;
+
+import java.util.Arrays;
+
+/**
+ * Runs a {@link Program} as a Pike VM: every NFA thread advances in lock step over the input, one char at a time, and
+ * carries its own copy of the capture slots. A position of the program holds at most one thread, the one with the
+ * highest priority, so a search takes at most {@code O(n * m)} time for an input of {@code n} chars and a program of
+ * {@code m} instructions.
+ * <p>The threads are kept in priority order and the ones with lower priority than a thread that reaches a match are
+ * dropped, so the match is the one a backtracking engine finds first, the one of {@link java.util.regex.Pattern}.
+ * <p>The bounds of the groups are the ones captured along the path of that match. {@link java.util.regex.Pattern} may
+ * also report a group captured by an iteration of a repetition that it backtracked out of, which didn't participate in
+ * the match: with {@code (?:(a)b)*a} in {@code "ab"}, both match {@code "a"}, but only {@link java.util.regex.Pattern}
+ * reports group 1 at {@code 0} to {@code 1}.
+ * <p>The program is immutable and shared, the mutable state of a search lives in a {@link Cache} owned by the matcher.
+ */
+final class PikeVm {
+
+    private final Program program;
+
+    PikeVm(Program program){
+        this.program = program;
+    }
+
+    int getSlotCount(){
+        return program.slotCount;
+    }
+
+    Cache newCache(){
+        return new Cache(program);
+    }
+
+    /**
+     * Searches the leftmost match that starts at {@code from} or, unless {@code anchored}, after it, reading the input
+     * up to {@code limit}. The anchors always look at the whole input.
+     * @param slots Receives the bounds of the match and of its groups, -1 for the groups that didn't participate.
+     * @return The end of the match, {@link DfaPattern#NO_MATCH}, or {@link DfaPattern#HANDOVER} if the input has chars
+     * the program can't tell about.
+     */
+    int search(Cache cache, CharSequence input, int from, int limit, boolean anchored, int[] slots){
+        int mask = program.lookMask;
+        int look = mask == 0 ? 0 : Look.at(input, from, mask);
+
+        if (look == Look.HANDOVER){
+            return DfaPattern.HANDOVER;
+        }
+
+        Threads current = cache.current;
+        Threads next = cache.next;
+        int end = DfaPattern.NO_MATCH;
+
+        Arrays.fill(cache.slots, -1);
+        cache.clear(current);
+        cache.add(current, anchored ? program.anchoredStart : program.start, from, look);
+
+        for (int i = from; current.count > 0; i++){
+            char c = 0;
+
+            if (i < limit){
+                c = input.charAt(i);
+                look = mask == 0 ? 0 : Look.at(input, i + 1, mask);
+
+                if (Character.isSurrogate(c) || look == Look.HANDOVER){
+                    return DfaPattern.HANDOVER;
+                }
+            }
+
+            cache.clear(next);
+
+            for (int t = 0; t < current.count; t++){
+                int pc = current.pcs[t];
+
+                if (program.opcodes[pc] == Program.MATCH){
+                    end = i;
+                    System.arraycopy(current.slots, pc * program.slotCount, slots, 0, program.slotCount);
+                    break;
+                }
+
+                if (i < limit && program.sets[program.arguments[pc]].contains(c)){
+                    System.arraycopy(current.slots, pc * program.slotCount, cache.slots, 0, program.slotCount);
+                    cache.add(next, pc + 1, i + 1, look);
+                }
+            }
+
+            if (i == limit){
+                break;
+            }
+
+            Threads swap = current;
+            current = next;
+            next = swap;
+        }
+
+        return end;
+    }
+
+    /**
+     * The threads of one position, in priority order, with their capture slots stored by program position.
+     */
+    private static final class Threads {
+
+        private final int[] pcs;
+        private final int[] slots;
+        private int count;
+
+        Threads(Program program){
+            this.pcs = new int[program.size()];
+            this.slots = new int[program.size() * program.slotCount];
+        }
+    }
+
+    /**
+     * The mutable state of the searches of one matcher.
+     */
+    static final class Cache {
+
+        private final Program program;
+        private final Threads current;
+        private final Threads next;
+        private final int[] marks;
+        private final int[] stack;
+        private final int[] values;
+        private final int[] slots;
+        private int mark;
+
+        private Cache(Program program){
+            this.program = program;
+            this.current = new Threads(program);
+            this.next = new Threads(program);
+            this.marks = new int[program.size()];
+            this.stack = new int[program.size() * 2 + 2];
+            this.values = new int[program.size() * 2 + 2];
+            this.slots = new int[program.slotCount];
+        }
+
+        /**
+         * Empties {@code threads}, before the threads of a new position are added.
+         */
+        private void clear(Threads threads){
+            threads.count = 0;
+
+            if (++mark == 0){
+                Arrays.fill(marks, 0);
+                mark = 1;
+            }
+        }
+
+        /**
+         * Adds the thread at {@code pc}, with the capture {@link #slots}, to {@code threads}, following the
+         * instructions that don't read a char, at the position {@code i} with the {@code look} bits. A position
+         * already reached by a thread with higher priority isn't followed again.
+         */
+        private void add(Threads threads, int pc, int i, int look){
+            int top = 0;
+            stack[top++] = pc;
+
+            while (top > 0){
+                int current = stack[--top];
+
+                if (current < 0){
+                    slots[-1 - current] = values[top];
+                    continue;
+                }
+
+                if (marks[current] == mark){
+                    continue;
+                }
+
+                marks[current] = mark;
+
+                switch (program.opcodes[current]){
+                    case Program.SPLIT:
+                        stack[top++] = program.seconds[current];
+                        stack[top++] = program.arguments[current];
+                        break;
+                    case Program.JUMP:
+                        stack[top++] = program.arguments[current];
+                        break;
+                    case Program.ASSERT:
+                        if ((look & program.arguments[current]) != 0){
+                            stack[top++] = current + 1;
+                        }
+                        break;
+                    case Program.SAVE:
+                        int slot = program.arguments[current];
+                        values[top] = slots[slot];
+                        stack[top++] = -1 - slot;
+                        stack[top++] = current + 1;
+                        slots[slot] = i;
+                        break;
+                    default:
+                        threads.pcs[threads.count++] = current;
+                        System.arraycopy(slots, 0, threads.slots, current * program.slotCount, program.slotCount);
+                }
+            }
+        }
+    }
+}
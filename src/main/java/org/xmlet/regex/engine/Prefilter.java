@@ -0,0 +1,68 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.ir.Construct;
+import org.xmlet.regex.ir.LiteralAnalysis;
+import org.xmlet.regex.ir.RegexTree;
+
+/**
+ * Rules out inputs, and positions of an input, that can't hold a match, by looking for the literal text every match
+ * must have before the engine runs. An input without the required literal has no match at all, and every match starts
+ * at an occurrence of the prefix literal, so a search can skip to the next occurrence.
+ * <p>The literals are searched by a {@link Horspool}.
+ */
+final class Prefilter {
+
+    private final String prefix;
+    private final String required;
+    private final Horspool prefixSearch;
+    private final Horspool requiredSearch;
+
+    private Prefilter(String prefix, String required){
+        this.prefix = prefix;
+        this.required = required;
+        this.prefixSearch = prefix.isEmpty() ? null : new Horspool(prefix);
+        this.requiredSearch = required.isEmpty() ? null : new Horspool(required);
+    }
+
+    /**
+     * @param tree The regex to prefilter.
+     * @return The prefilter of the regex, or null if it has no literal text.
+     */
+    static Prefilter of(RegexTree tree){
+        LiteralAnalysis literals = LiteralAnalysis.of(tree);
+        String prefix = tree.getConstructs().contains(Construct.PREVIOUS_MATCH_END) ? "" : literals.getPrefix();
+
+        if (prefix.isEmpty() && literals.getRequired().isEmpty()){
+            return null;
+        }
+
+        return new Prefilter(prefix, literals.getRequired());
+    }
+
+    String getPrefix(){
+        return prefix;
+    }
+
+    String getRequired(){
+        return required;
+    }
+
+    /**
+     * @return False if {@code input} can't hold any match.
+     */
+    boolean mayMatch(CharSequence input){
+        return requiredSearch == null || requiredSearch.indexOf(input, 0) != -1;
+    }
+
+    /**
+     * @return The first position, from {@code from} on, where a match may start, or -1 if there's none.
+     */
+    int nextCandidate(CharSequence input, int from){
+        return prefixSearch == null ? from : prefixSearch.indexOf(input, from);
+    }
+
+    @Override
+    public String toString() {
+        return "prefix \"" + prefix + "\", required \"" + required + "\"";
+    }
+}
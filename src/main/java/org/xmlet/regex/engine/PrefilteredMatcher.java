@@ -0,0 +1,113 @@
+package org.xmlet.regex.engine;
+
+import java.util.regex.MatchResult;
+
+/**
+ * Searches with the matcher of the underlying pattern, skipping the inputs without the required literal and, when
+ * every match starts with a literal, starting each search at the next occurrence of that literal.
+ */
+final class PrefilteredMatcher extends EngineMatcher {
+
+    private final Prefilter prefilter;
+    private final EngineMatcher matcher;
+    private CharSequence input;
+    private boolean rejected;
+    private int next;
+
+    PrefilteredMatcher(Prefilter prefilter, EngineMatcher matcher){
+        this.prefilter = prefilter;
+        this.matcher = matcher;
+    }
+
+    @Override
+    public EngineMatcher reset(CharSequence input) {
+        this.input = input;
+        this.next = 0;
+        this.rejected = !prefilter.mayMatch(input);
+        matcher.reset(input);
+        return this;
+    }
+
+    @Override
+    public boolean find() {
+        if (rejected){
+            return false;
+        }
+
+        if (prefilter.getPrefix().isEmpty()){
+            return matcher.find();
+        }
+
+        int candidate = next > input.length() ? -1 : prefilter.nextCandidate(input, next);
+
+        if (candidate == -1 || !matcher.find(candidate)){
+            next = input.length() + 1;
+            matcher.reset(input);
+            return false;
+        }
+
+        next = matcher.end();
+        return true;
+    }
+
+    @Override
+    public boolean find(int from) {
+        if (from < 0 || from > input.length()){
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        reset(input);
+
+        if (prefilter.getPrefix().isEmpty()){
+            return !rejected && matcher.find(from);
+        }
+
+        next = from;
+        return find();
+    }
+
+    @Override
+    public boolean lookingAt(int from) {
+        if (from < 0 || from > input.length()){
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        if (rejected || !matcher.lookingAt(from)){
+            next = input.length() + 1;
+            return false;
+        }
+
+        next = matcher.end();
+        return true;
+    }
+
+    @Override
+    protected CharSequence input() {
+        return input;
+    }
+
+    @Override
+    public int start(int group) {
+        return matcher.start(group);
+    }
+
+    @Override
+    public int end(int group) {
+        return matcher.end(group);
+    }
+
+    @Override
+    public String group(int group) {
+        return matcher.group(group);
+    }
+
+    @Override
+    public int groupCount() {
+        return matcher.groupCount();
+    }
+
+    @Override
+    public MatchResult toMatchResult() {
+        return matcher.toMatchResult();
+    }
+}
@@ -0,0 +1,35 @@
+package org.xmlet.regex.engine;
+
+/**
+ * An {@link EnginePattern} whose searches are narrowed by a {@link Prefilter} before the underlying pattern runs.
+ */
+final class PrefilteredPattern implements EnginePattern {
+
+    private final EnginePattern pattern;
+    private final Prefilter prefilter;
+
+    PrefilteredPattern(EnginePattern pattern, Prefilter prefilter){
+        this.pattern = pattern;
+        this.prefilter = prefilter;
+    }
+
+    @Override
+    public String pattern() {
+        return pattern.pattern();
+    }
+
+    @Override
+    public int groupCount() {
+        return pattern.groupCount();
+    }
+
+    @Override
+    public EngineMatcher matcher(CharSequence input) {
+        return new PrefilteredMatcher(prefilter, pattern.matcher(input)).reset(input);
+    }
+
+    @Override
+    public String toString() {
+        return pattern + " with " + prefilter;
+    }
+}
@@ -0,0 +1,49 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.ir.CharSet;
+
+/**
+ * A compiled regex in the form of a Thompson NFA, a list of instructions executed by the engines of this package.
+ * Instructions that lead to two others, {@link #SPLIT}, list them by priority, so following the first one before the
+ * second one reproduces the preferences of a backtracking engine.
+ */
+final class Program {
+
+    /** Consumes a char of {@code sets[argument]}, then continues at the next instruction. */
+    static final int CHAR = 0;
+    /** Continues at {@code argument}, then, with lower priority, at {@code second}. */
+    static final int SPLIT = 1;
+    /** Continues at {@code argument}. */
+    static final int JUMP = 2;
+    /** Continues at the next instruction if the {@link Look} bit {@code argument} holds at the current position. */
+    static final int ASSERT = 3;
+    /** Records the current position in the capture slot {@code argument}, then continues at the next instruction. */
+    static final int SAVE = 4;
+    /** Reports a match. */
+    static final int MATCH = 5;
+
+    final int[] opcodes;
+    final int[] arguments;
+    final int[] seconds;
+    final CharSet[] sets;
+    final int start;
+    final int anchoredStart;
+    final int lookMask;
+    final int slotCount;
+
+    Program(int[] opcodes, int[] arguments, int[] seconds, CharSet[] sets, int start, int anchoredStart, int lookMask,
+            int slotCount){
+        this.opcodes = opcodes;
+        this.arguments = arguments;
+        this.seconds = seconds;
+        this.sets = sets;
+        this.start = start;
+        this.anchoredStart = anchoredStart;
+        this.lookMask = lookMask;
+        this.slotCount = slotCount;
+    }
+
+    int size(){
+        return opcodes.length;
+    }
+}
@@ -0,0 +1,320 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.ir.Alternation;
+import org.xmlet.regex.ir.Anchor;
+import org.xmlet.regex.ir.AtomicGroup;
+import org.xmlet.regex.ir.BackReference;
+import org.xmlet.regex.ir.CharClass;
+import org.xmlet.regex.ir.CharSet;
+import org.xmlet.regex.ir.Conditional;
+import org.xmlet.regex.ir.Construct;
+import org.xmlet.regex.ir.Group;
+import org.xmlet.regex.ir.Literal;
+import org.xmlet.regex.ir.LookAround;
+import org.xmlet.regex.ir.RegexNode;
+import org.xmlet.regex.ir.RegexNodeVisitor;
+import org.xmlet.regex.ir.RegexTree;
+import org.xmlet.regex.ir.Repeat;
+import org.xmlet.regex.ir.Sequence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Compiles a {@link RegexTree} into a {@link Program}. Only the regular constructs are supported, the others throw an
+ * {@link UnsupportedOperationException}: lookarounds, atomic groups, possessive quantifiers, backreferences,
+ * conditionals, {@code \G} and repetitions of expressions that can match empty Strings, which
+ * {@link java.util.regex.Pattern} stops repeating with rules of its own. Capturing groups are compiled into
+ * {@link Program#SAVE} instructions when requested, and into their body otherwise.
+ * <p>A program can be compiled in reverse, matching the regex from right to left, and with an unanchored prefix, a
+ * lazy loop over any char that lets a match start at any position.
+ * <p>The regexes of a set are compiled in approximate mode, where the constructs that aren't regular are replaced by
+ * regular ones that match at least the same Strings, e.g. a lookaround by an empty String and a backreference by any
+ * String.
+ */
+final class ProgramCompiler implements RegexNodeVisitor<Void> {
+
+    /**
+     * Bounded repetitions are compiled by copying their body, so this limits the size of the programs.
+     */
+    static final int MAXIMUM_SIZE = 20000;
+
+    private static final CharSet ANY_CHAR = CharSet.EMPTY.complement();
+
+    private final boolean reverse;
+    private final boolean captures;
+    private final boolean approximate;
+    private int[] opcodes = new int[16];
+    private int[] arguments = new int[16];
+    private int[] seconds = new int[16];
+    private final List<CharSet> sets = new ArrayList<>();
+    private int size;
+    private int start;
+    private int lookMask;
+
+    private ProgramCompiler(boolean reverse, boolean captures, boolean approximate){
+        this.reverse = reverse;
+        this.captures = captures;
+        this.approximate = approximate;
+    }
+
+    /**
+     * @param tree The regex to compile.
+     * @param reverse Compiles a program that reads the input backwards.
+     * @param unanchored Lets the program start matching at any position.
+     * @param captures Records the bounds of the capturing groups.
+     * @return The compiled program.
+     */
+    static Program compile(RegexTree tree, boolean reverse, boolean unanchored, boolean captures){
+        if (tree.getConstructs().contains(Construct.EMPTY_REPETITION)){
+            throw new UnsupportedOperationException("Repetitions of expressions that match empty Strings aren't supported by this engine");
+        }
+
+        ProgramCompiler compiler = new ProgramCompiler(reverse, captures, false);
+        int anchoredStart = unanchored ? compiler.unanchoredPrefix() : 0;
+
+        compiler.save(0);
+        tree.getRoot().accept(compiler);
+        compiler.save(1);
+        compiler.emit(Program.MATCH, 0, 0);
+
+        return compiler.build(anchoredStart, captures ? (tree.getGroupCount() + 1) * 2 : 0);
+    }
+
+    /**
+     * Compiles the regexes of a set, in approximate mode, into a single unanchored program that tries each of them,
+     * whose {@link Program#MATCH} instructions have the index of their regex as argument. A regex that is null, or
+     * too large, is left out.
+     * @param trees The regexes to compile.
+     * @param compiled Receives the indexes of the regexes that were compiled.
+     * @return The compiled program.
+     */
+    static Program compileSet(List<RegexTree> trees, BitSet compiled){
+        ProgramCompiler compiler = new ProgramCompiler(false, false, true);
+        int anchoredStart = compiler.unanchoredPrefix();
+
+        for (int i = 0; i < trees.size(); i++){
+            if (trees.get(i) == null){
+                continue;
+            }
+
+            int split = compiler.emit(Program.SPLIT, compiler.size + 1, 0);
+            compiler.start = compiler.size;
+
+            try {
+                trees.get(i).getRoot().accept(compiler);
+                compiler.emit(Program.MATCH, i, 0);
+                compiler.seconds[split] = compiler.size;
+                compiled.set(i);
+            } catch (UnsupportedOperationException e){
+                compiler.size = split;
+            }
+        }
+
+        compiler.start = compiler.size;
+        compiler.emit(Program.CHAR, compiler.set(CharSet.EMPTY), 0);
+        return compiler.build(anchoredStart, 0);
+    }
+
+    /**
+     * Emits the lazy loop over any char that lets a match start at any position.
+     * @return The position of the first instruction after the loop.
+     */
+    private int unanchoredPrefix(){
+        int split = emit(Program.SPLIT, 3, 1);
+        emit(Program.CHAR, set(ANY_CHAR), 0);
+        emit(Program.JUMP, split, 0);
+        return size;
+    }
+
+    private Program build(int anchoredStart, int slotCount){
+        return new Program(Arrays.copyOf(opcodes, size), Arrays.copyOf(arguments, size), Arrays.copyOf(seconds, size),
+                sets.toArray(new CharSet[0]), 0, anchoredStart, lookMask, slotCount);
+    }
+
+    private int emit(int opcode, int argument, int second){
+        if (size - start == MAXIMUM_SIZE){
+            throw new UnsupportedOperationException("The regex is too large for this engine");
+        }
+
+        if (size == opcodes.length){
+            opcodes = Arrays.copyOf(opcodes, size * 2);
+            arguments = Arrays.copyOf(arguments, size * 2);
+            seconds = Arrays.copyOf(seconds, size * 2);
+        }
+
+        opcodes[size] = opcode;
+        arguments[size] = argument;
+        seconds[size] = second;
+        return size++;
+    }
+
+    private int set(CharSet set){
+        int index = sets.indexOf(set);
+
+        if (index == -1){
+            sets.add(set);
+            index = sets.size() - 1;
+        }
+
+        return index;
+    }
+
+    private void save(int slot){
+        if (captures){
+            emit(Program.SAVE, reverse ? slot ^ 1 : slot, 0);
+        }
+    }
+
+    @Override
+    public Void visitLiteral(Literal literal) {
+        String value = literal.getValue();
+
+        for (int i = 0; i < value.length(); i++){
+            char c = value.charAt(reverse ? value.length() - 1 - i : i);
+            emit(Program.CHAR, set(CharSet.of(c)), 0);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitCharClass(CharClass charClass) {
+        emit(Program.CHAR, set(charClass.getSet()), 0);
+        return null;
+    }
+
+    @Override
+    public Void visitAnchor(Anchor anchor) {
+        if (approximate && anchor.getKind() == Anchor.Kind.PREVIOUS_MATCH_END){
+            return null;
+        }
+
+        int bit = Look.bit(anchor.getKind());
+        lookMask |= bit;
+        emit(Program.ASSERT, bit, 0);
+        return null;
+    }
+
+    @Override
+    public Void visitSequence(Sequence sequence) {
+        List<RegexNode> items = sequence.getItems();
+
+        for (int i = 0; i < items.size(); i++){
+            items.get(reverse ? items.size() - 1 - i : i).accept(this);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitAlternation(Alternation alternation) {
+        List<RegexNode> alternatives = alternation.getAlternatives();
+        int[] jumps = new int[alternatives.size() - 1];
+
+        for (int i = 0; i < alternatives.size() - 1; i++){
+            int split = emit(Program.SPLIT, size + 1, 0);
+            alternatives.get(i).accept(this);
+            jumps[i] = emit(Program.JUMP, 0, 0);
+            seconds[split] = size;
+        }
+
+        alternatives.get(alternatives.size() - 1).accept(this);
+
+        for (int jump : jumps){
+            arguments[jump] = size;
+        }
+
+        return null;
+    }
+
+    @Override
+    public Void visitRepeat(Repeat repeat) {
+        if (repeat.getMode() == Repeat.Mode.POSSESSIVE && !approximate){
+            throw new UnsupportedOperationException("Possessive quantifiers aren't supported by this engine");
+        }
+
+        boolean greedy = repeat.getMode() != Repeat.Mode.LAZY;
+
+        for (int i = 0; i < repeat.getMin(); i++){
+            repeat.getBody().accept(this);
+        }
+
+        if (repeat.getMax() == Repeat.UNBOUNDED){
+            int split = emit(Program.SPLIT, 0, 0);
+            repeat.getBody().accept(this);
+            emit(Program.JUMP, split, 0);
+            prefer(split, split + 1, size, greedy);
+            return null;
+        }
+
+        int optional = repeat.getMax() - repeat.getMin();
+        int[] splits = new int[optional];
+
+        for (int i = 0; i < optional; i++){
+            splits[i] = emit(Program.SPLIT, 0, 0);
+            repeat.getBody().accept(this);
+        }
+
+        for (int split : splits){
+            prefer(split, split + 1, size, greedy);
+        }
+
+        return null;
+    }
+
+    private void prefer(int split, int body, int exit, boolean greedy){
+        arguments[split] = greedy ? body : exit;
+        seconds[split] = greedy ? exit : body;
+    }
+
+    @Override
+    public Void visitGroup(Group group) {
+        save(group.getNumber() * 2);
+        group.getBody().accept(this);
+        save(group.getNumber() * 2 + 1);
+        return null;
+    }
+
+    @Override
+    public Void visitLookAround(LookAround lookAround) {
+        if (approximate){
+            return null;
+        }
+
+        throw new UnsupportedOperationException("Lookarounds aren't supported by this engine");
+    }
+
+    @Override
+    public Void visitAtomicGroup(AtomicGroup atomicGroup) {
+        if (approximate){
+            return atomicGroup.getBody().accept(this);
+        }
+
+        throw new UnsupportedOperationException("Atomic groups aren't supported by this engine");
+    }
+
+    @Override
+    public Void visitBackReference(BackReference backReference) {
+        if (approximate){
+            int split = emit(Program.SPLIT, size + 1, 0);
+            emit(Program.CHAR, set(ANY_CHAR), 0);
+            emit(Program.JUMP, split, 0);
+            seconds[split] = size;
+            return null;
+        }
+
+        throw new UnsupportedOperationException("Backreferences aren't supported by this engine");
+    }
+
+    @Override
+    public Void visitConditional(Conditional conditional) {
+        if (approximate){
+            return new Alternation(Arrays.asList(conditional.getThen(), conditional.getOtherwise())).accept(this);
+        }
+
+        throw new UnsupportedOperationException("Conditionals aren't supported by this engine");
+    }
+}
@@ -0,0 +1,63 @@
+package org.xmlet.regex.engine;
+
+import org.xmlet.regex.ir.Construct;
+import org.xmlet.regex.ir.RegexTree;
+
+import java.util.Set;
+
+/**
+ * A regex engine that can search for the matches of a {@link org.xmlet.regex.Regex}. An engine compiles a regex into
+ * an {@link EnginePattern}, whose {@link EngineMatcher}s find the matches, and the replacements are made over those
+ * matches, so an engine only needs to implement the search.
+ * <p>Engines and their patterns are shared by every thread, so they must be thread safe. The engines of this library
+ * are the constants of {@link MatchEngine}, and {@link EngineSelector} picks one of them for each regex.
+ */
+public interface RegexEngine {
+
+    /**
+     * @return The name of the engine, as reported by the {@link EngineSelection}.
+     */
+    String getName();
+
+    /**
+     * @param constructs The constructs used by a regex.
+     * @return True if this engine can search for the matches of a regex with those {@code constructs} by itself.
+     */
+    boolean supports(Set<Construct> constructs);
+
+    /**
+     * @return True if the searches of this engine take linear time in the length of the input, for every regex it
+     * supports. Backtracking engines don't.
+     */
+    default boolean isLinear(){
+        return false;
+    }
+
+    /**
+     * @return True if the matchers of this engine read the input through {@link CharSequence#charAt(int)} while they
+     * search, instead of copying it, so the steps of a search can be counted, and the search stopped, by its input, as
+     * a {@link org.xmlet.regex.SearchLimit} does.
+     */
+    default boolean isInterruptible(){
+        return false;
+    }
+
+    /**
+     * @param regex A regex in the {@link java.util.regex.Pattern} syntax.
+     * @return The regex compiled by this engine.
+     * @throws java.util.regex.PatternSyntaxException If the regex isn't valid.
+     * @throws UnsupportedOperationException If the regex uses constructs this engine doesn't support.
+     */
+    EnginePattern compile(String regex);
+
+    /**
+     * Compiles a regex that was already parsed, e.g. by {@link org.xmlet.regex.Regex#getRegexTree()}. The engines of
+     * this library compile the tree itself, other engines compile its source by default.
+     * @param tree A parsed regex.
+     * @return The regex compiled by this engine.
+     * @throws UnsupportedOperationException If the regex uses constructs this engine doesn't support.
+     */
+    default EnginePattern compile(RegexTree tree){
+        return compile(tree.getSource());
+    }
+}
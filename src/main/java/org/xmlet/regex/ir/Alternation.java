@@ -0,0 +1,31 @@
+package org.xmlet.regex.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Matches one of its alternatives, preferring them in order.
+ */
+public final class Alternation extends RegexNode {
+
+    private final List<RegexNode> alternatives;
+
+    public Alternation(List<RegexNode> alternatives){
+        this.alternatives = Collections.unmodifiableList(new ArrayList<>(alternatives));
+    }
+
+    public List<RegexNode> getAlternatives(){
+        return alternatives;
+    }
+
+    @Override
+    public <R> R accept(RegexNodeVisitor<R> visitor) {
+        return visitor.visitAlternation(this);
+    }
+
+    @Override
+    public String toString() {
+        return "Alternation" + alternatives;
+    }
+}
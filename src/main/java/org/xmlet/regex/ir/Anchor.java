@@ -0,0 +1,46 @@
+package org.xmlet.regex.ir;
+
+/**
+ * Matches an empty String at positions with a given property, such as the beginning of a line.
+ */
+public final class Anchor extends RegexNode {
+
+    public enum Kind {
+        /** {@code ^} in multiline mode. */
+        LINE_BEGIN,
+        /** {@code $} in multiline mode. */
+        LINE_END,
+        /** {@code \A}, or {@code ^} outside of multiline mode. */
+        INPUT_BEGIN,
+        /** {@code \z}. */
+        INPUT_END,
+        /** {@code \Z}, or {@code $} outside of multiline mode. */
+        INPUT_END_OR_FINAL_TERMINATOR,
+        /** {@code \b}. */
+        WORD_BOUNDARY,
+        /** {@code \B}. */
+        NON_WORD_BOUNDARY,
+        /** {@code \G}. */
+        PREVIOUS_MATCH_END
+    }
+
+    private final Kind kind;
+
+    public Anchor(Kind kind){
+        this.kind = kind;
+    }
+
+    public Kind getKind(){
+        return kind;
+    }
+
+    @Override
+    public <R> R accept(RegexNodeVisitor<R> visitor) {
+        return visitor.visitAnchor(this);
+    }
+
+    @Override
+    public String toString() {
+        return "Anchor(" + kind + ")";
+    }
+}
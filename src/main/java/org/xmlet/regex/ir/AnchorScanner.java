@@ -0,0 +1,134 @@
+package org.xmlet.regex.ir;
+
+import java.util.List;
+
+/**
+ * Finds the anchor every match of a node begins, or ends, with, so the positions where a match may start, or end, are
+ * known before searching. Each node returns its anchor, or null if its matches aren't anchored. An
+ * {@link Anchor.Kind#INPUT_BEGIN} alternative combined with a {@link Anchor.Kind#LINE_BEGIN} one gives the latter,
+ * which holds at every position the former does, and likewise for the end anchors.
+ */
+final class AnchorScanner implements RegexNodeVisitor<Anchor.Kind> {
+
+    private final boolean end;
+
+    private AnchorScanner(boolean end){
+        this.end = end;
+    }
+
+    /**
+     * @return The anchor every match of {@code root} begins with, {@code \A} or {@code ^}, or null.
+     */
+    static Anchor.Kind scanStart(RegexNode root){
+        return root.accept(new AnchorScanner(false));
+    }
+
+    /**
+     * @return The anchor every match of {@code root} ends with, {@code \z}, {@code \Z} or {@code $}, or null.
+     */
+    static Anchor.Kind scanEnd(RegexNode root){
+        return root.accept(new AnchorScanner(true));
+    }
+
+    @Override
+    public Anchor.Kind visitLiteral(Literal literal) {
+        return null;
+    }
+
+    @Override
+    public Anchor.Kind visitCharClass(CharClass charClass) {
+        return null;
+    }
+
+    @Override
+    public Anchor.Kind visitAnchor(Anchor anchor) {
+        switch (anchor.getKind()){
+            case INPUT_BEGIN:
+            case LINE_BEGIN:
+                return end ? null : anchor.getKind();
+            case INPUT_END:
+            case INPUT_END_OR_FINAL_TERMINATOR:
+            case LINE_END:
+                return end ? anchor.getKind() : null;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Anchor.Kind visitSequence(Sequence sequence) {
+        List<RegexNode> items = sequence.getItems();
+
+        if (items.isEmpty()){
+            return null;
+        }
+
+        return items.get(end ? items.size() - 1 : 0).accept(this);
+    }
+
+    @Override
+    public Anchor.Kind visitAlternation(Alternation alternation) {
+        Anchor.Kind result = null;
+
+        for (RegexNode alternative : alternation.getAlternatives()){
+            Anchor.Kind kind = alternative.accept(this);
+
+            if (kind == null){
+                return null;
+            }
+
+            result = result == null ? kind : weakest(result, kind);
+        }
+
+        return result;
+    }
+
+    @Override
+    public Anchor.Kind visitRepeat(Repeat repeat) {
+        return repeat.getMin() == 0 ? null : repeat.getBody().accept(this);
+    }
+
+    @Override
+    public Anchor.Kind visitGroup(Group group) {
+        return group.getBody().accept(this);
+    }
+
+    @Override
+    public Anchor.Kind visitLookAround(LookAround lookAround) {
+        return null;
+    }
+
+    @Override
+    public Anchor.Kind visitAtomicGroup(AtomicGroup atomicGroup) {
+        return atomicGroup.getBody().accept(this);
+    }
+
+    @Override
+    public Anchor.Kind visitBackReference(BackReference backReference) {
+        return null;
+    }
+
+    @Override
+    public Anchor.Kind visitConditional(Conditional conditional) {
+        return null;
+    }
+
+    /**
+     * @return The anchor that holds wherever {@code first} or {@code second} hold.
+     */
+    private static Anchor.Kind weakest(Anchor.Kind first, Anchor.Kind second){
+        if (first == second){
+            return first;
+        }
+
+        if (first == Anchor.Kind.LINE_BEGIN || second == Anchor.Kind.LINE_BEGIN){
+            return Anchor.Kind.LINE_BEGIN;
+        }
+
+        if (first == Anchor.Kind.LINE_END || second == Anchor.Kind.LINE_END){
+            return Anchor.Kind.LINE_END;
+        }
+
+        return Anchor.Kind.INPUT_END_OR_FINAL_TERMINATOR;
+    }
+}
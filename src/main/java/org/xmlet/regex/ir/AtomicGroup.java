@@ -0,0 +1,27 @@
+package org.xmlet.regex.ir;
+
+/**
+ * Matches its body once, {@code (?>...)}, never trying the other ways the body could have matched.
+ */
+public final class AtomicGroup extends RegexNode {
+
+    private final RegexNode body;
+
+    public AtomicGroup(RegexNode body){
+        this.body = body;
+    }
+
+    public RegexNode getBody(){
+        return body;
+    }
+
+    @Override
+    public <R> R accept(RegexNodeVisitor<R> visitor) {
+        return visitor.visitAtomicGroup(this);
+    }
+
+    @Override
+    public String toString() {
+        return "AtomicGroup(" + body + ")";
+    }
+}
@@ -0,0 +1,37 @@
+package org.xmlet.regex.ir;
+
+/**
+ * Matches the text last captured by a group, such as {@code \1} or {@code \k<name>}.
+ */
+public final class BackReference extends RegexNode {
+
+    private final int number;
+    private final String name;
+
+    /**
+     * @param number The referenced group number.
+     * @param name The referenced group name, or null if it was referenced by number.
+     */
+    public BackReference(int number, String name){
+        this.number = number;
+        this.name = name;
+    }
+
+    public int getNumber(){
+        return number;
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    @Override
+    public <R> R accept(RegexNodeVisitor<R> visitor) {
+        return visitor.visitBackReference(this);
+    }
+
+    @Override
+    public String toString() {
+        return "BackReference(" + (name == null ? String.valueOf(number) : name) + ")";
+    }
+}
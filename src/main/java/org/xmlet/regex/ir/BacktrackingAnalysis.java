@@ -0,0 +1,749 @@
+package org.xmlet.regex.ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the parts of a regex that may make a backtracking engine, such as {@link java.util.regex.Pattern}, take
+ * exponential or polynomial time to fail a match, which is known as ReDoS.
+ * <p>A repetition is exponential when some text can be matched by its iterations in two different ways, so each
+ * further repetition of the text doubles the ways a failing match is retried, e.g. {@code (a+)+} or
+ * {@code (\w+\s?)+} by nesting quantifiers, and {@code (a|a)*} or {@code (\d|\w)*} by alternatives that match the same
+ * text. These are found on the Glushkov automaton of the regex, whose states are the chars of the regex: a repetition
+ * is exponential when it adds a transition from the end of its body to its start that the body already has, or when,
+ * in the product of the automaton with itself, a pair of equal states and a pair of different states are on a common
+ * cycle. Repetitions with more than {@value #MAXIMUM_LOOP_POSITIONS} chars aren't checked.
+ * <p>Two repetitions that can match the same text one after the other, such as {@code \d+\.?\d+}, may split it in as
+ * many ways as its length, which makes a failing search polynomial. These are found when, in the same product, a pair
+ * of equal states on a cycle of the first repetition reaches a pair of a state of each repetition, which reaches a pair
+ * of equal states on a cycle of the second one. Regexes with more than {@value #MAXIMUM_OVERLAP_POSITIONS} chars
+ * aren't checked, and the search stops after {@value #MAXIMUM_OVERLAP_STEPS} steps.
+ * <p>Anchors, lookarounds and backreferences are taken as matching any empty String, so some findings may not be
+ * reachable. Possessive repetitions aren't reported, and neither are repetitions of an atomic group or of a possessive
+ * repetition, such as {@code (?:a++)+}, which don't give back what they matched.
+ */
+public final class BacktrackingAnalysis {
+
+    /**
+     * Bounded repetitions are expanded into copies of their body up to this count, and taken as unbounded otherwise.
+     */
+    private static final int MAXIMUM_COPIES = 8;
+    private static final int MAXIMUM_POSITIONS = 4096;
+    private static final int MAXIMUM_LOOP_POSITIONS = 64;
+    private static final int MAXIMUM_OVERLAP_POSITIONS = 256;
+    private static final int MAXIMUM_OVERLAP_STEPS = 1 << 22;
+
+    private final List<Finding> findings;
+
+    private BacktrackingAnalysis(List<Finding> findings){
+        this.findings = Collections.unmodifiableList(findings);
+    }
+
+    /**
+     * @param tree The regex to analyze.
+     * @return The findings of the regex.
+     */
+    public static BacktrackingAnalysis of(RegexTree tree){
+        Builder builder = new Builder();
+        tree.getRoot().accept(builder);
+
+        for (int loop = 0; loop < builder.loops.size(); loop++){
+            if (builder.loopPaths.get(loop).length == 1){
+                builder.checkLoop(loop);
+            }
+        }
+
+        builder.checkOverlaps();
+
+        return new BacktrackingAnalysis(builder.findings);
+    }
+
+    /**
+     * @return The parts of the regex that may backtrack catastrophically, in the order they were found.
+     */
+    public List<Finding> getFindings(){
+        return findings;
+    }
+
+    /**
+     * @return True if nothing was found.
+     */
+    public boolean isSafe(){
+        return findings.isEmpty();
+    }
+
+    /**
+     * @return True if a finding may take exponential time.
+     */
+    public boolean isExponential(){
+        for (Finding finding : findings){
+            if (finding.getKind().isExponential()){
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return findings.toString();
+    }
+
+    /**
+     * A part of a regex that may backtrack catastrophically.
+     */
+    public static final class Finding {
+
+        public enum Kind {
+
+            /** A repetition inside another one that matches the same chars, such as {@code (a+)+}. */
+            NESTED_QUANTIFIER,
+            /** A repetition of alternatives that match the same text, such as {@code (a|a)*}. */
+            AMBIGUOUS_ALTERNATION,
+            /** Adjacent repetitions that match the same chars, such as {@code \d+\d+}. */
+            OVERLAPPING_QUANTIFIERS;
+
+            /**
+             * @return True if the ways to match grow exponentially with the length of the input, instead of
+             * polynomially.
+             */
+            public boolean isExponential(){
+                return this != OVERLAPPING_QUANTIFIERS;
+            }
+        }
+
+        private final Kind kind;
+        private final RegexNode node;
+        private final String description;
+
+        private Finding(Kind kind, RegexNode node, String description){
+            this.kind = kind;
+            this.node = node;
+            this.description = description;
+        }
+
+        public Kind getKind(){
+            return kind;
+        }
+
+        /**
+         * @return The offending sub expression, which is the repetition that backtracks.
+         */
+        public RegexNode getNode(){
+            return node;
+        }
+
+        @Override
+        public String toString() {
+            return kind + ": " + description;
+        }
+    }
+
+    /**
+     * The chars that may start and end the matches of a node, as positions of the Glushkov automaton, and whether the
+     * node may match an empty String.
+     */
+    private static final class Fragment {
+
+        private final BitSet first;
+        private final BitSet last;
+        private final boolean nullable;
+
+        private Fragment(BitSet first, BitSet last, boolean nullable){
+            this.first = first;
+            this.last = last;
+            this.nullable = nullable;
+        }
+    }
+
+    /**
+     * Builds the Glushkov automaton of a regex, where each char of the regex is a position with the chars it matches
+     * and the positions that may follow it. Each position keeps the path of the unbounded repetitions around it.
+     */
+    private static final class Builder implements RegexNodeVisitor<Fragment> {
+
+        private final List<CharSet> sets = new ArrayList<>();
+        private final List<int[]> paths = new ArrayList<>();
+        private final List<Integer> regions = new ArrayList<>();
+        private final List<BitSet> follow = new ArrayList<>();
+        private final List<Repeat> loops = new ArrayList<>();
+        private final List<int[]> loopPaths = new ArrayList<>();
+        private final List<Finding> findings = new ArrayList<>();
+        private int[] path = new int[0];
+        private int region = -1;
+        private int regionCount;
+        private int steps;
+
+        @Override
+        public Fragment visitLiteral(Literal literal) {
+            Fragment result = empty();
+            String value = literal.getValue();
+
+            for (int i = 0; i < value.length(); i++){
+                result = concat(result, position(CharSet.of(value.charAt(i))));
+            }
+
+            return result;
+        }
+
+        @Override
+        public Fragment visitCharClass(CharClass charClass) {
+            return position(charClass.getSet());
+        }
+
+        @Override
+        public Fragment visitAnchor(Anchor anchor) {
+            return empty();
+        }
+
+        @Override
+        public Fragment visitSequence(Sequence sequence) {
+            Fragment result = empty();
+
+            for (RegexNode item : sequence.getItems()){
+                result = concat(result, item.accept(this));
+            }
+
+            return result;
+        }
+
+        @Override
+        public Fragment visitAlternation(Alternation alternation) {
+            return alternatives(alternation.getAlternatives());
+        }
+
+        @Override
+        public Fragment visitRepeat(Repeat repeat) {
+            if (repeat.getMax() == 0){
+                return empty();
+            }
+
+            if (repeat.getMax() == Repeat.UNBOUNDED || repeat.getMax() > MAXIMUM_COPIES
+                    || sets.size() > MAXIMUM_POSITIONS){
+                int[] outer = path;
+                int outerRegion = region;
+                int firstRegion = regionCount;
+                path = Arrays.copyOf(outer, outer.length + 1);
+                path[outer.length] = loops.size();
+                loops.add(repeat);
+                loopPaths.add(path);
+
+                if (repeat.getMode() == Repeat.Mode.POSSESSIVE){
+                    region = regionCount++;
+                }
+
+                Fragment body = repeat.getBody().accept(this);
+                path = outer;
+                region = outerRegion;
+                close(repeat, body, firstRegion);
+
+                return new Fragment(body.first, body.last, body.nullable || repeat.getMin() == 0);
+            }
+
+            Fragment optional = empty();
+
+            for (int count = repeat.getMin(); count < repeat.getMax(); count++){
+                Fragment copy = concat(repeat.getBody().accept(this), optional);
+                optional = new Fragment(copy.first, copy.last, true);
+            }
+
+            Fragment result = empty();
+
+            for (int count = 0; count < repeat.getMin(); count++){
+                result = concat(result, repeat.getBody().accept(this));
+            }
+
+            return concat(result, optional);
+        }
+
+        /**
+         * Adds the transitions from the end of the body of a {@code repeat} to its start. Every position of the body is
+         * then on a cycle, so a transition that the body already had, e.g. from an inner repetition, is a second way to
+         * take that cycle, unless it's inside an atomic group or a possessive repetition of the body, numbered from
+         * {@code firstRegion}, which doesn't give back what it matched.
+         */
+        private void close(Repeat repeat, Fragment body, int firstRegion){
+            for (int position = body.last.nextSetBit(0); position >= 0; position = body.last.nextSetBit(position + 1)){
+                BitSet following = follow.get(position);
+                BitSet repeated = (BitSet) following.clone();
+                repeated.and(body.first);
+
+                for (int next = repeated.nextSetBit(0); next >= 0; next = repeated.nextSetBit(next + 1)){
+                    boolean atomic = regions.get(position) >= firstRegion
+                            && regions.get(position).equals(regions.get(next));
+
+                    if (!sets.get(position).isEmpty() && !sets.get(next).isEmpty() && !atomic
+                            && repeat.getMode() != Repeat.Mode.POSSESSIVE){
+                        boolean nested = paths.get(position).length > path.length + 1
+                                || paths.get(next).length > path.length + 1;
+                        reportExponential(repeat, nested);
+                    }
+                }
+
+                following.or(body.first);
+            }
+        }
+
+        @Override
+        public Fragment visitGroup(Group group) {
+            return group.getBody().accept(this);
+        }
+
+        @Override
+        public Fragment visitLookAround(LookAround lookAround) {
+            lookAround.getBody().accept(this);
+            return empty();
+        }
+
+        @Override
+        public Fragment visitAtomicGroup(AtomicGroup atomicGroup) {
+            int outer = region;
+            region = regionCount++;
+            Fragment body = atomicGroup.getBody().accept(this);
+            region = outer;
+            return body;
+        }
+
+        @Override
+        public Fragment visitBackReference(BackReference backReference) {
+            return empty();
+        }
+
+        @Override
+        public Fragment visitConditional(Conditional conditional) {
+            if (conditional.getCondition() != null){
+                conditional.getCondition().accept(this);
+            }
+
+            return alternatives(Arrays.asList(conditional.getThen(), conditional.getOtherwise()));
+        }
+
+        private Fragment alternatives(List<RegexNode> alternatives){
+            BitSet first = new BitSet();
+            BitSet last = new BitSet();
+            boolean nullable = false;
+
+            for (RegexNode alternative : alternatives){
+                Fragment fragment = alternative.accept(this);
+                first.or(fragment.first);
+                last.or(fragment.last);
+                nullable |= fragment.nullable;
+            }
+
+            return new Fragment(first, last, nullable);
+        }
+
+        private Fragment position(CharSet set){
+            BitSet position = new BitSet();
+            position.set(sets.size());
+            sets.add(set);
+            paths.add(path);
+            regions.add(region);
+            follow.add(new BitSet());
+            return new Fragment(position, position, false);
+        }
+
+        private Fragment concat(Fragment left, Fragment right){
+            for (int position = left.last.nextSetBit(0); position >= 0; position = left.last.nextSetBit(position + 1)){
+                follow.get(position).or(right.first);
+            }
+
+            BitSet first = (BitSet) left.first.clone();
+            BitSet last = (BitSet) right.last.clone();
+
+            if (left.nullable){
+                first.or(right.first);
+            }
+
+            if (right.nullable){
+                last.or(left.last);
+            }
+
+            return new Fragment(first, last, left.nullable && right.nullable);
+        }
+
+        private static Fragment empty(){
+            return new Fragment(new BitSet(), new BitSet(), true);
+        }
+
+        /**
+         * Looks for the strongly connected components of the product of the automaton of an outermost unbounded
+         * repetition with itself, where a pair of positions moves to the pairs of the positions that follow them and
+         * match a common char. A component with a pair of equal positions and a pair of different ones means some text
+         * takes the repetition from a position back to itself in two different ways.
+         */
+        private void checkLoop(int loop){
+            int[] members = new int[sets.size()];
+            int count = 0;
+
+            for (int position = 0; position < sets.size(); position++){
+                if (paths.get(position).length > 0 && paths.get(position)[0] == loop){
+                    members[count++] = position;
+                }
+            }
+
+            if (count == 0 || count > MAXIMUM_LOOP_POSITIONS){
+                return;
+            }
+
+            int[] local = new int[sets.size()];
+            Arrays.fill(local, -1);
+
+            for (int i = 0; i < count; i++){
+                local[members[i]] = i;
+            }
+
+            int[][] next = new int[count][];
+            boolean[][] overlap = new boolean[count][count];
+
+            for (int i = 0; i < count; i++){
+                BitSet following = follow.get(members[i]);
+                int[] successors = new int[following.cardinality()];
+                int size = 0;
+
+                for (int position = following.nextSetBit(0); position >= 0; position = following.nextSetBit(position + 1)){
+                    if (local[position] != -1){
+                        successors[size++] = local[position];
+                    }
+                }
+
+                next[i] = Arrays.copyOf(successors, size);
+
+                for (int j = 0; j < count; j++){
+                    overlap[i][j] = sets.get(members[i]).intersects(sets.get(members[j]));
+                }
+            }
+
+            findComponents(members, count, next, overlap);
+        }
+
+        /**
+         * Tarjan's algorithm over the pairs of positions, without recursion, where the pair {@code (i, j)} is the node
+         * {@code i * count + j}.
+         */
+        private void findComponents(int[] members, int count, int[][] next, boolean[][] overlap){
+            int size = count * count;
+            int[] order = new int[size];
+            int[] low = new int[size];
+            boolean[] onStack = new boolean[size];
+            int[] stack = new int[size];
+            int[] calls = new int[size];
+            int[] nextFirst = new int[size];
+            int[] nextSecond = new int[size];
+            int top = 0;
+            int counter = 0;
+            Arrays.fill(order, -1);
+
+            for (int root = 0; root < size; root++){
+                if (order[root] != -1){
+                    continue;
+                }
+
+                int depth = 0;
+                calls[depth++] = root;
+
+                while (depth > 0){
+                    int node = calls[depth - 1];
+
+                    if (order[node] == -1){
+                        order[node] = counter;
+                        low[node] = counter++;
+                        stack[top++] = node;
+                        onStack[node] = true;
+                    }
+
+                    int[] firstNext = next[node / count];
+                    int[] secondNext = next[node % count];
+                    boolean descended = false;
+
+                    while (nextFirst[node] < firstNext.length){
+                        if (nextSecond[node] == secondNext.length){
+                            nextFirst[node]++;
+                            nextSecond[node] = 0;
+                            continue;
+                        }
+
+                        int first = firstNext[nextFirst[node]];
+                        int second = secondNext[nextSecond[node]++];
+
+                        if (!overlap[first][second]){
+                            continue;
+                        }
+
+                        int successor = first * count + second;
+
+                        if (order[successor] == -1){
+                            calls[depth++] = successor;
+                            descended = true;
+                            break;
+                        }
+
+                        if (onStack[successor]){
+                            low[node] = Math.min(low[node], order[successor]);
+                        }
+                    }
+
+                    if (descended){
+                        continue;
+                    }
+
+                    depth--;
+
+                    if (depth > 0){
+                        int parent = calls[depth - 1];
+                        low[parent] = Math.min(low[parent], low[node]);
+                    }
+
+                    if (low[node] == order[node]){
+                        int start = top;
+
+                        do {
+                            onStack[stack[--start]] = false;
+                        } while (stack[start] != node);
+
+                        checkComponent(members, count, Arrays.copyOfRange(stack, start, top));
+                        top = start;
+                    }
+                }
+            }
+        }
+
+        private void checkComponent(int[] members, int count, int[] component){
+            boolean equal = false;
+            boolean different = false;
+
+            for (int node : component){
+                equal |= node / count == node % count;
+                different |= node / count != node % count;
+            }
+
+            if (!equal || !different){
+                return;
+            }
+
+            int[] common = paths.get(members[component[0] / count]);
+            int length = common.length;
+            int deepest = 0;
+
+            for (int node : component){
+                for (int position : new int[]{members[node / count], members[node % count]}){
+                    int[] other = paths.get(position);
+                    int shared = 0;
+
+                    while (shared < length && shared < other.length && common[shared] == other[shared]){
+                        shared++;
+                    }
+
+                    length = shared;
+                    deepest = Math.max(deepest, other.length);
+                }
+            }
+
+            Repeat repeat = loops.get(common[length - 1]);
+
+            if (repeat.getMode() == Repeat.Mode.POSSESSIVE){
+                return;
+            }
+
+            reportExponential(repeat, deepest > length);
+        }
+
+        /**
+         * Looks for pairs of positions {@code p} and {@code q} on cycles of different repetitions where {@code (p, p)}
+         * reaches {@code (p, q)} and {@code (p, q)} reaches {@code (q, q)} in the product of the automaton with itself,
+         * i.e. some text may be matched either by staying on {@code p} or by moving to {@code q}.
+         */
+        private void checkOverlaps(){
+            int count = sets.size();
+
+            if (count == 0 || count > MAXIMUM_OVERLAP_POSITIONS){
+                return;
+            }
+
+            int[][] next = new int[count][];
+            int[][] previous = new int[count][];
+            boolean[][] overlap = new boolean[count][count];
+            List<List<Integer>> predecessors = new ArrayList<>();
+
+            for (int i = 0; i < count; i++){
+                predecessors.add(new ArrayList<>());
+            }
+
+            for (int i = 0; i < count; i++){
+                next[i] = follow.get(i).stream().toArray();
+
+                for (int successor : next[i]){
+                    predecessors.get(successor).add(i);
+                }
+
+                for (int j = 0; j < count; j++){
+                    overlap[i][j] = sets.get(i).intersects(sets.get(j));
+                }
+            }
+
+            BitSet[] reachable = new BitSet[count];
+
+            for (int i = 0; i < count; i++){
+                previous[i] = predecessors.get(i).stream().mapToInt(Integer::intValue).toArray();
+                reachable[i] = reachable(i, next);
+            }
+
+            BitSet[] reaching = new BitSet[count];
+
+            for (int p = 0; p < count; p++){
+                int first = innermostLoop(p);
+
+                if (first == -1 || !overlap[p][p]){
+                    continue;
+                }
+
+                BitSet reached = reach(p, count, next, overlap, component(p, reachable), true);
+
+                if (reached == null){
+                    return;
+                }
+
+                for (int q = 0; q < count; q++){
+                    int second = innermostLoop(q);
+
+                    if (q == p || second == -1 || second == first || !reached.get(p * count + q)){
+                        continue;
+                    }
+
+                    if (reaching[q] == null){
+                        reaching[q] = reach(q, count, previous, overlap, component(q, reachable), false);
+                    }
+
+                    if (reaching[q] == null){
+                        return;
+                    }
+
+                    if (reaching[q].get(p * count + q)){
+                        report(Finding.Kind.OVERLAPPING_QUANTIFIERS, loops.get(first),
+                                loops.get(first) + " and " + loops.get(second) + " may split the same text in polynomially many ways");
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return The innermost unbounded repetition around a {@code position}, unless it's possessive, or -1.
+         */
+        private int innermostLoop(int position){
+            int[] around = paths.get(position);
+
+            if (around.length == 0 || sets.get(position).isEmpty()){
+                return -1;
+            }
+
+            int loop = around[around.length - 1];
+            return loops.get(loop).getMode() == Repeat.Mode.POSSESSIVE ? -1 : loop;
+        }
+
+        private static BitSet reachable(int start, int[][] next){
+            BitSet visited = new BitSet();
+            int[] queue = new int[next.length + 1];
+            int size = 0;
+            queue[size++] = start;
+
+            for (int index = 0; index < size; index++){
+                for (int successor : next[queue[index]]){
+                    if (!visited.get(successor)){
+                        visited.set(successor);
+                        queue[size++] = successor;
+                    }
+                }
+            }
+
+            return visited;
+        }
+
+        /**
+         * @return The positions on a cycle with a {@code position}.
+         */
+        private static BitSet component(int position, BitSet[] reachable){
+            BitSet result = (BitSet) reachable[position].clone();
+
+            for (int other = result.nextSetBit(0); other >= 0; other = result.nextSetBit(other + 1)){
+                if (!reachable[other].get(position)){
+                    result.clear(other);
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * @return The pairs of positions reachable from the pair of a {@code position} with itself, or that reach it if
+         * not {@code forward}, or null if it takes too many steps. A pair may only be entered if its positions match a
+         * common char, and the position that stays, first forward and second backward, must be {@code within} its
+         * cycles.
+         */
+        private BitSet reach(int position, int count, int[][] edges, boolean[][] overlap, BitSet within,
+                             boolean forward){
+            int start = position * count + position;
+            BitSet visited = new BitSet(count * count);
+            int[] queue = new int[count * count];
+            int size = 0;
+            visited.set(start);
+            queue[size++] = start;
+
+            for (int index = 0; index < size; index++){
+                int node = queue[index];
+
+                if (!forward && !overlap[node / count][node % count]){
+                    continue;
+                }
+
+                for (int first : edges[node / count]){
+                    if (forward && !within.get(first)){
+                        continue;
+                    }
+
+                    for (int second : edges[node % count]){
+                        int successor = first * count + second;
+
+                        if (++steps > MAXIMUM_OVERLAP_STEPS){
+                            return null;
+                        }
+
+                        if (!forward && !within.get(second)){
+                            continue;
+                        }
+
+                        if ((!forward || overlap[first][second]) && !visited.get(successor)){
+                            visited.set(successor);
+                            queue[size++] = successor;
+                        }
+                    }
+                }
+            }
+
+            return visited;
+        }
+
+        private void reportExponential(Repeat repeat, boolean nested){
+            if (nested){
+                report(Finding.Kind.NESTED_QUANTIFIER, repeat,
+                        repeat + " repeats a quantifier that may match the same text in exponentially many ways");
+            } else {
+                report(Finding.Kind.AMBIGUOUS_ALTERNATION, repeat,
+                        repeat + " repeats alternatives that may match the same text in exponentially many ways");
+            }
+        }
+
+        private void report(Finding.Kind kind, RegexNode node, String description){
+            for (Finding finding : findings){
+                if (finding.node == node && finding.kind == kind){
+                    return;
+                }
+            }
+
+            findings.add(new Finding(kind, node, description));
+        }
+    }
+}
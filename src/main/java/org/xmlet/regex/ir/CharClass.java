@@ -0,0 +1,37 @@
+package org.xmlet.regex.ir;
+
+/**
+ * Matches a single char of a {@link CharSet}, such as {@code [a-z]}, {@code \d} or {@code .}.
+ */
+public final class CharClass extends RegexNode {
+
+    private final CharSet set;
+    private final String source;
+
+    /**
+     * @param set The chars matched.
+     * @param source The regex text of the class.
+     */
+    public CharClass(CharSet set, String source){
+        this.set = set;
+        this.source = source;
+    }
+
+    public CharSet getSet(){
+        return set;
+    }
+
+    public String getSource(){
+        return source;
+    }
+
+    @Override
+    public <R> R accept(RegexNodeVisitor<R> visitor) {
+        return visitor.visitCharClass(this);
+    }
+
+    @Override
+    public String toString() {
+        return "CharClass(" + source + ")";
+    }
+}
@@ -0,0 +1,278 @@
+package org.xmlet.regex.ir;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable set of chars, stored as sorted and disjoint ranges. Only the chars of the Basic Multilingual Plane that
+ * aren't surrogates are represented, since a surrogate never stands for a character on its own.
+ */
+public final class CharSet {
+
+    public static final CharSet EMPTY = new CharSet(new int[0]);
+
+    private static final int MAX_CHAR = Character.MAX_VALUE;
+
+    /**
+     * Two entries per range, its first and its last char.
+     */
+    private final int[] ranges;
+
+    private CharSet(int[] ranges){
+        this.ranges = ranges;
+    }
+
+    /**
+     * @param chars The members of the set.
+     * @return A set with the received chars.
+     */
+    public static CharSet of(char... chars){
+        Builder builder = new Builder();
+
+        for (char c : chars){
+            builder.add(c, c);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @param first The first char of the range.
+     * @param last The last char of the range, inclusive.
+     * @return A set with every char from {@code first} to {@code last}.
+     */
+    public static CharSet range(char first, char last){
+        return new Builder().add(first, last).build();
+    }
+
+    /**
+     * @param pattern A pattern that matches a single char, such as a character class.
+     * @return The chars matched by the {@code pattern} on their own.
+     */
+    public static CharSet matching(Pattern pattern){
+        Matcher matcher = pattern.matcher("");
+        char[] chars = new char[1];
+        CharBuffer buffer = CharBuffer.wrap(chars);
+
+        return matching(c -> {
+            chars[0] = (char) c;
+            return matcher.reset(buffer).matches();
+        });
+    }
+
+    /**
+     * @param predicate Tells if a char belongs to the set.
+     * @return A set with every char accepted by the {@code predicate}.
+     */
+    public static CharSet matching(IntPredicate predicate){
+        Builder builder = new Builder();
+
+        for (int c = 0; c <= MAX_CHAR; c++){
+            if (!Character.isSurrogate((char) c) && predicate.test(c)){
+                builder.add(c, c);
+            }
+        }
+
+        return builder.build();
+    }
+
+    public boolean contains(int c){
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+
+        while (low <= high){
+            int middle = (low + high) >>> 1;
+
+            if (c < ranges[middle * 2]){
+                high = middle - 1;
+            } else if (c > ranges[middle * 2 + 1]){
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public boolean isEmpty(){
+        return ranges.length == 0;
+    }
+
+    /**
+     * @return The number of chars in the set.
+     */
+    public int size(){
+        int size = 0;
+
+        for (int i = 0; i < ranges.length; i += 2){
+            size += ranges[i + 1] - ranges[i] + 1;
+        }
+
+        return size;
+    }
+
+    public int getRangeCount(){
+        return ranges.length / 2;
+    }
+
+    public char getRangeStart(int range){
+        return (char) ranges[range * 2];
+    }
+
+    public char getRangeEnd(int range){
+        return (char) ranges[range * 2 + 1];
+    }
+
+    public CharSet union(CharSet other){
+        Builder builder = new Builder();
+        builder.addAll(this);
+        builder.addAll(other);
+        return builder.build();
+    }
+
+    public CharSet intersection(CharSet other){
+        return complement().union(other.complement()).complement();
+    }
+
+    /**
+     * @return True if this set and the {@code other} have a char in common.
+     */
+    public boolean intersects(CharSet other){
+        int i = 0;
+        int j = 0;
+
+        while (i < ranges.length && j < other.ranges.length){
+            if (ranges[i + 1] < other.ranges[j]){
+                i += 2;
+            } else if (other.ranges[j + 1] < ranges[i]){
+                j += 2;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The chars that aren't surrogates and aren't in this set.
+     */
+    public CharSet complement(){
+        Builder builder = new Builder();
+        int next = 0;
+
+        for (int i = 0; i < ranges.length; i += 2){
+            if (ranges[i] > next){
+                builder.add(next, ranges[i] - 1);
+            }
+
+            next = ranges[i + 1] + 1;
+        }
+
+        if (next <= MAX_CHAR){
+            builder.add(next, MAX_CHAR);
+        }
+
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CharSet && Arrays.equals(ranges, ((CharSet) other).ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ranges);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+
+        for (int i = 0; i < ranges.length; i += 2){
+            appendChar(builder, ranges[i]);
+
+            if (ranges[i + 1] != ranges[i]){
+                builder.append('-');
+                appendChar(builder, ranges[i + 1]);
+            }
+        }
+
+        return builder.append(']').toString();
+    }
+
+    private static void appendChar(StringBuilder builder, int c){
+        if (c > ' ' && c < 127 && "[]\\-^&".indexOf(c) == -1){
+            builder.append((char) c);
+        } else {
+            builder.append(String.format("\\u%04X", c));
+        }
+    }
+
+    /**
+     * Collects ranges in any order, merging them when the set is built.
+     */
+    static final class Builder {
+
+        private int[] ranges = new int[16];
+        private int size;
+
+        Builder add(int first, int last){
+            if (first > last){
+                return this;
+            }
+
+            if (first <= Character.MAX_SURROGATE && last >= Character.MIN_SURROGATE){
+                add(first, Character.MIN_SURROGATE - 1);
+                return add(Character.MAX_SURROGATE + 1, last);
+            }
+
+            if (size == ranges.length){
+                ranges = Arrays.copyOf(ranges, size * 2);
+            }
+
+            ranges[size++] = first;
+            ranges[size++] = last;
+            return this;
+        }
+
+        Builder addAll(CharSet set){
+            for (int i = 0; i < set.ranges.length; i += 2){
+                add(set.ranges[i], set.ranges[i + 1]);
+            }
+
+            return this;
+        }
+
+        CharSet build(){
+            long[] sorted = new long[size / 2];
+
+            for (int i = 0; i < size; i += 2){
+                sorted[i / 2] = (long) ranges[i] << 32 | ranges[i + 1];
+            }
+
+            Arrays.sort(sorted);
+            int[] merged = new int[size];
+            int count = 0;
+
+            for (long range : sorted){
+                int first = (int) (range >>> 32);
+                int last = (int) range;
+
+                if (count > 0 && first <= merged[count - 1] + 1){
+                    merged[count - 1] = Math.max(merged[count - 1], last);
+                } else {
+                    merged[count++] = first;
+                    merged[count++] = last;
+                }
+            }
+
+            return new CharSet(Arrays.copyOf(merged, count));
+        }
+    }
+}
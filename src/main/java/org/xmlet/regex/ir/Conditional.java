@@ -0,0 +1,52 @@
+package org.xmlet.regex.ir;
+
+/**
+ * Matches one of two expressions depending on a condition, {@code (?(condition)then|else)}, as supported by jregex.
+ * The condition is either a group, which must have participated in the match, or a lookaround.
+ */
+public final class Conditional extends RegexNode {
+
+    private final String group;
+    private final RegexNode condition;
+    private final RegexNode then;
+    private final RegexNode otherwise;
+
+    /**
+     * @param group The name or number of the group tested, or null if the condition is a lookaround.
+     * @param condition The lookaround tested, or null if the condition is a group.
+     * @param then Matched when the condition holds.
+     * @param otherwise Matched when the condition doesn't hold.
+     */
+    public Conditional(String group, RegexNode condition, RegexNode then, RegexNode otherwise){
+        this.group = group;
+        this.condition = condition;
+        this.then = then;
+        this.otherwise = otherwise;
+    }
+
+    public String getGroup(){
+        return group;
+    }
+
+    public RegexNode getCondition(){
+        return condition;
+    }
+
+    public RegexNode getThen(){
+        return then;
+    }
+
+    public RegexNode getOtherwise(){
+        return otherwise;
+    }
+
+    @Override
+    public <R> R accept(RegexNodeVisitor<R> visitor) {
+        return visitor.visitConditional(this);
+    }
+
+    @Override
+    public String toString() {
+        return "Conditional(" + (group != null ? group : condition) + ", " + then + ", " + otherwise + ")";
+    }
+}
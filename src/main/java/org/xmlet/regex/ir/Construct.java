@@ -0,0 +1,26 @@
+package org.xmlet.regex.ir;
+
+/**
+ * The constructs of a regex that not every engine supports, as found in a {@link RegexTree}.
+ */
+public enum Construct {
+
+    /** A numbered or named group that records the bounds of its match. */
+    CAPTURING_GROUP,
+    /** A quantifier that prefers fewer repetitions, such as {@code x*?}. */
+    LAZY_QUANTIFIER,
+    /** A quantifier that never gives repetitions back, such as {@code x*+}. */
+    POSSESSIVE_QUANTIFIER,
+    /** A repetition of an expression that can match an empty String, such as {@code (a*)+}. */
+    EMPTY_REPETITION,
+    /** A group that never gives back what it matched, {@code (?>x)}. */
+    ATOMIC_GROUP,
+    /** A lookahead or lookbehind. */
+    LOOKAROUND,
+    /** A reference to the text matched by a group, such as {@code \1}. */
+    BACK_REFERENCE,
+    /** A jregex conditional, {@code (?(condition)then|else)}. */
+    CONDITIONAL,
+    /** The end of the previous match, {@code \G}. */
+    PREVIOUS_MATCH_END
+}
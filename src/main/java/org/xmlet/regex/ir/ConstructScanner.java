@@ -0,0 +1,116 @@
+package org.xmlet.regex.ir;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Collects the {@link Construct}s used by a tree. Each node returns whether it can match an empty String, which tells
+ * the repetitions that are an {@link Construct#EMPTY_REPETITION}.
+ */
+final class ConstructScanner implements RegexNodeVisitor<Boolean> {
+
+    private final Set<Construct> constructs = EnumSet.noneOf(Construct.class);
+
+    private ConstructScanner(){}
+
+    static Set<Construct> scan(RegexNode root){
+        ConstructScanner scanner = new ConstructScanner();
+        root.accept(scanner);
+        return scanner.constructs;
+    }
+
+    @Override
+    public Boolean visitLiteral(Literal literal) {
+        return literal.getValue().isEmpty();
+    }
+
+    @Override
+    public Boolean visitCharClass(CharClass charClass) {
+        return false;
+    }
+
+    @Override
+    public Boolean visitAnchor(Anchor anchor) {
+        if (anchor.getKind() == Anchor.Kind.PREVIOUS_MATCH_END){
+            constructs.add(Construct.PREVIOUS_MATCH_END);
+        }
+
+        return true;
+    }
+
+    @Override
+    public Boolean visitSequence(Sequence sequence) {
+        boolean empty = true;
+
+        for (RegexNode item : sequence.getItems()){
+            empty &= item.accept(this);
+        }
+
+        return empty;
+    }
+
+    @Override
+    public Boolean visitAlternation(Alternation alternation) {
+        boolean empty = false;
+
+        for (RegexNode alternative : alternation.getAlternatives()){
+            empty |= alternative.accept(this);
+        }
+
+        return empty;
+    }
+
+    @Override
+    public Boolean visitRepeat(Repeat repeat) {
+        boolean empty = repeat.getBody().accept(this);
+
+        if (empty && repeat.getMax() != 1){
+            constructs.add(Construct.EMPTY_REPETITION);
+        }
+
+        if (repeat.getMode() == Repeat.Mode.LAZY){
+            constructs.add(Construct.LAZY_QUANTIFIER);
+        } else if (repeat.getMode() == Repeat.Mode.POSSESSIVE){
+            constructs.add(Construct.POSSESSIVE_QUANTIFIER);
+        }
+
+        return empty || repeat.getMin() == 0;
+    }
+
+    @Override
+    public Boolean visitGroup(Group group) {
+        constructs.add(Construct.CAPTURING_GROUP);
+        return group.getBody().accept(this);
+    }
+
+    @Override
+    public Boolean visitLookAround(LookAround lookAround) {
+        constructs.add(Construct.LOOKAROUND);
+        lookAround.getBody().accept(this);
+        return true;
+    }
+
+    @Override
+    public Boolean visitAtomicGroup(AtomicGroup atomicGroup) {
+        constructs.add(Construct.ATOMIC_GROUP);
+        return atomicGroup.getBody().accept(this);
+    }
+
+    @Override
+    public Boolean visitBackReference(BackReference backReference) {
+        constructs.add(Construct.BACK_REFERENCE);
+        return true;
+    }
+
+    @Override
+    public Boolean visitConditional(Conditional conditional) {
+        constructs.add(Construct.CONDITIONAL);
+
+        if (conditional.getCondition() != null){
+            conditional.getCondition().accept(this);
+        }
+
+        boolean then = conditional.getThen().accept(this);
+        return conditional.getOtherwise().accept(this) || then;
+    }
+}
@@ -0,0 +1,278 @@
+package org.xmlet.regex.ir;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A static analysis of the matches of a regex: the minimum and maximum number of chars of a match, whether a match may
+ * contain a {@code '\n'}, and an estimate of the worst case cost of searching for the matches.
+ * <p>The lengths count the chars consumed, so lookarounds and anchors add nothing. A char class of more than one char
+ * may match a supplementary code point, which takes two chars. Backreferences may match any text.
+ * <p>The cost of a backtracking engine is estimated by the number of ways each node may match from a given position,
+ * as a power of the input length. A repetition of a variable count multiplies the ways of its body by the input
+ * length and a sequence multiplies the ways of its items. A regex is taken as exponential when its
+ * {@link BacktrackingAnalysis} finds a repetition that may match the same text in exponentially many ways, so
+ * unambiguous nested repetitions, such as {@code (?:\w+\s)*}, are polynomial.
+ */
+public final class CostAnalysis {
+
+    /**
+     * The maximum length of the regexes whose matches may be arbitrarily long.
+     */
+    public static final int UNBOUNDED = -1;
+
+    /**
+     * The degree of the regexes whose searches may take exponential time.
+     */
+    public static final int EXPONENTIAL = Integer.MAX_VALUE;
+
+    private static final Cost ZERO_WIDTH = new Cost(0, 0, false, 0, 1);
+    private static final Cost UNKNOWN = new Cost(0, Long.MAX_VALUE, true, 0, 1);
+
+    private final int minLength;
+    private final int maxLength;
+    private final boolean newLine;
+    private final int degree;
+    private final int size;
+
+    private CostAnalysis(Cost cost, boolean exponential){
+        this.minLength = (int) Math.min(cost.min, Integer.MAX_VALUE);
+        this.maxLength = cost.max > Integer.MAX_VALUE ? UNBOUNDED : (int) cost.max;
+        this.newLine = cost.newLine;
+        this.degree = exponential ? EXPONENTIAL : cost.degree;
+        this.size = cost.size;
+    }
+
+    /**
+     * @param tree The regex to analyze.
+     * @return The analysis of the regex.
+     */
+    public static CostAnalysis of(RegexTree tree){
+        Cost cost = tree.getRoot().accept(new Estimator());
+        return new CostAnalysis(cost, BacktrackingAnalysis.of(tree).isExponential());
+    }
+
+    /**
+     * @return The minimum number of chars of a match. Inputs shorter than it have no match.
+     */
+    public int getMinLength(){
+        return minLength;
+    }
+
+    /**
+     * @return The maximum number of chars of a match, or {@link #UNBOUNDED}.
+     */
+    public int getMaxLength(){
+        return maxLength;
+    }
+
+    /**
+     * @return True if a match may be empty.
+     */
+    public boolean canMatchEmpty(){
+        return minLength == 0;
+    }
+
+    /**
+     * @return False if no match can contain a {@code '\n'}.
+     */
+    public boolean matchesNewLine(){
+        return newLine;
+    }
+
+    /**
+     * @return The power of the input length that bounds the ways a backtracking engine may match the regex from a
+     * single position, or {@link #EXPONENTIAL}.
+     */
+    public int getDegree(){
+        return degree;
+    }
+
+    /**
+     * @return True if a backtracking engine may take exponential time to search for the matches.
+     */
+    public boolean isExponential(){
+        return degree == EXPONENTIAL;
+    }
+
+    /**
+     * @return The number of nodes of the regex.
+     */
+    public int getSize(){
+        return size;
+    }
+
+    /**
+     * Estimates the steps of a search in an input, which are the size of the regex times the ways it may match from
+     * each position of the input. Searches that take linear time try each node at most once per position.
+     * @param inputLength The length of the input searched.
+     * @param linear True if the search takes linear time, as the ones of the automata engines do.
+     * @return The estimated number of steps, or {@link Long#MAX_VALUE} if it's larger.
+     */
+    public long estimateSteps(int inputLength, boolean linear){
+        long positions = inputLength + 1L;
+
+        if (linear){
+            return multiply(size, positions);
+        }
+
+        if (degree == EXPONENTIAL){
+            if (inputLength >= Long.SIZE - 1){
+                return Long.MAX_VALUE;
+            }
+
+            return multiply(size, multiply(positions, 1L << inputLength));
+        }
+
+        long result = multiply(size, positions);
+
+        for (int power = 0; power < degree && result != Long.MAX_VALUE; power++){
+            result = multiply(result, positions);
+        }
+
+        return result;
+    }
+
+    private static long add(long first, long second){
+        return first > Long.MAX_VALUE - second ? Long.MAX_VALUE : first + second;
+    }
+
+    private static long multiply(long first, long second){
+        return second != 0 && first > Long.MAX_VALUE / second ? Long.MAX_VALUE : first * second;
+    }
+
+    private static int addDegrees(int first, int second){
+        return first > EXPONENTIAL - second ? EXPONENTIAL : first + second;
+    }
+
+    private static int multiplyDegree(int degree, long count){
+        return degree != 0 && count > EXPONENTIAL / degree ? EXPONENTIAL : (int) (degree * count);
+    }
+
+    /**
+     * Computes the cost of each node from the cost of its children.
+     */
+    private static final class Estimator implements RegexNodeVisitor<Cost> {
+
+        @Override
+        public Cost visitLiteral(Literal literal) {
+            String value = literal.getValue();
+            return new Cost(value.length(), value.length(), value.indexOf('\n') != -1, 0, 1);
+        }
+
+        @Override
+        public Cost visitCharClass(CharClass charClass) {
+            CharSet set = charClass.getSet();
+            return new Cost(1, set.size() == 1 ? 1 : 2, set.contains('\n'), 0, 1);
+        }
+
+        @Override
+        public Cost visitAnchor(Anchor anchor) {
+            return ZERO_WIDTH;
+        }
+
+        @Override
+        public Cost visitSequence(Sequence sequence) {
+            Cost result = new Cost(0, 0, false, 0, 1);
+
+            for (RegexNode item : sequence.getItems()){
+                Cost cost = item.accept(this);
+                result = new Cost(add(result.min, cost.min), add(result.max, cost.max), result.newLine || cost.newLine,
+                        addDegrees(result.degree, cost.degree), result.size + cost.size);
+            }
+
+            return result;
+        }
+
+        @Override
+        public Cost visitAlternation(Alternation alternation) {
+            return alternatives(alternation.getAlternatives());
+        }
+
+        @Override
+        public Cost visitRepeat(Repeat repeat) {
+            Cost body = repeat.getBody().accept(this);
+            long max = repeat.getMax() == Repeat.UNBOUNDED ? Long.MAX_VALUE : repeat.getMax();
+            long maxLength = body.max == 0 ? 0 : max == Long.MAX_VALUE ? Long.MAX_VALUE : multiply(body.max, max);
+            int degree = addDegrees(multiplyDegree(body.degree, max == Long.MAX_VALUE ? 1 : max),
+                    repeat.getMin() == max ? 0 : 1);
+
+            return new Cost(multiply(body.min, repeat.getMin()), maxLength, body.newLine, degree, body.size + 1);
+        }
+
+        @Override
+        public Cost visitGroup(Group group) {
+            Cost body = group.getBody().accept(this);
+            return new Cost(body.min, body.max, body.newLine, body.degree, body.size + 1);
+        }
+
+        @Override
+        public Cost visitLookAround(LookAround lookAround) {
+            Cost body = lookAround.getBody().accept(this);
+            return new Cost(0, 0, false, body.degree, body.size + 1);
+        }
+
+        @Override
+        public Cost visitAtomicGroup(AtomicGroup atomicGroup) {
+            Cost body = atomicGroup.getBody().accept(this);
+            return new Cost(body.min, body.max, body.newLine, body.degree, body.size + 1);
+        }
+
+        @Override
+        public Cost visitBackReference(BackReference backReference) {
+            return UNKNOWN;
+        }
+
+        @Override
+        public Cost visitConditional(Conditional conditional) {
+            Cost result = alternatives(Arrays.asList(conditional.getThen(), conditional.getOtherwise()));
+
+            if (conditional.getCondition() == null){
+                return result;
+            }
+
+            Cost condition = conditional.getCondition().accept(this);
+            return new Cost(result.min, result.max, result.newLine, addDegrees(result.degree, condition.degree),
+                    result.size + condition.size);
+        }
+
+        private Cost alternatives(List<RegexNode> alternatives){
+            Cost result = null;
+
+            for (RegexNode alternative : alternatives){
+                Cost cost = alternative.accept(this);
+
+                if (result == null){
+                    result = new Cost(cost.min, cost.max, cost.newLine, cost.degree, cost.size + 1);
+                } else {
+                    result = new Cost(Math.min(result.min, cost.min), Math.max(result.max, cost.max),
+                            result.newLine || cost.newLine, Math.max(result.degree, cost.degree),
+                            result.size + cost.size);
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * The cost of a node, where {@code min} and {@code max} are the chars it may consume, {@code degree} the power of
+     * the input length that bounds the ways it may match, and {@code size} is its number of nodes.
+     */
+    private static final class Cost {
+
+        private final long min;
+        private final long max;
+        private final boolean newLine;
+        private final int degree;
+        private final int size;
+
+        private Cost(long min, long max, boolean newLine, int degree, int size){
+            this.min = min;
+            this.max = max;
+            this.newLine = newLine;
+            this.degree = degree;
+            this.size = size;
+        }
+    }
+}
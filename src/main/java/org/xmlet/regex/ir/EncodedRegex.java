@@ -0,0 +1,296 @@
+package org.xmlet.regex.ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact encoding of a {@link RegexTree}: the nodes are written in prefix order into a single {@code int} array,
+ * each one as its type followed by its numeric fields and then by its children, while the Strings and char classes
+ * are kept in a table of constants. Keeping a tree this way takes two arrays instead of an object per node, and
+ * encodings compare by structure, so regexes written differently that parse to the same tree, such as {@code (?:ab)}
+ * and {@code ab}, are equal.
+ */
+public final class EncodedRegex {
+
+    private static final int LITERAL = 0;
+    private static final int CHAR_CLASS = 1;
+    private static final int ANCHOR = 2;
+    private static final int SEQUENCE = 3;
+    private static final int ALTERNATION = 4;
+    private static final int REPEAT = 5;
+    private static final int GROUP = 6;
+    private static final int LOOK_AROUND = 7;
+    private static final int ATOMIC_GROUP = 8;
+    private static final int BACK_REFERENCE = 9;
+    private static final int CONDITIONAL = 10;
+
+    private static final int AHEAD = 1;
+    private static final int NEGATIVE = 2;
+    private static final int NONE = -1;
+
+    private final String source;
+    private final int groupCount;
+    private final Map<String, Integer> groupNames;
+    private final int[] code;
+    private final Object[] constants;
+
+    private EncodedRegex(RegexTree tree, int[] code, Object[] constants){
+        this.source = tree.getSource();
+        this.groupCount = tree.getGroupCount();
+        this.groupNames = tree.getGroupNames();
+        this.code = code;
+        this.constants = constants;
+    }
+
+    /**
+     * @param tree The tree to encode.
+     * @return The encoding of the {@code tree}.
+     */
+    static EncodedRegex encode(RegexTree tree){
+        Encoder encoder = new Encoder();
+        tree.getRoot().accept(encoder);
+        return new EncodedRegex(tree, Arrays.copyOf(encoder.code, encoder.size), encoder.constants.toArray());
+    }
+
+    /**
+     * @return The tree this encoding stands for. The {@link CharClass} nodes and the Strings are shared with the
+     * encoded tree.
+     */
+    public RegexTree decode(){
+        return new RegexTree(source, new Decoder().node(), groupCount, groupNames);
+    }
+
+    /**
+     * @return The number of {@code int} values of the encoding.
+     */
+    public int size(){
+        return code.length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof EncodedRegex)){
+            return false;
+        }
+
+        EncodedRegex encoded = (EncodedRegex) other;
+
+        if (!Arrays.equals(code, encoded.code) || constants.length != encoded.constants.length){
+            return false;
+        }
+
+        for (int i = 0; i < constants.length; i++){
+            if (!constantValue(constants[i]).equals(constantValue(encoded.constants[i]))){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Arrays.hashCode(code);
+
+        for (Object constant : constants){
+            hash = hash * 31 + constantValue(constant).hashCode();
+        }
+
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(code) + " " + Arrays.toString(constants);
+    }
+
+    /**
+     * @return What a constant is compared by, the String itself or the chars of a class.
+     */
+    private static Object constantValue(Object constant){
+        return constant instanceof CharClass ? ((CharClass) constant).getSet() : constant;
+    }
+
+    /**
+     * Writes the nodes in prefix order.
+     */
+    private static final class Encoder implements RegexNodeVisitor<Void> {
+
+        private final List<Object> constants = new ArrayList<>();
+        private int[] code = new int[16];
+        private int size;
+
+        @Override
+        public Void visitLiteral(Literal literal) {
+            write(LITERAL);
+            write(constant(literal.getValue()));
+            return null;
+        }
+
+        @Override
+        public Void visitCharClass(CharClass charClass) {
+            write(CHAR_CLASS);
+            write(constant(charClass));
+            return null;
+        }
+
+        @Override
+        public Void visitAnchor(Anchor anchor) {
+            write(ANCHOR);
+            write(anchor.getKind().ordinal());
+            return null;
+        }
+
+        @Override
+        public Void visitSequence(Sequence sequence) {
+            write(SEQUENCE);
+            write(sequence.getItems().size());
+
+            for (RegexNode item : sequence.getItems()){
+                item.accept(this);
+            }
+
+            return null;
+        }
+
+        @Override
+        public Void visitAlternation(Alternation alternation) {
+            write(ALTERNATION);
+            write(alternation.getAlternatives().size());
+
+            for (RegexNode alternative : alternation.getAlternatives()){
+                alternative.accept(this);
+            }
+
+            return null;
+        }
+
+        @Override
+        public Void visitRepeat(Repeat repeat) {
+            write(REPEAT);
+            write(repeat.getMin());
+            write(repeat.getMax());
+            write(repeat.getMode().ordinal());
+            return repeat.getBody().accept(this);
+        }
+
+        @Override
+        public Void visitGroup(Group group) {
+            write(GROUP);
+            write(group.getNumber());
+            write(group.getName() == null ? NONE : constant(group.getName()));
+            return group.getBody().accept(this);
+        }
+
+        @Override
+        public Void visitLookAround(LookAround lookAround) {
+            write(LOOK_AROUND);
+            write((lookAround.isAhead() ? AHEAD : 0) | (lookAround.isNegative() ? NEGATIVE : 0));
+            return lookAround.getBody().accept(this);
+        }
+
+        @Override
+        public Void visitAtomicGroup(AtomicGroup atomicGroup) {
+            write(ATOMIC_GROUP);
+            return atomicGroup.getBody().accept(this);
+        }
+
+        @Override
+        public Void visitBackReference(BackReference backReference) {
+            write(BACK_REFERENCE);
+            write(backReference.getNumber());
+            write(backReference.getName() == null ? NONE : constant(backReference.getName()));
+            return null;
+        }
+
+        @Override
+        public Void visitConditional(Conditional conditional) {
+            write(CONDITIONAL);
+            write(conditional.getGroup() == null ? NONE : constant(conditional.getGroup()));
+            write(conditional.getCondition() == null ? 0 : 1);
+
+            if (conditional.getCondition() != null){
+                conditional.getCondition().accept(this);
+            }
+
+            conditional.getThen().accept(this);
+            return conditional.getOtherwise().accept(this);
+        }
+
+        private int constant(Object value){
+            constants.add(value);
+            return constants.size() - 1;
+        }
+
+        private void write(int value){
+            if (size == code.length){
+                code = Arrays.copyOf(code, size * 2);
+            }
+
+            code[size++] = value;
+        }
+    }
+
+    /**
+     * Reads the nodes back in the order they were written.
+     */
+    private final class Decoder {
+
+        private int position;
+
+        RegexNode node(){
+            switch (code[position++]){
+                case LITERAL:
+                    return new Literal((String) constants[code[position++]]);
+                case CHAR_CLASS:
+                    return (CharClass) constants[code[position++]];
+                case ANCHOR:
+                    return new Anchor(Anchor.Kind.values()[code[position++]]);
+                case SEQUENCE:
+                    return new Sequence(nodes(code[position++]));
+                case ALTERNATION:
+                    return new Alternation(nodes(code[position++]));
+                case REPEAT:
+                    int min = code[position++];
+                    int max = code[position++];
+                    Repeat.Mode mode = Repeat.Mode.values()[code[position++]];
+                    return new Repeat(node(), min, max, mode);
+                case GROUP:
+                    int number = code[position++];
+                    String name = string(code[position++]);
+                    return new Group(node(), number, name);
+                case LOOK_AROUND:
+                    int flags = code[position++];
+                    return new LookAround(node(), (flags & AHEAD) != 0, (flags & NEGATIVE) != 0);
+                case ATOMIC_GROUP:
+                    return new AtomicGroup(node());
+                case BACK_REFERENCE:
+                    int reference = code[position++];
+                    return new BackReference(reference, string(code[position++]));
+                case CONDITIONAL:
+                    String group = string(code[position++]);
+                    RegexNode condition = code[position++] == 0 ? null : node();
+                    RegexNode then = node();
+                    return new Conditional(group, condition, then, node());
+                default:
+                    throw new IllegalStateException("Unknown node type " + code[position - 1]);
+            }
+        }
+
+        private List<RegexNode> nodes(int count){
+            List<RegexNode> nodes = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++){
+                nodes.add(node());
+            }
+
+            return nodes;
+        }
+
+        private String string(int constant){
+            return constant == NONE ? null : (String) constants[constant];
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.xmlet.regex.ir;
+
+/**
+ * A capturing group, numbered by the position of its opening parenthesis. Non capturing groups have no node of their
+ * own, they're replaced by their body.
+ */
+public final class Group extends RegexNode {
+
+    private final RegexNode body;
+    private final int number;
+    private final String name;
+
+    /**
+     * @param body The content of the group.
+     * @param number The group number, starting at 1.
+     * @param name The group name, or null.
+     */
+    public Group(RegexNode body, int number, String name){
+        this.body = body;
+        this.number = number;
+        this.name = name;
+    }
+
+    public RegexNode getBody(){
+        return body;
+    }
+
+    public int getNumber(){
+        return number;
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    @Override
+    public <R> R accept(RegexNodeVisitor<R> visitor) {
+        return visitor.visitGroup(this);
+    }
+
+    @Override
+    public String toString() {
+        return "Group(" + number + (name == null ? "" : " " + name) + ", " + body + ")";
+    }
+}
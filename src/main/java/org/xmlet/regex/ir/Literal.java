@@ -0,0 +1,27 @@
+package org.xmlet.regex.ir;
+
+/**
+ * Matches a fixed sequence of chars, compared exactly.
+ */
+public final class Literal extends RegexNode {
+
+    private final String value;
+
+    public Literal(String value){
+        this.value = value;
+    }
+
+    public String getValue(){
+        return value;
+    }
+
+    @Override
+    public <R> R accept(RegexNodeVisitor<R> visitor) {
+        return visitor.visitLiteral(this);
+    }
+
+    @Override
+    public String toString() {
+        return "Literal(" + value + ")";
+    }
+}
@@ -0,0 +1,252 @@
+package org.xmlet.regex.ir;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The literal text that every match of a regex must have: the prefix every match starts with, the suffix every match
+ * ends with and the longest String every match contains. Empty Strings stand for no such text.
+ * <p>Only chars matched exactly are taken into account, so case insensitive letters end the literals. Anchors and
+ * lookarounds match no chars, so they don't.
+ * <p>A regex made only of literal chars is itself a literal, which {@link #getLiteral()} returns.
+ */
+public final class LiteralAnalysis {
+
+    /**
+     * The repetitions of a literal are only expanded up to this length.
+     */
+    private static final int MAXIMUM_LENGTH = 256;
+
+    private static final Info UNKNOWN = new Info(null, "", "", "", false);
+    private static final Info EMPTY = new Info("", "", "", "", false);
+    private static final Info ASSERTION = new Info("", "", "", "", true);
+
+    private final String prefix;
+    private final String suffix;
+    private final String required;
+    private final String literal;
+
+    private LiteralAnalysis(Info info){
+        this.prefix = info.prefix;
+        this.suffix = info.suffix;
+        this.required = info.required;
+        this.literal = info.asserts ? null : info.exact;
+    }
+
+    /**
+     * @param tree The regex to analyze.
+     * @return The literals of the regex.
+     */
+    public static LiteralAnalysis of(RegexTree tree){
+        return new LiteralAnalysis(tree.getRoot().accept(new Collector()));
+    }
+
+    /**
+     * @return The text every match starts with.
+     */
+    public String getPrefix(){
+        return prefix;
+    }
+
+    /**
+     * @return The text every match ends with.
+     */
+    public String getSuffix(){
+        return suffix;
+    }
+
+    /**
+     * @return The longest text known to be part of every match.
+     */
+    public String getRequired(){
+        return required;
+    }
+
+    /**
+     * @return The only text the regex matches, wherever it is, or null if it matches other texts or has anchors or
+     * lookarounds.
+     */
+    public String getLiteral(){
+        return literal;
+    }
+
+    private static Info concat(Info left, Info right){
+        String exact = left.exact != null && right.exact != null ? left.exact + right.exact : null;
+        String prefix = left.exact != null ? left.exact + right.prefix : left.prefix;
+        String suffix = right.exact != null ? left.suffix + right.exact : right.suffix;
+        String required = longest(longest(left.required, right.required), left.suffix + right.prefix);
+        boolean asserts = left.asserts || right.asserts;
+        return new Info(exact, prefix, suffix, longest(required, longest(prefix, suffix)), asserts);
+    }
+
+    private static String longest(String first, String second){
+        return second.length() > first.length() ? second : first;
+    }
+
+    private static String commonPrefix(String first, String second){
+        int length = 0;
+
+        while (length < first.length() && length < second.length() && first.charAt(length) == second.charAt(length)){
+            length++;
+        }
+
+        return first.substring(0, length);
+    }
+
+    private static String commonSuffix(String first, String second){
+        int length = 0;
+
+        while (length < first.length() && length < second.length()
+                && first.charAt(first.length() - 1 - length) == second.charAt(second.length() - 1 - length)){
+            length++;
+        }
+
+        return first.substring(first.length() - length);
+    }
+
+    /**
+     * Computes the literals of each node from the literals of its children.
+     */
+    private static final class Collector implements RegexNodeVisitor<Info> {
+
+        @Override
+        public Info visitLiteral(Literal literal) {
+            String value = literal.getValue();
+            return new Info(value, value, value, value, false);
+        }
+
+        @Override
+        public Info visitCharClass(CharClass charClass) {
+            CharSet set = charClass.getSet();
+
+            if (set.size() == 1){
+                String value = String.valueOf(set.getRangeStart(0));
+                return new Info(value, value, value, value, false);
+            }
+
+            return UNKNOWN;
+        }
+
+        @Override
+        public Info visitAnchor(Anchor anchor) {
+            return ASSERTION;
+        }
+
+        @Override
+        public Info visitSequence(Sequence sequence) {
+            Info result = EMPTY;
+
+            for (RegexNode item : sequence.getItems()){
+                result = concat(result, item.accept(this));
+            }
+
+            return result;
+        }
+
+        @Override
+        public Info visitAlternation(Alternation alternation) {
+            return alternatives(alternation.getAlternatives());
+        }
+
+        @Override
+        public Info visitRepeat(Repeat repeat) {
+            Info body = repeat.getBody().accept(this);
+
+            if (repeat.getMax() == 0){
+                return EMPTY;
+            }
+
+            if (repeat.getMin() == 0){
+                return UNKNOWN;
+            }
+
+            Info result = body;
+            int count = 1;
+
+            while (count < repeat.getMin() && result.exact != null && result.exact.length() < MAXIMUM_LENGTH){
+                result = concat(result, body);
+                count++;
+            }
+
+            if (result.exact != null && (count < repeat.getMin() || repeat.getMin() != repeat.getMax())){
+                result = new Info(null, result.prefix, result.suffix, result.required, result.asserts);
+            }
+
+            return result;
+        }
+
+        @Override
+        public Info visitGroup(Group group) {
+            return group.getBody().accept(this);
+        }
+
+        @Override
+        public Info visitLookAround(LookAround lookAround) {
+            return ASSERTION;
+        }
+
+        @Override
+        public Info visitAtomicGroup(AtomicGroup atomicGroup) {
+            return atomicGroup.getBody().accept(this);
+        }
+
+        @Override
+        public Info visitBackReference(BackReference backReference) {
+            return UNKNOWN;
+        }
+
+        @Override
+        public Info visitConditional(Conditional conditional) {
+            return alternatives(Arrays.asList(conditional.getThen(), conditional.getOtherwise()));
+        }
+
+        private Info alternatives(List<RegexNode> alternatives){
+            Info first = alternatives.get(0).accept(this);
+            String exact = first.exact;
+            String prefix = first.prefix;
+            String suffix = first.suffix;
+            String required = first.required;
+            boolean asserts = first.asserts;
+
+            for (int i = 1; i < alternatives.size(); i++){
+                Info info = alternatives.get(i).accept(this);
+
+                if (exact != null && !exact.equals(info.exact)){
+                    exact = null;
+                }
+
+                prefix = commonPrefix(prefix, info.prefix);
+                suffix = commonSuffix(suffix, info.suffix);
+
+                if (!required.equals(info.required)){
+                    required = "";
+                }
+
+                asserts |= info.asserts;
+            }
+
+            return new Info(exact, prefix, suffix, longest(required, longest(prefix, suffix)), asserts);
+        }
+    }
+
+    /**
+     * The literals of a node, where {@code exact} is the only String the node matches, or null, and {@code asserts}
+     * tells if the node has anchors or lookarounds.
+     */
+    private static final class Info {
+
+        private final String exact;
+        private final String prefix;
+        private final String suffix;
+        private final String required;
+        private final boolean asserts;
+
+        private Info(String exact, String prefix, String suffix, String required, boolean asserts){
+            this.exact = exact;
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.required = required;
+            this.asserts = asserts;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.xmlet.regex.ir;
+
+/**
+ * Matches an empty String where its body does, or doesn't, match right after or right before the current position.
+ */
+public final class LookAround extends RegexNode {
+
+    private final RegexNode body;
+    private final boolean ahead;
+    private final boolean negative;
+
+    /**
+     * @param body The expression looked for.
+     * @param ahead True for a lookahead, false for a lookbehind.
+     * @param negative True if the body must not match.
+     */
+    public LookAround(RegexNode body, boolean ahead, boolean negative){
+        this.body = body;
+        this.ahead = ahead;
+        this.negative = negative;
+    }
+
+    public RegexNode getBody(){
+        return body;
+    }
+
+    public boolean isAhead(){
+        return ahead;
+    }
+
+    public boolean isNegative(){
+        return negative;
+    }
+
+    @Override
+    public <R> R accept(RegexNodeVisitor<R> visitor) {
+        return visitor.visitLookAround(this);
+    }
+
+    @Override
+    public String toString() {
+        return "LookAround(" + (ahead ? "ahead" : "behind") + (negative ? " negative, " : ", ") + body + ")";
+    }
+}
@@ -0,0 +1,13 @@
+package org.xmlet.regex.ir;
+
+/**
+ * A node of the typed intermediate representation of a regex. Nodes are immutable, so a tree can be shared and
+ * analyzed from any thread. The set of node types is closed, and {@link RegexNodeVisitor} is the way to tell them
+ * apart.
+ */
+public abstract class RegexNode {
+
+    RegexNode(){}
+
+    public abstract <R> R accept(RegexNodeVisitor<R> visitor);
+}
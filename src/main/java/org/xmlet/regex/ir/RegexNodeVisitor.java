@@ -0,0 +1,30 @@
+package org.xmlet.regex.ir;
+
+/**
+ * Visits each type of {@link RegexNode}.
+ * @param <R> The result of visiting a node.
+ */
+public interface RegexNodeVisitor<R> {
+
+    R visitLiteral(Literal literal);
+
+    R visitCharClass(CharClass charClass);
+
+    R visitAnchor(Anchor anchor);
+
+    R visitSequence(Sequence sequence);
+
+    R visitAlternation(Alternation alternation);
+
+    R visitRepeat(Repeat repeat);
+
+    R visitGroup(Group group);
+
+    R visitLookAround(LookAround lookAround);
+
+    R visitAtomicGroup(AtomicGroup atomicGroup);
+
+    R visitBackReference(BackReference backReference);
+
+    R visitConditional(Conditional conditional);
+}
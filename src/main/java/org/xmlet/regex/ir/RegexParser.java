@@ -0,0 +1,755 @@
+package org.xmlet.regex.ir;
+
+import org.xmlet.regex.PatternCache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Parses a regex in the {@link Pattern} syntax, which is what {@link org.xmlet.regex.visitor.RegexVisitor} produces,
+ * into a {@link RegexTree}. The conditionals of jregex, {@code (?(condition)then|else)}, and its named groups,
+ * {@code ({name}x)}, are parsed as well.
+ * <p>Character classes and escapes such as {@code \d} or {@code \p{Lu}} aren't interpreted by the parser. Their text
+ * is compiled by {@link Pattern} and their {@link CharSet} is made of the chars it matches, so they have exactly the
+ * meaning {@link Pattern} gives them. The sets are kept by the {@link PatternCache}, so each one is only computed once
+ * while it stays in the cache.
+ * <p>Syntax errors throw a {@link PatternSyntaxException}. The few constructs without a node, such as {@code \X} or the
+ * {@code d} flag, throw an {@link UnsupportedOperationException}.
+ */
+public final class RegexParser {
+
+    private static final int CLASS_FLAGS =
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS | Pattern.COMMENTS;
+    private static final CharSet LINE_TERMINATORS = CharSet.of('\n', '\r', '\u0085', '\u2028', '\u2029');
+    private static final CharSet ANY_CHAR = CharSet.EMPTY.complement();
+    private static final CharSet NOT_LINE_TERMINATOR = LINE_TERMINATORS.complement();
+
+    private final String regex;
+    private final Map<String, Integer> groupNames = new LinkedHashMap<>();
+    private int pos;
+    private int flags;
+    private int groupCount;
+
+    private RegexParser(String regex){
+        this.regex = regex;
+    }
+
+    /**
+     * @param regex A regex in the {@link Pattern} syntax.
+     * @return The intermediate representation of the regex.
+     * @throws PatternSyntaxException If the regex isn't valid.
+     * @throws UnsupportedOperationException If the regex uses a construct that has no node.
+     */
+    public static RegexTree parse(String regex){
+        RegexParser parser = new RegexParser(regex);
+        RegexNode root = parser.alternation();
+
+        if (parser.pos < regex.length()){
+            throw parser.error("Unmatched closing ')'", parser.pos);
+        }
+
+        return new RegexTree(regex, root, parser.groupCount, parser.groupNames);
+    }
+
+    private RegexNode alternation(){
+        List<RegexNode> alternatives = new ArrayList<>();
+        alternatives.add(sequence());
+
+        while (more() && peek() == '|'){
+            pos++;
+            alternatives.add(sequence());
+        }
+
+        return alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+    }
+
+    private RegexNode sequence(){
+        List<RegexNode> items = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        // The chars of the literal that a quantifier after the last atom repeats, -1 if the last atom is the last item
+        // or 0 if there's nothing to repeat.
+        int repeatable = 0;
+
+        while (true){
+            skipComments();
+
+            if (!more() || peek() == '|' || peek() == ')'){
+                break;
+            }
+
+            boolean group = peek() == '(';
+            RegexNode atom = atom();
+
+            if (atom == null){
+                repeatable = 0;
+                continue;
+            }
+
+            skipComments();
+
+            if (!group && atom instanceof Literal && ((Literal) atom).getValue().isEmpty()){
+                // An empty quote, \Q\E, isn't an atom, so a quantifier after it repeats the atom before it.
+                if (!more() || !isQuantifier(peek())){
+                    continue;
+                }
+
+                if (repeatable == 0){
+                    throw error("Dangling meta character '" + peek() + "'", pos);
+                }
+
+                group = true;
+                atom = repeatable == -1 ? items.remove(items.size() - 1)
+                                        : new Literal(literal.substring(literal.length() - repeatable));
+                literal.setLength(repeatable == -1 ? literal.length() : literal.length() - repeatable);
+            }
+
+            if (more() && isQuantifier(peek())){
+                if (atom instanceof Literal){
+                    String value = ((Literal) atom).getValue();
+                    int last = group ? 0 : value.length() - Character.charCount(value.codePointBefore(value.length()));
+                    literal.append(value, 0, last);
+                    atom = new Literal(value.substring(last));
+                }
+
+                atom = quantifier(atom);
+                repeatable = 0;
+            } else if (atom instanceof Literal){
+                String value = ((Literal) atom).getValue();
+                repeatable = group ? value.length() : Character.charCount(value.codePointBefore(value.length()));
+            } else {
+                repeatable = -1;
+            }
+
+            if (atom instanceof Literal){
+                literal.append(((Literal) atom).getValue());
+            } else {
+                flushLiteral(items, literal);
+                items.add(atom);
+            }
+        }
+
+        flushLiteral(items, literal);
+        return items.size() == 1 ? items.get(0) : new Sequence(items);
+    }
+
+    private static void flushLiteral(List<RegexNode> items, StringBuilder literal){
+        if (literal.length() > 0){
+            items.add(new Literal(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    private static boolean isQuantifier(char c){
+        return c == '*' || c == '+' || c == '?' || c == '{';
+    }
+
+    private RegexNode quantifier(RegexNode atom){
+        int start = pos;
+        char c = regex.charAt(pos++);
+        int min;
+        int max;
+
+        if (c == '*'){
+            min = 0;
+            max = Repeat.UNBOUNDED;
+        } else if (c == '+'){
+            min = 1;
+            max = Repeat.UNBOUNDED;
+        } else if (c == '?'){
+            min = 0;
+            max = 1;
+        } else {
+            min = number(start);
+            max = min;
+
+            if (more() && peek() == ','){
+                pos++;
+                max = more() && peek() == '}' ? Repeat.UNBOUNDED : number(start);
+            }
+
+            if (!more() || regex.charAt(pos++) != '}'){
+                throw error("Unclosed counted closure", pos);
+            }
+
+            if (max != Repeat.UNBOUNDED && max < min){
+                throw error("Illegal repetition range", start);
+            }
+        }
+
+        Repeat.Mode mode = Repeat.Mode.GREEDY;
+
+        if (more() && peek() == '?'){
+            pos++;
+            mode = Repeat.Mode.LAZY;
+        } else if (more() && peek() == '+'){
+            pos++;
+            mode = Repeat.Mode.POSSESSIVE;
+        }
+
+        return new Repeat(atom, min, max, mode);
+    }
+
+    private int number(int start){
+        int begin = pos;
+
+        while (more() && peek() >= '0' && peek() <= '9'){
+            pos++;
+        }
+
+        if (begin == pos){
+            throw error("Illegal repetition", start);
+        }
+
+        try {
+            return Integer.parseInt(regex.substring(begin, pos));
+        } catch (NumberFormatException e){
+            throw error("Illegal repetition range", start);
+        }
+    }
+
+    private RegexNode atom(){
+        char c = regex.charAt(pos++);
+
+        switch (c){
+            case '(':
+                return group();
+            case '[':
+                return charClass(pos - 1);
+            case '.':
+                return new CharClass(has(Pattern.DOTALL) ? ANY_CHAR : NOT_LINE_TERMINATOR, ".");
+            case '^':
+                return new Anchor(has(Pattern.MULTILINE) ? Anchor.Kind.LINE_BEGIN : Anchor.Kind.INPUT_BEGIN);
+            case '$':
+                return new Anchor(has(Pattern.MULTILINE) ? Anchor.Kind.LINE_END : Anchor.Kind.INPUT_END_OR_FINAL_TERMINATOR);
+            case '\\':
+                return escape();
+            case '*':
+            case '+':
+            case '?':
+                throw error("Dangling meta character '" + c + "'", pos - 1);
+            case '{':
+                throw error("Illegal repetition", pos - 1);
+            default:
+                pos--;
+                int codePoint = regex.codePointAt(pos);
+                pos += Character.charCount(codePoint);
+                return literal(codePoint);
+        }
+    }
+
+    private RegexNode group(){
+        if (more() && peek() == '{'){
+            pos++;
+            return namedGroup(groupName('}'));
+        }
+
+        if (!more() || peek() != '?'){
+            int number = ++groupCount;
+            return new Group(groupBody(), number, null);
+        }
+
+        pos++;
+
+        if (!more()){
+            throw error("Unknown group type", pos);
+        }
+
+        char kind = regex.charAt(pos++);
+
+        switch (kind){
+            case ':':
+                return groupBody();
+            case '=':
+                return new LookAround(groupBody(), true, false);
+            case '!':
+                return new LookAround(groupBody(), true, true);
+            case '>':
+                return new AtomicGroup(groupBody());
+            case '#':
+                int close = regex.indexOf(')', pos);
+
+                if (close == -1){
+                    throw error("Unclosed group", regex.length());
+                }
+
+                pos = close + 1;
+                return null;
+            case '(':
+                return conditional();
+            case '<':
+                if (more() && (peek() == '=' || peek() == '!')){
+                    boolean negative = regex.charAt(pos++) == '!';
+                    return new LookAround(groupBody(), false, negative);
+                }
+
+                return namedGroup(groupName('>'));
+            default:
+                pos--;
+                return flags();
+        }
+    }
+
+    /**
+     * Parses a named group, {@code (?<name>x)} or the {@code ({name}x)} of jregex, positioned after its name.
+     */
+    private RegexNode namedGroup(String name){
+        if (groupNames.containsKey(name)){
+            throw error("Named capturing group <" + name + "> is already defined", pos - 1);
+        }
+
+        int number = ++groupCount;
+        groupNames.put(name, number);
+        return new Group(groupBody(), number, name);
+    }
+
+    /**
+     * Parses the content of a group up to its closing parenthesis. Flags changed inside the group are restored after
+     * it.
+     */
+    private RegexNode groupBody(){
+        int saved = flags;
+        RegexNode body = alternation();
+        flags = saved;
+
+        if (!more()){
+            throw error("Unclosed group", regex.length());
+        }
+
+        pos++;
+        return body;
+    }
+
+    private RegexNode conditional(){
+        String group = null;
+        RegexNode condition = null;
+
+        if (more() && peek() == '?'){
+            condition = group();
+
+            if (!(condition instanceof LookAround)){
+                throw error("Unknown conditional", pos);
+            }
+        } else {
+            group = groupName(')');
+        }
+
+        int saved = flags;
+        RegexNode then = sequence();
+        RegexNode otherwise = new Sequence(new ArrayList<>());
+
+        if (more() && peek() == '|'){
+            pos++;
+            otherwise = sequence();
+        }
+
+        flags = saved;
+
+        if (!more() || regex.charAt(pos++) != ')'){
+            throw error("Unclosed group", pos);
+        }
+
+        return new Conditional(group, condition, then, otherwise);
+    }
+
+    private String groupName(char terminator){
+        int close = regex.indexOf(terminator, pos);
+
+        if (close == -1 || close == pos){
+            throw error("Invalid group name", pos);
+        }
+
+        String name = regex.substring(pos, close);
+        pos = close + 1;
+        return name;
+    }
+
+    /**
+     * Parses inline flags, such as {@code (?i)} or {@code (?-s:...)}.
+     */
+    private RegexNode flags(){
+        boolean negate = false;
+        int result = flags;
+
+        while (more()){
+            char c = regex.charAt(pos++);
+            int flag;
+
+            switch (c){
+                case 'i': flag = Pattern.CASE_INSENSITIVE; break;
+                case 'm': flag = Pattern.MULTILINE; break;
+                case 's': flag = Pattern.DOTALL; break;
+                case 'x': flag = Pattern.COMMENTS; break;
+                case 'u': flag = Pattern.UNICODE_CASE; break;
+                case 'U': flag = Pattern.UNICODE_CHARACTER_CLASS | Pattern.UNICODE_CASE; break;
+                case 'd':
+                    throw new UnsupportedOperationException("The UNIX_LINES flag isn't supported: " + regex);
+                case 'c':
+                    throw new UnsupportedOperationException("The CANON_EQ flag isn't supported: " + regex);
+                case '-':
+                    negate = true;
+                    continue;
+                case ')':
+                    flags = result;
+                    return null;
+                case ':':
+                    int saved = flags;
+                    flags = result;
+                    RegexNode body = groupBody();
+                    flags = saved;
+                    return body;
+                default:
+                    throw error("Unknown inline modifier", pos - 1);
+            }
+
+            result = negate ? result & ~flag : result | flag;
+        }
+
+        throw error("Unclosed group", regex.length());
+    }
+
+    private RegexNode escape(){
+        if (!more()){
+            throw error("Unexpected internal error", pos);
+        }
+
+        int start = pos - 1;
+        char c = regex.charAt(pos++);
+
+        switch (c){
+            case '1': case '2': case '3': case '4': case '5': case '6': case '7': case '8': case '9':
+                int number = c - '0';
+
+                while (more() && peek() >= '0' && peek() <= '9' && number * 10 + peek() - '0' <= groupCount){
+                    number = number * 10 + regex.charAt(pos++) - '0';
+                }
+
+                return new BackReference(number, null);
+            case 'k':
+                if (!more() || regex.charAt(pos++) != '<'){
+                    throw error("\\k is not followed by '<' for named capturing group", pos - 1);
+                }
+
+                String name = groupName('>');
+                Integer group = groupNames.get(name);
+
+                if (group == null){
+                    throw error("named capturing group <" + name + "> does not exist", pos - 1);
+                }
+
+                return new BackReference(group, name);
+            case 'b':
+                if (more() && peek() == '{'){
+                    throw new UnsupportedOperationException("Grapheme boundaries aren't supported: " + regex);
+                }
+
+                return new Anchor(Anchor.Kind.WORD_BOUNDARY);
+            case 'B':
+                return new Anchor(Anchor.Kind.NON_WORD_BOUNDARY);
+            case 'A':
+                return new Anchor(Anchor.Kind.INPUT_BEGIN);
+            case 'G':
+                return new Anchor(Anchor.Kind.PREVIOUS_MATCH_END);
+            case 'Z':
+                return new Anchor(Anchor.Kind.INPUT_END_OR_FINAL_TERMINATOR);
+            case 'z':
+                return new Anchor(Anchor.Kind.INPUT_END);
+            case 'Q':
+                int end = regex.indexOf("\\E", pos);
+                String quoted = regex.substring(pos, end == -1 ? regex.length() : end);
+                pos = end == -1 ? regex.length() : end + 2;
+                return quoted(quoted);
+            case 'R':
+                List<RegexNode> lineBreaks = new ArrayList<>();
+                lineBreaks.add(new Literal("\r\n"));
+                lineBreaks.add(new CharClass(CharSet.of('\n', '\u000B', '\f', '\r', '\u0085', '\u2028', '\u2029'), "\\R"));
+                // Pattern never gives back the \n of a \r\n matched by \R.
+                return new AtomicGroup(new Alternation(lineBreaks));
+            case 'X':
+            case 'N':
+                throw new UnsupportedOperationException("\\" + c + " isn't supported: " + regex);
+            case 'd': case 'D': case 'w': case 'W': case 's': case 'S': case 'h': case 'H': case 'v': case 'V':
+                return predefinedClass(start, pos);
+            case 'p':
+            case 'P':
+                if (more() && peek() == '{'){
+                    int close = regex.indexOf('}', pos);
+
+                    if (close == -1){
+                        throw error("Unclosed character family", regex.length());
+                    }
+
+                    return predefinedClass(start, close + 1);
+                }
+
+                return predefinedClass(start, pos + 1);
+            default:
+                pos--;
+                return literal(escapedCodePoint());
+        }
+    }
+
+    private RegexNode quoted(String text){
+        if (!has(Pattern.CASE_INSENSITIVE) || text.isEmpty()){
+            return new Literal(text);
+        }
+
+        List<RegexNode> items = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        for (int i = 0; i < text.length(); i += Character.charCount(text.codePointAt(i))){
+            RegexNode node = literal(text.codePointAt(i));
+
+            if (node instanceof Literal){
+                literal.append(((Literal) node).getValue());
+            } else {
+                flushLiteral(items, literal);
+                items.add(node);
+            }
+        }
+
+        flushLiteral(items, literal);
+        return items.size() == 1 ? items.get(0) : new Sequence(items);
+    }
+
+    /**
+     * Reads an escape that stands for a single code point, positioned after the backslash.
+     */
+    private int escapedCodePoint(){
+        int start = pos - 1;
+        char c = regex.charAt(pos++);
+
+        switch (c){
+            case 't': return '\t';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 'f': return '\f';
+            case 'a': return '\u0007';
+            case 'e': return '\u001B';
+            case 'c':
+                if (!more()){
+                    throw error("Illegal control escape sequence", pos);
+                }
+
+                return regex.charAt(pos++) ^ 64;
+            case '0':
+                int octal = 0;
+                int digits = 0;
+
+                while (digits < 3 && more() && peek() >= '0' && peek() <= '7' && octal * 8 + peek() - '0' <= 0377){
+                    octal = octal * 8 + regex.charAt(pos++) - '0';
+                    digits++;
+                }
+
+                if (digits == 0){
+                    throw error("Illegal octal escape sequence", pos);
+                }
+
+                return octal;
+            case 'x':
+                if (more() && peek() == '{'){
+                    int close = regex.indexOf('}', pos);
+
+                    if (close == -1){
+                        throw error("Unclosed hexadecimal escape sequence", pos);
+                    }
+
+                    int value = hex(pos + 1, close);
+                    pos = close + 1;
+
+                    if (!Character.isValidCodePoint(value)){
+                        throw error("Hexadecimal codepoint is too big", pos);
+                    }
+
+                    return value;
+                }
+
+                pos += 2;
+                return hex(pos - 2, pos);
+            case 'u':
+                pos += 4;
+                int value = hex(pos - 4, pos);
+
+                if (Character.isHighSurrogate((char) value) && regex.startsWith("\\u", pos)){
+                    int saved = pos;
+                    pos += 6;
+                    int low = hex(pos - 4, pos);
+
+                    if (Character.isLowSurrogate((char) low)){
+                        return Character.toCodePoint((char) value, (char) low);
+                    }
+
+                    pos = saved;
+                }
+
+                return value;
+            default:
+                if (c < 128 && Character.isLetterOrDigit(c)){
+                    throw error("Illegal/unsupported escape sequence", start + 1);
+                }
+
+                pos--;
+                int codePoint = regex.codePointAt(pos);
+                pos += Character.charCount(codePoint);
+                return codePoint;
+        }
+    }
+
+    private int hex(int from, int to){
+        try {
+            return Integer.parseInt(regex.substring(from, to), 16);
+        } catch (RuntimeException e){
+            throw error("Illegal hexadecimal escape sequence", from);
+        }
+    }
+
+    private RegexNode literal(int codePoint){
+        if (has(Pattern.CASE_INSENSITIVE) && codePoint <= Character.MAX_VALUE){
+            CharSet set;
+
+            if (has(Pattern.UNICODE_CASE)){
+                set = classSet("\\x{" + Integer.toHexString(codePoint) + "}", pos - 1);
+            } else if (codePoint < 128 && Character.isLetter(codePoint)){
+                set = CharSet.of(Character.toLowerCase((char) codePoint), Character.toUpperCase((char) codePoint));
+            } else {
+                set = CharSet.of((char) codePoint);
+            }
+
+            if (set.size() > 1){
+                return new CharClass(set, new String(Character.toChars(codePoint)));
+            }
+        }
+
+        return new Literal(new String(Character.toChars(codePoint)));
+    }
+
+    private RegexNode predefinedClass(int start, int end){
+        pos = end;
+        String source = regex.substring(start, end);
+        return new CharClass(classSet(source, start), source);
+    }
+
+    /**
+     * Parses a character class, positioned after its opening bracket.
+     */
+    private RegexNode charClass(int start){
+        pos = classEnd(start + 1);
+        String source = regex.substring(start, pos);
+        return new CharClass(classSet(source, start), source);
+    }
+
+    private int classEnd(int from){
+        int i = from;
+
+        if (i < regex.length() && regex.charAt(i) == '^'){
+            i++;
+        }
+
+        boolean first = true;
+
+        while (i < regex.length()){
+            char c = regex.charAt(i);
+
+            if (c == ']' && !first){
+                return i + 1;
+            }
+
+            first = false;
+
+            if (c == '['){
+                i = classEnd(i + 1);
+            } else if (c == '\\'){
+                i = escapeEnd(i + 1);
+            } else if (c == '#' && has(Pattern.COMMENTS)){
+                while (i < regex.length() && regex.charAt(i) != '\n'){
+                    i++;
+                }
+            } else {
+                i++;
+            }
+        }
+
+        throw error("Unclosed character class", regex.length() - 1);
+    }
+
+    private int escapeEnd(int from){
+        if (from >= regex.length()){
+            return from;
+        }
+
+        char c = regex.charAt(from);
+        int close;
+
+        switch (c){
+            case 'Q':
+                close = regex.indexOf("\\E", from);
+                return close == -1 ? regex.length() : close + 2;
+            case 'p':
+            case 'P':
+            case 'x':
+            case 'N':
+                if (from + 1 < regex.length() && regex.charAt(from + 1) == '{'){
+                    close = regex.indexOf('}', from);
+                    return close == -1 ? regex.length() : close + 1;
+                }
+
+                return c == 'x' ? from + 3 : from + 2;
+            case 'u':
+                return from + 5;
+            case 'c':
+                return from + 2;
+            default:
+                return from + 1;
+        }
+    }
+
+    /**
+     * Computes the chars matched by a class, compiling its text with the current flags.
+     */
+    private CharSet classSet(String source, int start){
+        try {
+            return PatternCache.getInstance().compileCharSet(source, flags & CLASS_FLAGS);
+        } catch (PatternSyntaxException e){
+            throw error(e.getDescription(), start + Math.max(e.getIndex(), 0));
+        }
+    }
+
+    private void skipComments(){
+        if (!has(Pattern.COMMENTS)){
+            return;
+        }
+
+        while (more()){
+            char c = peek();
+
+            if (c == '#'){
+                while (more() && peek() != '\n'){
+                    pos++;
+                }
+            } else if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r'){
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean has(int flag){
+        return (flags & flag) != 0;
+    }
+
+    private boolean more(){
+        return pos < regex.length();
+    }
+
+    private char peek(){
+        return regex.charAt(pos);
+    }
+
+    private PatternSyntaxException error(String description, int index){
+        return new PatternSyntaxException(description, regex, index);
+    }
+}
@@ -0,0 +1,88 @@
+package org.xmlet.regex.ir;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The intermediate representation of a whole regex: its root {@link RegexNode} and the capturing groups it defines.
+ */
+public final class RegexTree {
+
+    private final String source;
+    private final RegexNode root;
+    private final int groupCount;
+    private final Map<String, Integer> groupNames;
+    private final Set<Construct> constructs;
+    private final Anchor.Kind startAnchor;
+    private final Anchor.Kind endAnchor;
+
+    /**
+     * @param source The regex represented by the tree.
+     * @param root The root node.
+     * @param groupCount The number of capturing groups.
+     * @param groupNames The number of each named group.
+     */
+    public RegexTree(String source, RegexNode root, int groupCount, Map<String, Integer> groupNames){
+        this.source = source;
+        this.root = root;
+        this.groupCount = groupCount;
+        this.groupNames = Collections.unmodifiableMap(new LinkedHashMap<>(groupNames));
+        this.constructs = Collections.unmodifiableSet(ConstructScanner.scan(root));
+        this.startAnchor = AnchorScanner.scanStart(root);
+        this.endAnchor = AnchorScanner.scanEnd(root);
+    }
+
+    public String getSource(){
+        return source;
+    }
+
+    public RegexNode getRoot(){
+        return root;
+    }
+
+    public int getGroupCount(){
+        return groupCount;
+    }
+
+    public Map<String, Integer> getGroupNames(){
+        return groupNames;
+    }
+
+    /**
+     * @return The constructs used by the regex that not every engine supports.
+     */
+    public Set<Construct> getConstructs(){
+        return constructs;
+    }
+
+    /**
+     * @return The anchor every match begins with, {@link Anchor.Kind#INPUT_BEGIN} or {@link Anchor.Kind#LINE_BEGIN},
+     * or null if the matches may begin anywhere.
+     */
+    public Anchor.Kind getStartAnchor(){
+        return startAnchor;
+    }
+
+    /**
+     * @return The anchor every match ends with, {@link Anchor.Kind#INPUT_END},
+     * {@link Anchor.Kind#INPUT_END_OR_FINAL_TERMINATOR} or {@link Anchor.Kind#LINE_END}, or null if the matches may
+     * end anywhere.
+     */
+    public Anchor.Kind getEndAnchor(){
+        return endAnchor;
+    }
+
+    /**
+     * @return The compact encoding of the tree.
+     */
+    public EncodedRegex encode(){
+        return EncodedRegex.encode(this);
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package org.xmlet.regex.ir;
+
+/**
+ * Matches its body a number of times, such as {@code x*}, {@code x+?} or {@code x{2,5}}.
+ */
+public final class Repeat extends RegexNode {
+
+    public static final int UNBOUNDED = -1;
+
+    public enum Mode {
+        /** Prefers as many repetitions as possible. */
+        GREEDY,
+        /** Prefers as few repetitions as possible. */
+        LAZY,
+        /** Takes as many repetitions as possible and never gives them back. */
+        POSSESSIVE
+    }
+
+    private final RegexNode body;
+    private final int min;
+    private final int max;
+    private final Mode mode;
+
+    /**
+     * @param body The repeated node.
+     * @param min The minimum number of repetitions.
+     * @param max The maximum number of repetitions, or {@link #UNBOUNDED}.
+     * @param mode How the number of repetitions is chosen.
+     */
+    public Repeat(RegexNode body, int min, int max, Mode mode){
+        this.body = body;
+        this.min = min;
+        this.max = max;
+        this.mode = mode;
+    }
+
+    public RegexNode getBody(){
+        return body;
+    }
+
+    public int getMin(){
+        return min;
+    }
+
+    public int getMax(){
+        return max;
+    }
+
+    public Mode getMode(){
+        return mode;
+    }
+
+    @Override
+    public <R> R accept(RegexNodeVisitor<R> visitor) {
+        return visitor.visitRepeat(this);
+    }
+
+    @Override
+    public String toString() {
+        return "Repeat(" + body + ", " + min + ", " + (max == UNBOUNDED ? "*" : max) + ", " + mode + ")";
+    }
+}
@@ -0,0 +1,31 @@
+package org.xmlet.regex.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Matches each of its items, one after the other. An empty sequence matches the empty String.
+ */
+public final class Sequence extends RegexNode {
+
+    private final List<RegexNode> items;
+
+    public Sequence(List<RegexNode> items){
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    public List<RegexNode> getItems(){
+        return items;
+    }
+
+    @Override
+    public <R> R accept(RegexNodeVisitor<R> visitor) {
+        return visitor.visitSequence(this);
+    }
+
+    @Override
+    public String toString() {
+        return "Sequence" + items;
+    }
+}
@@ -1,10 +1,13 @@
 package org.xmlet.regex.visitor;
 
+import org.xmlet.regex.ir.RegexParser;
+import org.xmlet.regex.ir.RegexTree;
 import org.xmlet.regexapi.*;
 
 public class RegexVisitor extends ElementVisitor {
 
     private StringBuilder stringBuilder = new StringBuilder();
+    private RegexTree regexTree;
 
     public void visitElement(Element var1) {
 
@@ -30,6 +33,24 @@ public class RegexVisitor extends ElementVisitor {
         return stringBuilder.toString();
     }
 
+    /**
+     * Returns the typed representation of the regex built so far. Raw text and sub expressions reach the visitor as
+     * regex syntax, so the tree is parsed from the built regex, once, and kept until the regex grows.
+     * @return The parsed regex.
+     * @throws java.util.regex.PatternSyntaxException If the regex isn't valid.
+     * @throws UnsupportedOperationException If the regex uses a construct that has no node, such as {@code \X}.
+     */
+    public RegexTree getRegexTree() {
+        RegexTree result = regexTree;
+
+        if (result == null || result.getSource().length() != stringBuilder.length()){
+            result = RegexParser.parse(getRegex());
+            regexTree = result;
+        }
+
+        return result;
+    }
+
     /* ************************* */
     /* Character Escape Elements */
     /* ************************* */
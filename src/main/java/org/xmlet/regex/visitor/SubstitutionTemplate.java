@@ -0,0 +1,277 @@
+package org.xmlet.regex.visitor;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.MatchResult;
+
+/**
+ * A precompiled substitution regex. The template is a sequence of segments, each one being either a chunk of literal
+ * text or a reference to a capturing group of the match regex. Group names are resolved to group indexes when the
+ * template is created, so applying it to a match only copies characters.
+ */
+public final class SubstitutionTemplate {
+
+    private final char[] literals;
+
+    /**
+     * Two entries per segment. Literal segments store the start and end of the chunk in {@link #literals}, group
+     * references store {@code -1 - group} followed by a zero.
+     */
+    private final int[] segments;
+
+    private SubstitutionTemplate(char[] literals, int[] segments){
+        this.literals = literals;
+        this.segments = segments;
+    }
+
+    /**
+     * Appends the substitution of {@code match} to the {@code builder}. Groups that didn't participate in the match
+     * are replaced by an empty String.
+     * @param match The match to substitute.
+     * @param input The input where {@code match} was found.
+     * @param builder The builder that receives the substitution.
+     */
+    public void appendTo(MatchResult match, CharSequence input, StringBuilder builder){
+        for (int i = 0; i < segments.length; i += 2){
+            int first = segments[i];
+
+            if (first >= 0){
+                builder.append(literals, first, segments[i + 1] - first);
+            } else {
+                int group = -1 - first;
+                int start = match.start(group);
+
+                if (start != -1){
+                    builder.append(input, start, match.end(group));
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the substitution of {@code match} to the {@code appendable}. Groups that didn't participate in the match
+     * are replaced by an empty String.
+     * @param match The match to substitute.
+     * @param input The input where {@code match} was found.
+     * @param appendable The destination of the substitution.
+     * @throws IOException If the {@code appendable} fails.
+     */
+    public void appendTo(MatchResult match, CharSequence input, Appendable appendable) throws IOException {
+        for (int i = 0; i < segments.length; i += 2){
+            int first = segments[i];
+
+            if (first >= 0){
+                for (int j = first; j < segments[i + 1]; j++){
+                    appendable.append(literals[j]);
+                }
+            } else {
+                int group = -1 - first;
+                int start = match.start(group);
+
+                if (start != -1){
+                    appendable.append(input, start, match.end(group));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if the template doesn't reference any group, i.e. every match is replaced by the same text.
+     */
+    public boolean isLiteral(){
+        for (int i = 0; i < segments.length; i += 2){
+            if (segments[i] < 0){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The literal text of the template. Group references are not included.
+     */
+    public String getLiterals(){
+        return new String(literals);
+    }
+
+    /**
+     * Collects the segments of a template. Raw text follows the syntax of
+     * {@link java.util.regex.Matcher#appendReplacement}, while explicit references come from the
+     * {@link SubstitutionVisitor} and are never reinterpreted.
+     */
+    static final class Builder {
+
+        private final Map<String, Integer> groupIndexes;
+        private final int groupCount;
+        private final StringBuilder literals = new StringBuilder();
+        private int[] segments = new int[8];
+        private int size;
+        private int literalStart;
+
+        Builder(String matchRegex){
+            groupIndexes = new HashMap<>();
+            groupCount = scanGroups(matchRegex, groupIndexes);
+        }
+
+        void appendGroup(int group){
+            if (group < 0 || group > groupCount){
+                throw new IllegalArgumentException("No group " + group + ", the match regex has " + groupCount + " groups");
+            }
+
+            closeLiteral();
+            addSegment(-1 - group, 0);
+        }
+
+        void appendGroup(String name){
+            Integer group = groupIndexes.get(name);
+
+            if (group == null){
+                throw new IllegalArgumentException("No group with name {" + name + "}");
+            }
+
+            appendGroup(group);
+        }
+
+        void appendRaw(String raw){
+            int length = raw.length();
+            int cursor = 0;
+
+            while (cursor < length){
+                char nextChar = raw.charAt(cursor++);
+
+                if (nextChar == '\\'){
+                    if (cursor == length){
+                        throw new IllegalArgumentException("character to be escaped is missing");
+                    }
+
+                    literals.append(raw.charAt(cursor++));
+                } else if (nextChar == '$'){
+                    if (cursor == length){
+                        throw new IllegalArgumentException("Illegal group reference: group index is missing");
+                    }
+
+                    if (raw.charAt(cursor) == '{'){
+                        int nameEnd = raw.indexOf('}', ++cursor);
+
+                        if (nameEnd == -1){
+                            throw new IllegalArgumentException("named capturing group is missing trailing '}'");
+                        }
+
+                        appendGroup(raw.substring(cursor, nameEnd));
+                        cursor = nameEnd + 1;
+                    } else {
+                        int group = raw.charAt(cursor++) - '0';
+
+                        if (group < 0 || group > 9){
+                            throw new IllegalArgumentException("Illegal group reference");
+                        }
+
+                        while (cursor < length){
+                            int nextDigit = raw.charAt(cursor) - '0';
+
+                            if (nextDigit < 0 || nextDigit > 9 || group * 10 + nextDigit > groupCount){
+                                break;
+                            }
+
+                            group = group * 10 + nextDigit;
+                            cursor++;
+                        }
+
+                        appendGroup(group);
+                    }
+                } else {
+                    literals.append(nextChar);
+                }
+            }
+        }
+
+        SubstitutionTemplate build(){
+            closeLiteral();
+
+            char[] chars = new char[literals.length()];
+            literals.getChars(0, chars.length, chars, 0);
+
+            int[] trimmed = new int[size];
+            System.arraycopy(segments, 0, trimmed, 0, size);
+
+            return new SubstitutionTemplate(chars, trimmed);
+        }
+
+        private void closeLiteral(){
+            if (literals.length() > literalStart){
+                addSegment(literalStart, literals.length());
+                literalStart = literals.length();
+            }
+        }
+
+        private void addSegment(int first, int second){
+            if (size == segments.length){
+                int[] grown = new int[size * 2];
+                System.arraycopy(segments, 0, grown, 0, size);
+                segments = grown;
+            }
+
+            segments[size++] = first;
+            segments[size++] = second;
+        }
+    }
+
+    /**
+     * Finds the capturing groups of {@code regex}, storing the index of each named group in {@code groupIndexes}.
+     * Both the Java, {@code (?<name>...)}, and the jregex, {@code ({name}...)}, syntax are recognized.
+     * @return The number of capturing groups.
+     */
+    static int scanGroups(String regex, Map<String, Integer> groupIndexes){
+        int length = regex.length();
+        int groups = 0;
+        int classDepth = 0;
+
+        for (int i = 0; i < length; i++){
+            char c = regex.charAt(i);
+
+            if (c == '\\'){
+                if (i + 1 < length && regex.charAt(i + 1) == 'Q'){
+                    int quoteEnd = regex.indexOf("\\E", i + 2);
+                    i = quoteEnd == -1 ? length : quoteEnd + 1;
+                } else {
+                    i++;
+                }
+            } else if (classDepth > 0){
+                if (c == '['){
+                    classDepth++;
+                } else if (c == ']'){
+                    classDepth--;
+                }
+            } else if (c == '['){
+                classDepth = 1;
+            } else if (c == '(' && i + 1 < length){
+                char next = regex.charAt(i + 1);
+
+                if (next == '{'){
+                    groups = addGroup(regex, i + 2, '}', groups, groupIndexes);
+                } else if (next != '?'){
+                    groups++;
+                } else if (regex.startsWith("?#", i + 1)){
+                    int commentEnd = regex.indexOf(')', i);
+                    i = commentEnd == -1 ? length : commentEnd;
+                } else if (regex.startsWith("?<", i + 1) && i + 3 < length && regex.charAt(i + 3) != '=' && regex.charAt(i + 3) != '!'){
+                    groups = addGroup(regex, i + 3, '>', groups, groupIndexes);
+                }
+            }
+        }
+
+        return groups;
+    }
+
+    private static int addGroup(String regex, int nameStart, char nameEnd, int groups, Map<String, Integer> groupIndexes){
+        int end = regex.indexOf(nameEnd, nameStart);
+
+        if (end != -1){
+            groupIndexes.putIfAbsent(regex.substring(nameStart, end), groups + 1);
+        }
+
+        return groups + 1;
+    }
+}
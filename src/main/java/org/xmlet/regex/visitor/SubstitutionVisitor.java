@@ -0,0 +1,125 @@
+package org.xmlet.regex.visitor;
+
+import org.xmlet.regexapi.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The visitor of the substitution regex. Besides building the substitution String it records the group references
+ * made with {@link NumberSubstitution} and {@link NameSubstitution}, so they can be turned into a
+ * {@link SubstitutionTemplate} without parsing the substitution String again.
+ */
+public class SubstitutionVisitor extends RegexVisitor {
+
+    private static final int NO_REFERENCE = 0;
+    private static final int NUMBER_REFERENCE = 1;
+    private static final int NAME_REFERENCE = 2;
+
+    /**
+     * The visited parts, in order. Strings are raw substitution text, Integers are group numbers and
+     * {@link GroupName} instances are group names.
+     */
+    private final List<Object> parts = new ArrayList<>();
+    private int pendingReference = NO_REFERENCE;
+
+    @Override
+    public <R> void visitText(Text<? extends Element, R> var1) {
+        super.visitText(var1);
+        parts.add(pendingPrefix() + var1.getValue());
+    }
+
+    @Override
+    public void visitAttributeNumber(String number) {
+        super.visitAttributeNumber(number);
+
+        if (pendingReference == NUMBER_REFERENCE){
+            pendingReference = NO_REFERENCE;
+            parts.add(Integer.valueOf(number));
+        } else {
+            parts.add(pendingPrefix() + number);
+        }
+    }
+
+    @Override
+    public void visitAttributeSubstitutionName(String expression) {
+        super.visitAttributeSubstitutionName(expression);
+
+        if (pendingReference == NAME_REFERENCE){
+            pendingReference = NO_REFERENCE;
+            parts.add(new GroupName(expression));
+        } else {
+            parts.add(pendingPrefix() + expression + '}');
+        }
+    }
+
+    @Override
+    public <Z extends Element> void visitElementNumberSubstitution(NumberSubstitution<Z> expression) {
+        super.visitElementNumberSubstitution(expression);
+        flushPendingReference();
+        pendingReference = NUMBER_REFERENCE;
+    }
+
+    @Override
+    public <Z extends Element> void visitElementNameSubstitution(NameSubstitution<Z> expression) {
+        super.visitElementNameSubstitution(expression);
+        flushPendingReference();
+        pendingReference = NAME_REFERENCE;
+    }
+
+    /**
+     * Builds the template of the visited substitution regex, resolving group names against {@code matchRegex}.
+     * @param matchRegex The match regex the substitution will be applied to.
+     * @return The precompiled substitution.
+     * @throws IllegalArgumentException If the substitution is malformed or references a group name that doesn't
+     * exist in {@code matchRegex}.
+     */
+    public SubstitutionTemplate getTemplate(String matchRegex) {
+        SubstitutionTemplate.Builder builder = new SubstitutionTemplate.Builder(matchRegex);
+
+        for (Object part : parts) {
+            if (part instanceof Integer){
+                builder.appendGroup((Integer) part);
+            } else if (part instanceof GroupName){
+                builder.appendGroup(((GroupName) part).name);
+            } else {
+                builder.appendRaw((String) part);
+            }
+        }
+
+        builder.appendRaw(pendingText());
+
+        return builder.build();
+    }
+
+    /**
+     * A substitution element that isn't followed by its attribute is kept as raw text.
+     */
+    private String pendingPrefix() {
+        String prefix = pendingText();
+        pendingReference = NO_REFERENCE;
+        return prefix;
+    }
+
+    private void flushPendingReference() {
+        if (pendingReference != NO_REFERENCE){
+            parts.add(pendingPrefix());
+        }
+    }
+
+    private String pendingText() {
+        switch (pendingReference){
+            case NUMBER_REFERENCE: return "$";
+            case NAME_REFERENCE: return "${";
+            default: return "";
+        }
+    }
+
+    private static final class GroupName {
+        private final String name;
+
+        private GroupName(String name){
+            this.name = name;
+        }
+    }
+}
@@ -86,6 +86,26 @@ public class AlternationTest {
         Assert.assertEquals("910", result.get(1));
     }
 
+    /**
+     * <p>The conditional expression regex offsets:
+     * <p>The same expression of {@link AlternationTest#testIfMatchRegex()}, but only the bounds of each match are
+     * returned, as start and end pairs, so no String is created for the matches "A10" and "910".
+     */
+    @Test
+    public void testIfMatchOffsetsRegex() {
+        String toMatch = "A10 C103 910";
+        Regex regex = new Regex(
+                expr -> expr.matchRegex()
+                            .ifMatch()
+                                .ifMatchSubExpression(quickExpr(subExpr -> subExpr.text("A")))
+                                .thenExpression(quickExpr(subExpr -> subExpr.text("A").anyDigit().matchPreviousNTimes().attrN(2).boundary()))
+                                .elseExpression(quickExpr(subExpr -> subExpr.boundary().anyDigit().matchPreviousNTimes().attrN(3).boundary())));
+        int[] result = regex.conditionalMatchOffsets(toMatch);
+
+        Assert.assertArrayEquals(new int[]{0, 3, 9, 12}, result);
+        Assert.assertArrayEquals(result, regex.conditionalMatchOffsets(toMatch));
+    }
+
     /**
      * <p>The named conditional expression regex:
      * <p>{@code (?(name)then|else)}
@@ -0,0 +1,103 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regex.BacktrackingException;
+import org.xmlet.regex.Regex;
+import org.xmlet.regex.ir.BacktrackingAnalysis;
+import org.xmlet.regex.ir.RegexParser;
+import org.xmlet.regex.ir.Repeat;
+
+import java.util.Arrays;
+
+import static org.xmlet.regex.Regex.quickExpr;
+
+public class BacktrackingAnalysisTest {
+
+    /**
+     * <p>The findings of regexes that may backtrack catastrophically:
+     * <p>{@code (a+)+b} nests a quantifier, {@code (a|a)*b} repeats alternatives that match the same text, and
+     * {@code \d+\.?\d+} has two quantifiers that may split the same digits. Each finding reports the repetition that
+     * backtracks.
+     */
+    @Test
+    public void testFindings(){
+        BacktrackingAnalysis nested = analyze("(a+)+b");
+        BacktrackingAnalysis alternation = analyze("(a|a)*b");
+        BacktrackingAnalysis overlapping = analyze("\\d+\\.?\\d+");
+
+        Assert.assertEquals(1, nested.getFindings().size());
+        Assert.assertEquals(BacktrackingAnalysis.Finding.Kind.NESTED_QUANTIFIER, nested.getFindings().get(0).getKind());
+        Assert.assertTrue(nested.getFindings().get(0).getNode() instanceof Repeat);
+        Assert.assertTrue(nested.isExponential());
+        Assert.assertEquals(BacktrackingAnalysis.Finding.Kind.AMBIGUOUS_ALTERNATION,
+                alternation.getFindings().get(0).getKind());
+        Assert.assertEquals(BacktrackingAnalysis.Finding.Kind.OVERLAPPING_QUANTIFIERS,
+                overlapping.getFindings().get(0).getKind());
+        Assert.assertFalse(overlapping.isExponential());
+    }
+
+    /**
+     * <p>Regexes that can only match a text in a single way:
+     * <p>{@code (?:\w+\s)*} needs a space between the words, {@code (?:a++)+} doesn't give back what the inner
+     * repetition matched, and {@code (?:[a-z]+\.)*[a-z]+} needs a dot between the names.
+     */
+    @Test
+    public void testSafe(){
+        Assert.assertTrue(analyze("(?:\\w+\\s)*").isSafe());
+        Assert.assertTrue(analyze("(?:a++)+").isSafe());
+        Assert.assertTrue(analyze("(?:[a-z]+\\.)*[a-z]+").isSafe());
+        Assert.assertTrue(analyze("(a|ab)*c").isSafe());
+    }
+
+    /**
+     * <p>A strict regex:
+     * <p>{@code (\d+)+} is rejected while it's built, and {@code (\d+)} is accepted. So are {@code \w+\d+} and
+     * {@code .*foo.*}, whose overlapping quantifiers only backtrack polynomially.
+     */
+    @Test
+    public void testStrictRegex(){
+        try {
+            new Regex(expr -> expr.matchRegex()
+                    .subExpression().attrSubExpr(quickExpr(digit -> digit.anyDigit().oneOrMore())).oneOrMore(),
+                    null, true);
+            Assert.fail();
+        } catch (BacktrackingException e){
+            Assert.assertEquals(BacktrackingAnalysis.Finding.Kind.NESTED_QUANTIFIER, e.getFindings().get(0).getKind());
+        }
+
+        Regex digits = new Regex(expr -> expr.matchRegex()
+                .subExpression().attrSubExpr(quickExpr(digit -> digit.anyDigit().oneOrMore())), null, true);
+
+        Assert.assertTrue(digits.getBacktrackingAnalysis().isSafe());
+        Assert.assertFalse(new Regex(expr -> expr.matchRegex().text("\\w+\\d+"), null, true)
+                .getBacktrackingAnalysis().isSafe());
+        Assert.assertEquals(Arrays.asList("xfoox"),
+                new Regex(expr -> expr.matchRegex().text(".*foo.*"), null, true).match("xfoox"));
+        Assert.assertFalse(new Regex(expr -> expr.matchRegex().text("(a+)+")).getBacktrackingAnalysis().isSafe());
+    }
+
+    /**
+     * <p>A strict conditional:
+     * <p>{@code ({quoted}")?(?(quoted).+?"|\S+\s)}
+     * <p>The conditional on a group named in the jregex syntax is analyzed and accepted, and {@code (?(?=a)\X|b)}, whose
+     * {@code \X} can't be analyzed, is accepted without an analysis.
+     */
+    @Test
+    public void testStrictConditionalRegex(){
+        Regex quoted = new Regex(expr -> expr.matchRegex()
+                .conditionalNamedExpression().condNameFirst("quoted").condExpressionSecond("\"").__()
+                .zeroOrOne()
+                .ifGroupMatch()
+                    .groupName("quoted")
+                    .thenExpression(quickExpr(subExpr -> subExpr.anyChar().minMatchOneOrMore().text("\"")))
+                    .elseExpression(quickExpr(subExpr -> subExpr.anyNonWhiteSpace().oneOrMore().anyWhiteSpace())),
+                null, true);
+
+        Assert.assertTrue(quoted.getBacktrackingAnalysis().isSafe());
+        Assert.assertEquals("(?(?=a)\\X|b)",
+                new Regex(expr -> expr.matchRegex().text("(?(?=a)\\X|b)"), null, true).getMatchRegex());
+    }
+
+    private static BacktrackingAnalysis analyze(String regex){
+        return BacktrackingAnalysis.of(RegexParser.parse(regex));
+    }
+}
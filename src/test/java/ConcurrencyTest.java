@@ -0,0 +1,73 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regexapi.MatchingOperationsAll1;
+import org.xmlet.regex.Regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 2000;
+
+    /**
+     * <p>A single Regex shared by many threads:
+     * <p>{@code (\w+)(\s)(\w+)} replaced by {@code $3$2$1}
+     * <p>Every thread matches and replaces its own input at the same time. The pooled matchers are never shared by two
+     * calls, so every thread always gets the results of its own input.
+     */
+    @Test
+    public void testSharedRegexRegex() throws Exception {
+        Regex regex = new Regex(
+                expr -> {
+                    expr.matchRegex()
+                        .subExpression().attrSubExpr(Regex.quickExpr(subExpr -> subExpr.anyLetterOrDigit().oneOrMore()))
+                        .subExpression().attrSubExpr(Regex.quickExpr(MatchingOperationsAll1::anyWhiteSpace))
+                        .subExpression().attrSubExpr(Regex.quickExpr(subExpr -> subExpr.anyLetterOrDigit().oneOrMore()));
+
+                    expr.substitutionRegex()
+                        .numberSubstitution().attrNumber(3)
+                        .numberSubstitution().attrNumber(2)
+                        .numberSubstitution().attrNumber(1);
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int thread = 0; thread < THREADS; thread++){
+                String left = "left" + thread;
+                String right = "right" + thread;
+                String input = left + " " + right + ", " + right + " " + left;
+
+                futures.add(executor.submit(() -> {
+                    start.await();
+
+                    for (int i = 0; i < ITERATIONS; i++){
+                        Assert.assertEquals(Arrays.asList(left + " " + right, right + " " + left), regex.match(input));
+                        Assert.assertEquals(right + " " + left + ", " + left + " " + right, regex.replaceAll(input));
+                        Assert.assertEquals(4, regex.matchOffsets(input).length);
+                        Assert.assertEquals(2, regex.forEachMatch(input, match -> match.group(1).equals(left) || match.group(1).equals(right)));
+                    }
+
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> future : futures){
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regexapi.MatchingOperationsAll1;
+import org.xmlet.regex.Regex;
+import org.xmlet.regex.ir.CostAnalysis;
+import org.xmlet.regex.ir.RegexParser;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.xmlet.regex.Regex.quickExpr;
+
+public class CostAnalysisTest {
+
+    /**
+     * <p>The lengths of the matches of a regex:
+     * <p>{@code id-\d{2,4}(?=;)}
+     * <p>Every match has at least 5 chars, since the lookahead consumes none, and at most 11, since each digit may be
+     * a supplementary code point of two chars. Repetitions without a maximum, and backreferences, have no maximum
+     * length.
+     */
+    @Test
+    public void testMatchLengths(){
+        CostAnalysis id = analyze("id-\\d{2,4}(?=;)");
+
+        Assert.assertEquals(5, id.getMinLength());
+        Assert.assertEquals(11, id.getMaxLength());
+        Assert.assertFalse(id.canMatchEmpty());
+        Assert.assertFalse(id.matchesNewLine());
+        Assert.assertEquals(CostAnalysis.UNBOUNDED, analyze("(?:ab)+").getMaxLength());
+        Assert.assertEquals(2, analyze("(?:ab)+").getMinLength());
+        Assert.assertTrue(analyze("x?|\\d").canMatchEmpty());
+        Assert.assertEquals(2, analyze("(?s).").getMaxLength());
+        Assert.assertTrue(analyze("(?s).").matchesNewLine());
+        Assert.assertEquals(CostAnalysis.UNBOUNDED, analyze("(a)\\1").getMaxLength());
+    }
+
+    /**
+     * <p>The estimated cost of a regex:
+     * <p>Each repetition of a variable count multiplies the ways a backtracking engine may match by the input length,
+     * and a repetition of a body that may match the same text in several ways is exponential, while
+     * {@code (?:\w+\s)*} can only match a text in a single way.
+     */
+    @Test
+    public void testCost(){
+        Assert.assertEquals(0, analyze("abc").getDegree());
+        Assert.assertEquals(1, analyze("(?:ab)*c").getDegree());
+        Assert.assertEquals(2, analyze("\\w+\\s\\w+").getDegree());
+        Assert.assertTrue(analyze("(?:a+)+b").isExponential());
+        Assert.assertTrue(analyze("(?:a|aa)*c").isExponential());
+        Assert.assertEquals(2, analyze("(?:\\w+\\s)*").getDegree());
+        Assert.assertEquals(analyze("\\w+").getSize() * 11L, analyze("\\w+").estimateSteps(10, true));
+        Assert.assertEquals(analyze("\\w+").getSize() * 121L, analyze("\\w+").estimateSteps(10, false));
+        Assert.assertEquals(Long.MAX_VALUE, analyze("(?:a+)+b").estimateSteps(100, false));
+    }
+
+    /**
+     * <p>The admission of a Regex:
+     * <p>{@code (?:a+)+b} is searched by the DFA, which takes linear time, so it's admitted, while {@code (a+)+\1}
+     * has a backreference, which only the backtracking engines support, and it isn't. Inputs shorter than the minimum
+     * length are rejected.
+     */
+    @Test
+    public void testAdmissionRegex(){
+        Regex linear = new Regex(expr -> expr.matchRegex().text("(?:a+)+b"));
+        Regex backtracking = new Regex(expr -> expr.matchRegex().text("(a+)+\\1"));
+
+        Assert.assertTrue(linear.isAdmissible(1 << 20, 1L << 30));
+        Assert.assertFalse(backtracking.isAdmissible(1 << 10, 1L << 30));
+        Assert.assertEquals(2, linear.getCostAnalysis().getMinLength());
+        Assert.assertEquals(Collections.emptyList(), linear.match("b"));
+        Assert.assertFalse(linear.containsMatch("a"));
+        Assert.assertEquals("b", linear.replaceAll("b"));
+        Assert.assertEquals(Arrays.asList("aab", "ab"), linear.match("aab b ab"));
+    }
+
+    /**
+     * <p>The admission of Regexes that can't be analyzed:
+     * <p>{@code a\X} has a construct without a node and {@code (a} isn't valid, so their steps have no bound and
+     * they're never admitted, while the conditional of {@code ({quoted}")?(?(quoted)"|\s)}, whose group is named in the
+     * jregex syntax, is analyzed.
+     */
+    @Test
+    public void testUnanalyzableAdmissionRegex(){
+        Regex grapheme = new Regex(expr -> expr.matchRegex().text("a\\X"));
+        Regex invalid = new Regex(expr -> expr.matchRegex().text("(a"));
+        Regex conditional = new Regex(expr -> expr.matchRegex()
+                .conditionalNamedExpression().condNameFirst("quoted").condExpressionSecond("\"").__()
+                .zeroOrOne()
+                .ifGroupMatch()
+                    .groupName("quoted")
+                    .thenExpression("\"")
+                    .elseExpression(quickExpr(MatchingOperationsAll1::anyWhiteSpace)));
+
+        Assert.assertEquals(Long.MAX_VALUE, grapheme.estimateSteps(10));
+        Assert.assertFalse(grapheme.isAdmissible(10, Long.MAX_VALUE));
+        Assert.assertEquals(Long.MAX_VALUE, invalid.estimateSteps(10));
+        Assert.assertFalse(invalid.isAdmissible(10, Long.MAX_VALUE));
+        Assert.assertTrue(conditional.isAdmissible(10, 1L << 30));
+    }
+
+    private static CostAnalysis analyze(String regex){
+        return CostAnalysis.of(RegexParser.parse(regex));
+    }
+}
@@ -0,0 +1,120 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regexapi.MatchingOperationsAll1;
+import org.xmlet.regex.Regex;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.MatchResult;
+import java.util.stream.Collectors;
+
+public class MatchApiTest {
+
+    /**
+     * <p>The lazy stream of matches:
+     * <p>\d+
+     * <p>Using the String "1 22 333 4444" only the first two matches are requested, so the scan stops right after
+     * "22" is found.
+     */
+    @Test
+    public void testStreamRegex(){
+        Regex regex = new Regex(expr -> expr.matchRegex().anyDigit().oneOrMore());
+
+        List<String> result = regex.stream("1 22 333 4444")
+                .limit(2)
+                .map(MatchResult::group)
+                .collect(Collectors.toList());
+
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("22", result.get(1));
+        Assert.assertEquals(9, regex.stream("1 22 333 4444").skip(3).findFirst().get().start());
+    }
+
+    /**
+     * <p>The lazy iterator of matches:
+     * <p>Each match is found when the iterator is asked for it and keeps its bounds after the iteration moves on.
+     */
+    @Test
+    public void testIteratorRegex(){
+        Regex regex = new Regex(expr -> expr.matchRegex().anyDigit().oneOrMore());
+
+        Iterator<MatchResult> iterator = regex.iterator("a1b22");
+        MatchResult first = iterator.next();
+        MatchResult second = iterator.next();
+
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(1, first.start());
+        Assert.assertEquals("22", second.group());
+    }
+
+    /**
+     * <p>The lazy iterator of matches in a StringBuilder:
+     * <p>(?&lt;=(x))\d+
+     * <p>Each match copies only the text of its groups, including the group before the match, so it keeps its text
+     * after the StringBuilder is changed, and iterating a large StringBuilder doesn't copy it for each match.
+     */
+    @Test
+    public void testIteratorOverStringBuilderRegex(){
+        Regex regex = new Regex(expr -> expr.matchRegex().text("(?<=(x))\\d+"));
+        StringBuilder input = new StringBuilder("ax12 x345");
+
+        Iterator<MatchResult> iterator = regex.iterator(input);
+        MatchResult first = iterator.next();
+        input.setLength(0);
+
+        Assert.assertEquals("12", first.group());
+        Assert.assertEquals("x", first.group(1));
+        Assert.assertEquals(1, first.start(1));
+
+        StringBuilder large = new StringBuilder();
+
+        for (int i = 0; i < 200_000; i++){
+            large.append("x1 ");
+        }
+
+        Assert.assertEquals(200_000, regex.stream(large).count());
+    }
+
+    /**
+     * <p>The match offsets:
+     * <p>(\w)(\d)?
+     * <p>Using the String "a1 b" the matches are "a1", from 0 to 2, and "b", from 3 to 4. When the group bounds are
+     * included, the second group of "b" didn't participate in the match, so its bounds are -1.
+     */
+    @Test
+    public void testMatchOffsetsRegex(){
+        Regex regex = new Regex(
+                expr -> expr.matchRegex()
+                        .subExpression().attrSubExpr(Regex.quickExpr(MatchingOperationsAll1::anyLetterOrDigit))
+                        .subExpression().attrSubExpr(Regex.quickExpr(MatchingOperationsAll1::anyDigit)).zeroOrOne());
+
+        Assert.assertArrayEquals(new int[]{0, 2, 3, 4}, regex.matchOffsets("a1 b"));
+        Assert.assertArrayEquals(new int[]{0, 2, 0, 1, 1, 2, 3, 4, 3, 4, -1, -1}, regex.matchOffsets("a1 b", true));
+    }
+
+    /**
+     * <p>The match callback:
+     * <p>\d+
+     * <p>Each match of the String "7 42 x 300" is handed to the sink as it's found. The sink reads the digits through
+     * the view, without creating Strings, and stops the search after the second match.
+     */
+    @Test
+    public void testForEachMatchRegex(){
+        Regex regex = new Regex(expr -> expr.matchRegex().anyDigit().oneOrMore());
+        int[] sum = new int[1];
+
+        int count = regex.forEachMatch("7 42 x 300", match -> {
+            int value = 0;
+
+            for (int i = 0; i < match.length(); i++){
+                value = value * 10 + match.charAt(i) - '0';
+            }
+
+            sum[0] += value;
+            return match.start() < 2;
+        });
+
+        Assert.assertEquals(2, count);
+        Assert.assertEquals(49, sum[0]);
+    }
+}
@@ -0,0 +1,354 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regexapi.MatchingOperationsAll1;
+import org.xmlet.regex.Regex;
+import org.xmlet.regex.engine.EngineMatcher;
+import org.xmlet.regex.engine.EnginePattern;
+import org.xmlet.regex.engine.EngineSelector;
+import org.xmlet.regex.engine.MatchEngine;
+import org.xmlet.regex.ir.Anchor;
+import org.xmlet.regex.ir.Construct;
+import org.xmlet.regex.ir.EncodedRegex;
+import org.xmlet.regex.ir.RegexParser;
+import org.xmlet.regex.ir.RegexTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.PatternSyntaxException;
+
+import static org.xmlet.regex.Regex.quickExpr;
+
+public class MatchEngineTest {
+
+    private static final String[] REGEXES = {
+            "\\d+", "[a-z&&[aeiou]]", "\\d|\\s", "\\bis\\b", "^\\w+$", "(?m)^\\w+$", "a*?b", "(?:ab|a)(?:c|bcd)",
+            "[^\\s]{2,4}", "x?", "\\B", "(?i)[a-c]+", "(?s).{1,3}\\z", "\\w+\\Z", "(?:a|b)*?c", "\\r?\\n|\\R",
+            "(a|ab)(c|bcd)?", "(?:(a)|b)+", "(\\w+?)(\\d*)", "(?<word>[a-z]+)\\s(\\d)?", "((?:\\R){2})", "\\R+\\n"
+    };
+
+    /**
+     * <p>The DFA and NFA engines:
+     * <p>Each regex is searched by every engine that supports it, and by the engine chosen automatically, in random
+     * inputs, which must produce the same matches, including the empty ones. None of the regexes captures a group in
+     * an iteration that may be backtracked out of, so the bounds of their groups are the same as well. {@code \R}
+     * never matches the {@code \r} of {@code \r\n} alone, which only the backtracking engines can tell.
+     */
+    @Test
+    public void testEngineMatchesRegex(){
+        Random random = new Random(7);
+        String alphabet = "ab cd\n\r1A_é";
+
+        for (String regex : REGEXES){
+            boolean regular = MatchEngine.DFA.supports(RegexParser.parse(regex).getConstructs());
+            EnginePattern jdk = MatchEngine.JDK.compile(regex);
+            EnginePattern selected = EngineSelector.select(regex).getPattern();
+            EnginePattern dfa = regular ? MatchEngine.DFA.compile(regex) : selected;
+            EnginePattern nfa = regular ? MatchEngine.NFA.compile(regex) : selected;
+
+            for (int i = 0; i < 200; i++){
+                StringBuilder input = new StringBuilder();
+
+                for (int j = random.nextInt(20); j > 0; j--){
+                    input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+
+                Assert.assertEquals(regex + " " + input, offsets(jdk.matcher(input)), offsets(dfa.matcher(input)));
+                Assert.assertEquals(regex + " " + input, offsets(jdk.matcher(input)), offsets(nfa.matcher(input)));
+                Assert.assertEquals(regex + " " + input, offsets(jdk.matcher(input)), offsets(selected.matcher(input)));
+            }
+        }
+    }
+
+    /**
+     * <p>The groups captured by an iteration that isn't part of the match:
+     * <p>{@code (?:(a)b)*a}
+     * <p>In {@code "ab"} the iteration {@code (a)b} is backtracked out of, since no {@code a} follows it, so the match is
+     * {@code "a"}. Every engine finds that match, but {@link java.util.regex.Pattern} keeps the bounds of group 1 from
+     * the abandoned iteration, while the DFA and the NFA only report the groups captured along the path of the match.
+     */
+    @Test
+    public void testBacktrackedGroupRegex(){
+        EnginePattern jdk = MatchEngine.JDK.compile("(?:(a)b)*a");
+
+        for (MatchEngine engine : new MatchEngine[]{MatchEngine.DFA, MatchEngine.NFA}){
+            EngineMatcher matcher = engine.compile("(?:(a)b)*a").matcher("ab");
+            EngineMatcher expected = jdk.matcher("ab");
+
+            Assert.assertTrue(matcher.find() && expected.find());
+            Assert.assertEquals(expected.start(), matcher.start());
+            Assert.assertEquals(expected.end(), matcher.end());
+            Assert.assertEquals(-1, matcher.start(1));
+        }
+    }
+
+    /**
+     * <p>The DFA engine with a Regex:
+     * <p>\d+
+     * <p>The matches of the String "91 - 33 = 58 units." are the same of the default engine.
+     */
+    @Test
+    public void testDfaRegex(){
+        Regex regex = new Regex(expr -> expr.matchRegex().anyDigit().oneOrMore(), MatchEngine.DFA);
+
+        Assert.assertEquals(MatchEngine.DFA, regex.getEngine());
+        Assert.assertEquals(new Regex(expr -> expr.matchRegex().anyDigit().oneOrMore()).match("91 - 33 = 58 units."),
+                regex.match("91 - 33 = 58 units."));
+        Assert.assertArrayEquals(new int[]{0, 2, 5, 7, 10, 12}, regex.matchOffsets("91 - 33 = 58 units."));
+    }
+
+    /**
+     * <p>The NFA engine with a Regex:
+     * <p>(\w)(\d)?
+     * <p>Using the String "a1 b" the groups of each match are the ones of the default engine.
+     */
+    @Test
+    public void testNfaRegex(){
+        Regex regex = new Regex(
+                expr -> expr.matchRegex()
+                        .subExpression().attrSubExpr(Regex.quickExpr(MatchingOperationsAll1::anyLetterOrDigit))
+                        .subExpression().attrSubExpr(Regex.quickExpr(MatchingOperationsAll1::anyDigit)).zeroOrOne(),
+                MatchEngine.NFA);
+
+        Assert.assertArrayEquals(new int[]{0, 2, 0, 1, 1, 2, 3, 4, 3, 4, -1, -1}, regex.matchOffsets("a1 b", true));
+    }
+
+    /**
+     * <p>The NFA engine fallback:
+     * <p>(a)\1
+     * <p>The backreference isn't regular, so the regex is searched by {@link java.util.regex.Pattern} instead.
+     */
+    @Test
+    public void testNfaFallbackRegex(){
+        EngineMatcher matcher = MatchEngine.NFA.compile("(a)\\1").matcher("baab");
+
+        Assert.assertTrue(matcher.find());
+        Assert.assertEquals(1, matcher.start());
+        Assert.assertEquals("a", matcher.group(1));
+    }
+
+    /**
+     * <p>The literal engine:
+     * <p>{@code a\.b}
+     * <p>A regex that only matches one text is searched as a substring, with the matches of the default engine, and
+     * replaced by a literal substitution. Regexes with anything other than literal chars are rejected.
+     */
+    @Test
+    public void testLiteralRegex(){
+        Regex regex = new Regex(expr -> {
+            expr.matchRegex().text("a\\.b");
+            expr.substitutionRegex().text("<dot>");
+        });
+        StringBuilder input = new StringBuilder("a.b axb a.ba.b");
+
+        Assert.assertEquals(MatchEngine.LITERAL, regex.getEngine());
+        Assert.assertArrayEquals(new int[]{0, 3, 8, 11, 11, 14}, regex.matchOffsets(input));
+        Assert.assertEquals("<dot> axb <dot><dot>", regex.replaceAll(input.toString()));
+        Assert.assertEquals(offsets(MatchEngine.JDK.compile("(?:ab){2}c").matcher("ababcabababc")),
+                offsets(MatchEngine.LITERAL.compile("(?:ab){2}c").matcher("ababcabababc")));
+
+        for (String unsupported : new String[]{"^ab", "a(b)", "(?i)ab", "ab?", "a\\b"}){
+            try {
+                MatchEngine.LITERAL.compile(unsupported);
+                Assert.fail(unsupported);
+            } catch (UnsupportedOperationException e){
+                // expected
+            }
+        }
+    }
+
+    /**
+     * <p>The anchored searches:
+     * <p>Every match of a regex that begins with {@code \A} or {@code ^} is tried only at the beginning of the input,
+     * or of each line, and a regex that ends with {@code \z}, {@code \Z} or {@code $} is read back from the end by
+     * the DFA. Using each engine, the matches, including their groups, are the ones of
+     * {@link java.util.regex.Pattern}.
+     */
+    @Test
+    public void testAnchoredRegex(){
+        Random random = new Random(5);
+        String alphabet = "ab 1\n\r";
+        String[] regexes = {"^a+", "\\A(a|b)*", "(?m)^(\\w*)", "(?m)^a|\\Ab", "\\s*$", "(b)?\\d*\\z", "a\\Z|b$",
+                "(?m)^\\w+$", "^$"};
+
+        Assert.assertEquals(Anchor.Kind.LINE_BEGIN, RegexParser.parse("(?m)^a|\\Ab").getStartAnchor());
+        Assert.assertEquals(Anchor.Kind.INPUT_END_OR_FINAL_TERMINATOR, RegexParser.parse("a\\z|b$").getEndAnchor());
+        Assert.assertNull(RegexParser.parse("(?:^a)?b").getStartAnchor());
+
+        for (String regex : regexes){
+            EnginePattern jdk = MatchEngine.JDK.compile(regex);
+
+            for (MatchEngine engine : new MatchEngine[]{MatchEngine.JDK, MatchEngine.DFA, MatchEngine.NFA}){
+                EnginePattern anchored = EngineSelector.choose(regex, engine).getPattern();
+
+                for (int i = 0; i < 100; i++){
+                    StringBuilder input = new StringBuilder();
+
+                    for (int j = random.nextInt(15); j > 0; j--){
+                        input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                    }
+
+                    Assert.assertEquals(engine + " " + regex + " " + input, offsets(jdk.matcher(input)),
+                            offsets(anchored.matcher(input)));
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>The constructs the DFA engine doesn't support:
+     * <p>Backreferences, lookarounds, possessive quantifiers, atomic groups, including {@code \R}, and
+     * repetitions of expressions that match empty Strings are rejected when the regex is compiled.
+     */
+    @Test
+    public void testDfaUnsupportedRegex(){
+        for (String regex : new String[]{"(a)\\1", "a(?=b)", "a*+", "(?:a*)+", "(?>a)", "\\R"}){
+            try {
+                MatchEngine.DFA.compile(regex);
+                Assert.fail(regex);
+            } catch (UnsupportedOperationException e){
+                // expected
+            }
+        }
+    }
+
+    /**
+     * <p>The automatic engine selection:
+     * <p>The regular expression {@code \d+} is searched by the DFA, while {@code (\w)\1} has a backreference, which
+     * only the backtracking engines support. An engine given to the constructor always overrides the automatic
+     * selection.
+     */
+    @Test
+    public void testEngineSelectionRegex(){
+        Regex digits = new Regex(expr -> expr.matchRegex().anyDigit().oneOrMore());
+        Regex repeated = new Regex(
+                expr -> expr.matchRegex()
+                        .subExpression().attrSubExpr(quickExpr(MatchingOperationsAll1::anyLetterOrDigit)).__()
+                        .otherChar().text("1"));
+
+        Assert.assertEquals(MatchEngine.DFA, digits.getEngine());
+        Assert.assertEquals(MatchEngine.JDK, repeated.getEngine());
+        Assert.assertTrue(repeated.getEngineSelection().getConstructs().contains(Construct.BACK_REFERENCE));
+        Assert.assertEquals(MatchEngine.NFA, new Regex(expr -> expr.matchRegex().anyDigit().oneOrMore(), MatchEngine.NFA).getEngine());
+        Assert.assertEquals(Arrays.asList("aa", "bb"), repeated.match("aab bb"));
+    }
+
+    /**
+     * <p>The automatic engine selection of a conditional:
+     * <p>{@code (?(?=A)A\d{2}\b|\b\d{3}\b)}
+     * <p>Conditionals are only supported by jregex, so the regex is searched by it, even by {@link Regex#match}.
+     */
+    @Test
+    public void testConditionalEngineSelectionRegex(){
+        Regex conditional = new Regex(
+                expr -> expr.matchRegex()
+                        .ifMatch()
+                            .ifMatchSubExpression(quickExpr(subExpr -> subExpr.text("A")))
+                            .thenExpression(quickExpr(subExpr -> subExpr.text("A").anyDigit().matchPreviousNTimes().attrN(2).boundary()))
+                            .elseExpression(quickExpr(subExpr -> subExpr.boundary().anyDigit().matchPreviousNTimes().attrN(3).boundary())));
+
+        Assert.assertEquals(MatchEngine.JREGEX, conditional.getEngine());
+        Assert.assertEquals(Arrays.asList("A10", "910"), conditional.match("A10 C103 910"));
+    }
+
+    /**
+     * <p>The automatic engine selection of a conditional on a named group:
+     * <p>{@code ({quoted}")?(?(quoted).+?"|\S+\s)}
+     * <p>The group is named in the jregex syntax, which {@link java.util.regex.Pattern} doesn't understand, so the
+     * regex is searched by jregex.
+     */
+    @Test
+    public void testIfGroupMatchEngineSelectionRegex(){
+        Regex conditional = new Regex(
+                expr -> expr.matchRegex()
+                        .conditionalNamedExpression().condNameFirst("quoted").condExpressionSecond("\"").__()
+                        .zeroOrOne()
+                        .ifGroupMatch()
+                            .groupName("quoted")
+                            .thenExpression(quickExpr(subExpr -> subExpr.anyChar().minMatchOneOrMore().text("\"")))
+                            .elseExpression(quickExpr(subExpr -> subExpr.anyNonWhiteSpace().oneOrMore().anyWhiteSpace())));
+
+        Assert.assertEquals(MatchEngine.JREGEX, conditional.getEngine());
+        Assert.assertEquals(MatchEngine.JREGEX, EngineSelector.select("({quoted}\")(?=\\w)").getEngine());
+    }
+
+    /**
+     * <p>The tree of a Regex:
+     * <p>{@code (\w)-\d+}
+     * <p>The visitor parses the built regex once, which the engine selection reuses, and the encoding of the tree
+     * decodes to an equal tree and compares by structure, so {@code ab} and {@code (?:ab)} have equal encodings.
+     */
+    @Test
+    public void testRegexTreeRegex(){
+        Regex regex = new Regex(expr -> expr.matchRegex().text("(\\w)-").anyDigit().oneOrMore());
+        RegexTree tree = regex.getRegexTree();
+        EncodedRegex encoded = tree.encode();
+
+        Assert.assertEquals("(\\w)-\\d+", tree.getSource());
+        Assert.assertEquals(1, tree.getGroupCount());
+        Assert.assertSame(tree, regex.getRegexTree());
+        Assert.assertEquals(tree.toString(), encoded.decode().toString());
+        Assert.assertEquals(encoded, encoded.decode().encode());
+        Assert.assertEquals(RegexParser.parse("ab").encode(), RegexParser.parse("(?:ab)").encode());
+        Assert.assertFalse(RegexParser.parse("ab").encode().equals(RegexParser.parse("a[bc]").encode()));
+        Assert.assertEquals(Arrays.asList("a-12", "b-3"), regex.match("a-12 -4 b-3"));
+    }
+
+    /**
+     * <p>The tree of a conditional on a named group:
+     * <p>{@code ({quoted}")?(?(quoted).+?"|\S+\s)}
+     * <p>The group is named in the jregex syntax, which the parser reads as a named group, so the conditional tests it.
+     */
+    @Test
+    public void testIfGroupMatchTreeRegex(){
+        Regex regex = new Regex(
+                expr -> expr.matchRegex()
+                        .conditionalNamedExpression().condNameFirst("quoted").condExpressionSecond("\"").__()
+                        .zeroOrOne()
+                        .ifGroupMatch()
+                            .groupName("quoted")
+                            .thenExpression(quickExpr(subExpr -> subExpr.anyChar().minMatchOneOrMore().text("\"")))
+                            .elseExpression(quickExpr(subExpr -> subExpr.anyNonWhiteSpace().oneOrMore().anyWhiteSpace())));
+        RegexTree tree = regex.getRegexTree();
+
+        Assert.assertEquals(1, tree.getGroupCount());
+        Assert.assertEquals(Integer.valueOf(1), tree.getGroupNames().get("quoted"));
+        Assert.assertTrue(tree.getConstructs().contains(Construct.CONDITIONAL));
+        Assert.assertEquals(tree.toString(), tree.encode().decode().toString());
+    }
+
+    /**
+     * <p>The tree of an empty quote:
+     * <p>{@code \Q\E} isn't an atom, so a quantifier after it repeats the atom before it, as {@code a\Q\E*} is
+     * {@code a*} for {@link java.util.regex.Pattern}, and a quantifier without an atom before it is dangling.
+     */
+    @Test
+    public void testEmptyQuoteTreeRegex(){
+        Assert.assertEquals(RegexParser.parse("a*").encode(), RegexParser.parse("a\\Q\\E*").encode());
+        Assert.assertEquals(RegexParser.parse("(?:ab){2}").encode(), RegexParser.parse("(?:ab)\\Q\\E{2}").encode());
+        Assert.assertEquals(RegexParser.parse("(?:)*").encode(), RegexParser.parse("(?:)\\Q\\E*").encode());
+        Assert.assertArrayEquals(new int[]{0, 2, 2, 2},
+                new Regex(expr -> expr.matchRegex().text("a\\Q\\E*")).matchOffsets("aa"));
+
+        try {
+            RegexParser.parse("\\Q\\E*");
+            Assert.fail();
+        } catch (PatternSyntaxException e){
+            Assert.assertEquals("Dangling meta character '*'", e.getDescription());
+        }
+    }
+
+    private static List<Integer> offsets(EngineMatcher matcher){
+        List<Integer> offsets = new ArrayList<>();
+
+        while (matcher.find()){
+            for (int group = 0; group <= matcher.groupCount(); group++){
+                offsets.add(matcher.start(group));
+                offsets.add(matcher.end(group));
+            }
+        }
+
+        return offsets;
+    }
+}
@@ -0,0 +1,100 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regex.Regex;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+public class ParallelMatchTest {
+
+    private static final String INPUT = randomText(1024 * 1024);
+
+    /**
+     * <p>The parallel match of a regex with a bounded match length:
+     * <p>[a-c]\d{2,4}
+     * <p>The chunks are searched up to 5 chars past their end, and the result is the same as the sequential one.
+     */
+    @Test
+    public void testBoundedParallelMatchRegex(){
+        assertSameMatches(new Regex(expr -> expr.matchRegex().text("[a-c]\\d{2,4}")));
+    }
+
+    /**
+     * <p>The parallel match of an unbounded regex that can't match a new line:
+     * <p>\w+|x*
+     * <p>The chunks end after a new line and the empty matches are kept in place.
+     */
+    @Test
+    public void testLineParallelMatchRegex(){
+        assertSameMatches(new Regex(expr -> expr.matchRegex().text("\\w+|x*")));
+    }
+
+    /**
+     * <p>The parallel match of a regex whose matches are longer than a chunk:
+     * <p>[\d\s]{1,100000}
+     * <p>Most matches cross several chunks, so the chunks are searched again from the end of the previous match.
+     */
+    @Test
+    public void testLongParallelMatchRegex(){
+        assertSameMatches(new Regex(expr -> expr.matchRegex().text("[\\d\\s]{1,100000}")));
+    }
+
+    /**
+     * <p>The parallel match of an unbounded regex that can match new lines:
+     * <p>\s+
+     * <p>The input can't be split safely so it's searched sequentially.
+     */
+    @Test
+    public void testSequentialParallelMatchRegex(){
+        assertSameMatches(new Regex(expr -> expr.matchRegex().text("\\s+")));
+    }
+
+    /**
+     * <p>The batch match of many short inputs:
+     * <p>\d+
+     * <p>Each input gets the same offsets as a single call to matchOffsets, in the order of the inputs, both from a
+     * collection and from a stream.
+     */
+    @Test
+    public void testMatchAllRegex(){
+        Regex regex = new Regex(expr -> expr.matchRegex().anyDigit().oneOrMore());
+        List<String> lines = Arrays.asList(INPUT.substring(0, 200000).split("\n"));
+
+        List<int[]> result = regex.matchAll(lines);
+
+        Assert.assertEquals(lines.size(), result.size());
+
+        for (int i = 0; i < lines.size(); i++){
+            Assert.assertArrayEquals(regex.matchOffsets(lines.get(i)), result.get(i));
+        }
+
+        Assert.assertArrayEquals(new int[]{1, 3}, regex.matchAll(Stream.of("a12", "", "b")).get(0));
+        Assert.assertEquals(0, regex.matchAll(Stream.of("a12", "", "b")).get(2).length);
+    }
+
+    private static void assertSameMatches(Regex regex){
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            Assert.assertArrayEquals(regex.matchOffsets(INPUT), regex.parallelMatchOffsets(INPUT, pool));
+            Assert.assertEquals(regex.match(INPUT), regex.parallelMatch(INPUT, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String randomText(int length){
+        Random random = new Random(42);
+        String alphabet = "abcx0123456789      \n";
+        StringBuilder builder = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++){
+            builder.append(i % 300000 < 120000 ? "0123 4\n".charAt(i % 7) : alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+
+        return builder.toString();
+    }
+}
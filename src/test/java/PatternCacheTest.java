@@ -0,0 +1,72 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regex.PatternCache;
+import org.xmlet.regex.ir.CharSet;
+
+import java.util.regex.Pattern;
+
+public class PatternCacheTest {
+
+    /**
+     * <p>A cache hit:
+     * <p>Compiling the same regex with the same flags twice returns the same {@link Pattern} instance, while a
+     * different set of flags is compiled and cached separately.
+     */
+    @Test
+    public void testCacheHit(){
+        PatternCache cache = new PatternCache(4);
+
+        Pattern pattern = cache.compile("\\d+", 0);
+
+        Assert.assertSame(pattern, cache.compile("\\d+", 0));
+        Assert.assertNotSame(pattern, cache.compile("\\d+", Pattern.CASE_INSENSITIVE));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    /**
+     * <p>The eviction of the least recently used pattern:
+     * <p>With a maximum size of 2, the regex "a" is used again before "c" is compiled, so "b" is the one evicted.
+     */
+    @Test
+    public void testCacheEviction(){
+        PatternCache cache = new PatternCache(2);
+
+        Pattern a = cache.compile("a", 0);
+        Pattern b = cache.compile("b", 0);
+        cache.compile("a", 0);
+        cache.compile("c", 0);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertSame(a, cache.compile("a", 0));
+        Assert.assertNotSame(b, cache.compile("b", 0));
+
+        cache.setMaximumSize(1);
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(3, cache.getEvictionCount());
+    }
+
+    /**
+     * <p>The chars of a character class:
+     * <p>The set of {@code [a-c]} is computed once per set of flags, and the sets are evicted like the patterns, so
+     * parsing regexes with many distinct classes doesn't grow the cache.
+     */
+    @Test
+    public void testCharSet(){
+        PatternCache cache = new PatternCache(2);
+        CharSet set = cache.compileCharSet("[a-c]", 0);
+
+        Assert.assertSame(set, cache.compileCharSet("[a-c]", 0));
+        Assert.assertEquals(CharSet.range('a', 'c'), set);
+        Assert.assertEquals(6, cache.compileCharSet("[a-c]", Pattern.CASE_INSENSITIVE).size());
+
+        for (char c = 'd'; c <= 'z'; c++){
+            cache.compileCharSet("[a-" + c + "]", 0);
+        }
+
+        Assert.assertEquals(2, cache.size());
+    }
+}
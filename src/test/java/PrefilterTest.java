@@ -0,0 +1,89 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regex.Regex;
+import org.xmlet.regex.engine.EngineMatcher;
+import org.xmlet.regex.engine.EnginePattern;
+import org.xmlet.regex.engine.EngineSelector;
+import org.xmlet.regex.engine.MatchEngine;
+import org.xmlet.regex.ir.LiteralAnalysis;
+import org.xmlet.regex.ir.RegexParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class PrefilterTest {
+
+    /**
+     * <p>The literals of a regex:
+     * <p>{@code ERROR \[(?:db|net)\] status code=\d{3}(?:ms)?}
+     * <p>Every match starts with "ERROR [", and "] status code=" is the longest text every match contains. Case
+     * insensitive letters and repetitions that may not happen end the literals.
+     */
+    @Test
+    public void testLiteralAnalysis(){
+        LiteralAnalysis literals = LiteralAnalysis.of(RegexParser.parse("ERROR \\[(?:db|net)\\] status code=\\d{3}(?:ms)?"));
+
+        Assert.assertEquals("ERROR [", literals.getPrefix());
+        Assert.assertEquals("", literals.getSuffix());
+        Assert.assertEquals("] status code=", literals.getRequired());
+        Assert.assertEquals("abab", LiteralAnalysis.of(RegexParser.parse("(?:ab){2}")).getRequired());
+        Assert.assertEquals("", LiteralAnalysis.of(RegexParser.parse("(?i)abc")).getRequired());
+        Assert.assertEquals("x", LiteralAnalysis.of(RegexParser.parse("\\d+(?:ax|bx)")).getSuffix());
+    }
+
+    /**
+     * <p>The prefiltered searches:
+     * <p>Each regex is searched by its selected engine, with the prefilter, in random inputs, as Strings and as other
+     * CharSequences, which must produce the same matches of {@link java.util.regex.Pattern}, including the inputs
+     * rejected for not having the required literal.
+     */
+    @Test
+    public void testPrefilteredMatches(){
+        Random random = new Random(11);
+        String alphabet = "ab cab\n1";
+
+        for (String regex : new String[]{"cab\\d*", "\\w+ab", "(?:ca|ab)+1", "a(?=b)", "\\Gab", "(a)b\\1", "^ab$"}){
+            EnginePattern jdk = MatchEngine.JDK.compile(regex);
+            EnginePattern selected = EngineSelector.select(regex).getPattern();
+
+            for (int i = 0; i < 200; i++){
+                StringBuilder input = new StringBuilder();
+
+                for (int j = random.nextInt(30); j > 0; j--){
+                    input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+
+                Assert.assertEquals(regex + " " + input, offsets(jdk.matcher(input)), offsets(selected.matcher(input)));
+                Assert.assertEquals(regex + " " + input, offsets(jdk.matcher(input)),
+                        offsets(selected.matcher(input.toString())));
+            }
+        }
+    }
+
+    /**
+     * <p>The prefilter of a Regex:
+     * <p>{@code id=\d+}
+     * <p>The selection reports the literals it looks for, and the matches are the ones of the default engine.
+     */
+    @Test
+    public void testPrefilteredRegex(){
+        Regex regex = new Regex(expr -> expr.matchRegex().text("id=\\d+"));
+
+        Assert.assertTrue(regex.getEngineSelection().getReason().contains("prefix \"id=\""));
+        Assert.assertEquals(Arrays.asList("id=12", "id=3"), regex.match("x id=12, id=, id=3"));
+        Assert.assertEquals(0, regex.match("no identifiers").size());
+    }
+
+    private static List<Integer> offsets(EngineMatcher matcher){
+        List<Integer> offsets = new ArrayList<>();
+
+        while (matcher.find()){
+            offsets.add(matcher.start());
+            offsets.add(matcher.end());
+        }
+
+        return offsets;
+    }
+}
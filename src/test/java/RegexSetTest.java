@@ -0,0 +1,64 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regex.Regex;
+import org.xmlet.regex.RegexSet;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+public class RegexSetTest {
+
+    /**
+     * <p>The regex set:
+     * <p>{@code \bget /users/\d+}, {@code (\w)\1} and {@code \d+(?= units)}
+     * <p>The first regex is regular, the others use a backreference and a lookahead, so they're confirmed by searching
+     * them on their own. Using the String "get /users/42 for 7 units" the first and third regexes match.
+     */
+    @Test
+    public void testRegexSet(){
+        RegexSet set = new RegexSet(
+                new Regex(expr -> expr.matchRegex().text("\\bget /users/\\d+")),
+                new Regex(expr -> expr.matchRegex().text("(\\w)\\1")),
+                new Regex(expr -> expr.matchRegex().text("\\d+(?= units)")));
+        BitSet matches = set.matches("get /users/42 for 7 units");
+
+        Assert.assertTrue(matches.get(0));
+        Assert.assertFalse(matches.get(1));
+        Assert.assertTrue(matches.get(2));
+        Assert.assertTrue(set.matches("seek").get(1));
+        Assert.assertFalse(set.matchesAny("post /users/x"));
+        Assert.assertArrayEquals(new int[]{18, 19}, set.matchOffsets("get /users/42 for 7 units").get(2));
+        Assert.assertEquals(0, set.matchOffsets("get /users/42 for 7 units").get(1).length);
+    }
+
+    /**
+     * <p>A large regex set:
+     * <p>Hundreds of routes, some of them with lookarounds, are matched against random paths, and the regexes reported
+     * by the set are the same that match when each one is searched by itself.
+     */
+    @Test
+    public void testLargeRegexSet(){
+        Random random = new Random(3);
+        List<Regex> regexes = new ArrayList<>();
+
+        for (int i = 0; i < 300; i++){
+            String route = "/r" + i % 30 + "/" + (char) ('a' + i % 7) + (i % 3 == 0 ? "\\d+" : "[a-z]*");
+            String regex = i % 10 == 0 ? route + "(?!x)" : i % 10 == 1 ? "^" + route + "$" : route;
+            regexes.add(new Regex(expr -> expr.matchRegex().text(regex)));
+        }
+
+        RegexSet set = new RegexSet(regexes);
+
+        for (int i = 0; i < 200; i++){
+            String input = "/r" + random.nextInt(40) + "/" + (char) ('a' + random.nextInt(8)) + random.nextInt(100)
+                    + (random.nextBoolean() ? "x" : "");
+            BitSet matches = set.matches(input);
+
+            for (int j = 0; j < regexes.size(); j++){
+                Assert.assertEquals(input + " " + regexes.get(j).getMatchRegex(), regexes.get(j).containsMatch(input), matches.get(j));
+            }
+        }
+    }
+}
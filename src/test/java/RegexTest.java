@@ -0,0 +1,31 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regex.PatternCache;
+import org.xmlet.regex.Regex;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class RegexTest {
+
+    /**
+     * <p>The compiled pattern:
+     * <p>\d+
+     * <p>The match regex is compiled only once, the first time it's needed. Every following call, either to
+     * {@link Regex#getPattern()} or to the match methods, reuses the same {@link Pattern} instance. Since the pattern
+     * comes from the {@link PatternCache}, other {@link Regex} instances with the same match regex share it too.
+     */
+    @Test
+    public void testPatternIsCompiledOnce(){
+        Regex regex = new Regex(expr -> expr.matchRegex().anyDigit().oneOrMore());
+
+        Pattern pattern = regex.getPattern();
+        List<String> result = regex.match("12 345");
+
+        Assert.assertSame(pattern, regex.getPattern());
+        Assert.assertSame(pattern, new Regex(expr -> expr.matchRegex().anyDigit().oneOrMore()).getPattern());
+        Assert.assertEquals("\\d+", pattern.pattern());
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("345", result.get(1));
+    }
+}
@@ -0,0 +1,111 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regex.Regex;
+import org.xmlet.regex.SearchLimit;
+import org.xmlet.regex.SearchLimitException;
+import org.xmlet.regex.engine.MatchEngine;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+public class SearchLimitTest {
+
+    private static final String BACKTRACKING = "\\d+|(?:a+)+?b";
+    private static final String INPUT = "12 34 aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+
+    /**
+     * <p>A search within a step budget:
+     * <p>{@code \d+|(?:a+)+?b}
+     * <p>Searched by {@link java.util.regex.Pattern}, the second alternative retries the a's in exponentially many
+     * ways, so the search is stopped once it reads more chars than its budget, with the matches found before.
+     */
+    @Test
+    public void testStepsRegex(){
+        Regex regex = new Regex(expr -> expr.matchRegex().text(BACKTRACKING), MatchEngine.JDK);
+
+        try {
+            regex.match(INPUT, SearchLimit.steps(100_000));
+            Assert.fail();
+        } catch (SearchLimitException e){
+            Assert.assertEquals(Arrays.asList("12", "34"), e.getPartialResults());
+            Assert.assertTrue(e.getSteps() > 100_000);
+            Assert.assertTrue(e.getPosition() >= 6);
+        }
+
+        Assert.assertEquals(Arrays.asList("12", "34", "aab"), regex.match("12 34 aab", SearchLimit.steps(100_000)));
+        Assert.assertEquals(regex.match("12 34 aab"), regex.match("12 34 aab", null));
+    }
+
+    /**
+     * <p>A search within a timeout:
+     * <p>The same search is stopped by the clock, long before it would end, while the DFA searches the same regex in
+     * linear time.
+     */
+    @Test
+    public void testTimeoutRegex(){
+        Regex regex = new Regex(expr -> expr.matchRegex().text(BACKTRACKING), MatchEngine.JDK);
+        SearchLimit limit = SearchLimit.timeout(Duration.ofMillis(50));
+        long start = System.nanoTime();
+
+        try {
+            regex.match(INPUT, limit);
+            Assert.fail();
+        } catch (SearchLimitException e){
+            Assert.assertEquals(Arrays.asList("12", "34"), e.getPartialResults());
+            Assert.assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+        }
+
+        Regex linear = new Regex(expr -> expr.matchRegex().text(BACKTRACKING), MatchEngine.DFA);
+        Assert.assertEquals(Arrays.asList("12", "34"), linear.match(INPUT, limit.withSteps(10_000)));
+    }
+
+    /**
+     * <p>A replace within a step budget:
+     * <p>The substitutions made before the search is stopped are reported.
+     */
+    @Test
+    public void testReplaceRegex(){
+        Regex regex = new Regex(expr -> {
+            expr.matchRegex().text(BACKTRACKING);
+            expr.substitutionRegex().text("n");
+        }, MatchEngine.JDK);
+
+        try {
+            regex.replace(INPUT, SearchLimit.steps(100_000));
+            Assert.fail();
+        } catch (SearchLimitException e){
+            Assert.assertEquals(Arrays.asList("n", "n"), e.getPartialResults());
+        }
+
+        Assert.assertEquals(Arrays.asList("n", "n", "n"), regex.replace("12 34 ab", SearchLimit.steps(1_000)));
+    }
+
+    /**
+     * <p>A search by jregex within a limit:
+     * <p>jregex copies the input, so its steps can't be counted and a limit with a maximum number of steps is rejected,
+     * both by the conditional methods and when jregex is the engine of the regex. A timeout is checked after each
+     * match.
+     */
+    @Test
+    public void testJregexRegex(){
+        Regex regex = new Regex(expr -> expr.matchRegex().anyDigit().oneOrMore(), MatchEngine.JREGEX);
+
+        try {
+            regex.match("12 34", SearchLimit.steps(100_000));
+            Assert.fail();
+        } catch (UnsupportedOperationException e){
+            Assert.assertTrue(e.getMessage().startsWith("JREGEX"));
+        }
+
+        try {
+            regex.conditionalMatch("12 34", SearchLimit.timeout(Duration.ofSeconds(10)).withSteps(100_000));
+            Assert.fail();
+        } catch (UnsupportedOperationException e){
+            Assert.assertTrue(e.getMessage().startsWith("JREGEX"));
+        }
+
+        Assert.assertEquals(Arrays.asList("12", "34"), regex.match("12 34", SearchLimit.timeout(Duration.ofSeconds(10))));
+        Assert.assertEquals(Arrays.asList("12", "34"),
+                regex.conditionalMatch("12 34", SearchLimit.timeout(Duration.ofSeconds(10))));
+    }
+}
@@ -0,0 +1,223 @@
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlet.regexapi.MatchingOperationsAll1;
+import org.xmlet.regex.Regex;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class StreamingTest {
+
+    private static Regex swapRegex(){
+        return new Regex(
+                expr -> {
+                    expr.matchRegex()
+                        .subExpression().attrSubExpr(Regex.quickExpr(subExpr -> subExpr.anyLetterOrDigit().oneOrMore()))
+                        .text("=")
+                        .subExpression().attrSubExpr(Regex.quickExpr(subExpr -> subExpr.anyDigit().oneOrMore()));
+
+                    expr.substitutionRegex()
+                        .numberSubstitution().attrNumber(2)
+                        .text("=")
+                        .numberSubstitution().attrNumber(1);
+                });
+    }
+
+    private static String repeat(String text, int times){
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < times; i++){
+            builder.append(text).append(i).append(' ');
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * <p>The replace into an Appendable:
+     * <p>(\w+)=(\d+) replaced by $2=$1
+     * <p>The rewritten input is written straight to the destination, instead of being returned.
+     */
+    @Test
+    public void testReplaceToAppendableRegex() throws IOException {
+        StringBuilder out = new StringBuilder();
+
+        swapRegex().replace("a=1, b=22", out);
+
+        Assert.assertEquals("1=a, 22=b", out.toString());
+    }
+
+    /**
+     * <p>The streaming replace from a Reader:
+     * <p>(\w+)=(\d+) replaced by $2=$1
+     * <p>The input is read through a window of only 16 chars, so most matches cross a window boundary. The result is
+     * the same as replacing the whole input at once.
+     */
+    @Test
+    public void testReplaceFromReaderRegex() throws IOException {
+        Regex regex = swapRegex();
+        String input = repeat("key=", 500);
+        StringBuilder out = new StringBuilder();
+
+        regex.replace(new StringReader(input), out, 16);
+
+        Assert.assertEquals(regex.replaceAll(input), out.toString());
+    }
+
+    /**
+     * <p>The streaming replace of empty matches:
+     * <p>\d*
+     * <p>Empty matches are replaced too, exactly as {@link Regex#replaceAll(String)} does.
+     */
+    @Test
+    public void testReplaceEmptyMatchesFromReaderRegex() throws IOException {
+        Regex regex = new Regex(expr -> {
+            expr.matchRegex().anyDigit().zeroOrMore();
+            expr.substitutionRegex().text("<").numberSubstitution().attrNumber(0).text(">");
+        });
+        String input = repeat("ab", 100);
+        StringBuilder out = new StringBuilder();
+
+        regex.replace(new StringReader(input), out, 16);
+
+        Assert.assertEquals(regex.replaceAll(input), out.toString());
+    }
+
+    /**
+     * <p>The streaming replace of consecutive matches:
+     * <p>\G\d* replaced by X
+     * <p>Each match must start where the previous one ended, so after the empty match before "a" nothing else is
+     * replaced, exactly as {@link Regex#replaceAll(String)} does, even though every window search starts a new region.
+     */
+    @Test
+    public void testReplaceConsecutiveMatchesFromReaderRegex() throws IOException {
+        Regex regex = new Regex(expr -> {
+            expr.matchRegex().consecutiveMatch().anyDigit().zeroOrMore();
+            expr.substitutionRegex().text("X");
+        });
+        StringBuilder out = new StringBuilder();
+
+        regex.replace(new StringReader("12a34"), out);
+
+        Assert.assertEquals("XXa34", out.toString());
+        Assert.assertEquals(regex.replaceAll("12a34"), out.toString());
+
+        out.setLength(0);
+        regex.replace(new StringReader("123456a78 9"), out, 16);
+
+        Assert.assertEquals("XXa78 9", out.toString());
+    }
+
+    /**
+     * <p>The streaming match over an InputStream:
+     * <p>\w+=\d+
+     * <p>The input is decoded and read through a window of 16 chars. Each match is reported with its absolute position
+     * in the stream, which is the same position reported by {@link Regex#matchOffsets(CharSequence)} for the whole
+     * input.
+     */
+    @Test
+    public void testMatchFromInputStreamRegex() throws IOException {
+        Regex regex = swapRegex();
+        String input = repeat("key=", 300);
+        int[] offsets = new int[regex.matchOffsets(input).length];
+        int[] count = new int[1];
+
+        regex.forEachMatch(new StringReader(input), match -> {
+            offsets[count[0]++] = (int) (match.getOffset() + match.start());
+            offsets[count[0]++] = (int) (match.getOffset() + match.end());
+            return true;
+        }, 16);
+
+        Assert.assertArrayEquals(regex.matchOffsets(input), offsets);
+
+        long matches = regex.forEachMatch(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, match -> true);
+
+        Assert.assertEquals(300, matches);
+    }
+
+    /**
+     * <p>The streaming match of consecutive matches:
+     * <p>\G\d*
+     * <p>Using "12a" the matches are 0-2 and the empty 2-2, as java.util.regex finds them, both from a Reader and from
+     * an InputStream. The position after the "a" isn't a match, since it isn't the end of the previous one.
+     */
+    @Test
+    public void testMatchConsecutiveMatchesFromInputStreamRegex() throws IOException {
+        Regex regex = new Regex(expr -> expr.matchRegex().consecutiveMatch().anyDigit().zeroOrMore());
+        List<Integer> fromReader = new ArrayList<>();
+        List<Integer> fromStream = new ArrayList<>();
+
+        regex.forEachMatch(new StringReader("12a"), match -> {
+            fromReader.add(match.start());
+            fromReader.add(match.end());
+            return true;
+        }, 16);
+
+        regex.forEachMatch(new ByteArrayInputStream("12a".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8,
+                match -> {
+                    fromStream.add(match.start());
+                    fromStream.add(match.end());
+                    return true;
+                });
+
+        Assert.assertEquals(Arrays.asList(0, 2, 2, 2), fromReader);
+        Assert.assertEquals(Arrays.asList(0, 2, 2, 2), fromStream);
+    }
+
+    /**
+     * <p>The match over a file:
+     * <p>\w+=\d+
+     * <p>The ISO-8859-1 file is memory mapped and searched in place, while the UTF-8 file is decoded in chunks. Both
+     * return the same matches as searching the contents as a String.
+     */
+    @Test
+    public void testMatchFileRegex() throws IOException {
+        Regex regex = swapRegex();
+        String input = repeat("\u00e9 key=", 200);
+        Path latin1 = Files.createTempFile("regex", ".txt");
+        Path utf8 = Files.createTempFile("regex", ".txt");
+
+        try {
+            Files.write(latin1, input.getBytes(StandardCharsets.ISO_8859_1));
+            Files.write(utf8, input.getBytes(StandardCharsets.UTF_8));
+
+            List<String> expected = regex.match(input);
+
+            Assert.assertEquals(200, expected.size());
+            Assert.assertEquals(expected, regex.matchFile(latin1, StandardCharsets.ISO_8859_1));
+            Assert.assertEquals(expected, regex.matchFile(utf8, StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(latin1);
+            Files.delete(utf8);
+        }
+    }
+
+    /**
+     * <p>The match over a file of consecutive matches:
+     * <p>\G\d*
+     * <p>The UTF-8 file is decoded in chunks and searched through a window, and like the String only "12" matches,
+     * since "34" doesn't start where the previous match ended.
+     */
+    @Test
+    public void testMatchFileConsecutiveMatchesRegex() throws IOException {
+        Regex regex = new Regex(expr -> expr.matchRegex().consecutiveMatch().anyDigit().zeroOrMore());
+        Path utf8 = Files.createTempFile("regex", ".txt");
+
+        try {
+            Files.write(utf8, "12\u00e9a34".getBytes(StandardCharsets.UTF_8));
+
+            Assert.assertEquals(Collections.singletonList("12"), regex.match("12\u00e9a34"));
+            Assert.assertEquals(regex.match("12\u00e9a34"), regex.matchFile(utf8, StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(utf8);
+        }
+    }
+}
@@ -90,4 +90,85 @@ public class SubstitutionTest {
         Assert.assertEquals(1, result.size());
         Assert.assertEquals("two one", result.get(0));
     }
+
+    /**
+     * <p>The replaceAll method:
+     * <p>In this example we define the following match pattern:
+     * <p>(\w+)=(\d+)
+     * <p>And the following substitution pattern:
+     * <p>$2=$1
+     * <p>Using the String "a=1, b=22" as input every match is replaced in place, while the text between matches is
+     * kept, generating the String "1=a, 22=b".
+     */
+    @Test
+    public void testReplaceAllRegex(){
+        String toReplace = "a=1, b=22";
+        Regex regex = new Regex(
+                expr -> {
+                    expr.matchRegex()
+                        .subExpression().attrSubExpr(Regex.quickExpr(subExpr -> subExpr.anyLetterOrDigit().oneOrMore()))
+                        .text("=")
+                        .subExpression().attrSubExpr(Regex.quickExpr(subExpr -> subExpr.anyDigit().oneOrMore()));
+
+                    expr.substitutionRegex()
+                        .numberSubstitution().attrNumber(2)
+                        .text("=")
+                        .numberSubstitution().attrNumber(1);
+                });
+
+        Assert.assertEquals("1=a, 22=b", regex.replaceAll(toReplace));
+        Assert.assertEquals("no match", regex.replaceAll("no match"));
+    }
+
+    /**
+     * <p>The substitution template:
+     * <p>The substitution regex is precompiled when the {@link Regex} is built. Each numberSubstitution is a reference
+     * to exactly the group given by attrNumber, so the text that follows it is never read as part of the group number.
+     * <p>In this example the match pattern is (\d) and the substitution is the group 1 followed by the text "0", which
+     * turns every digit into itself followed by a zero.
+     */
+    @Test
+    public void testSubstitutionTemplateRegex(){
+        Regex regex = new Regex(
+                expr -> {
+                    expr.matchRegex().subExpression().attrSubExpr(Regex.quickExpr(MatchingOperationsAll1::anyDigit));
+
+                    expr.substitutionRegex()
+                        .numberSubstitution().attrNumber(1)
+                        .text("0");
+                });
+
+        Assert.assertEquals("x10 20", regex.replaceAll("x1 2"));
+    }
+
+    /**
+     * <p>The nameSubstitution of a missing group:
+     * <p>Group names are resolved when the {@link Regex} is built, so referencing a name that the match regex doesn't
+     * define fails right away.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingNameSubstitutionRegex(){
+        new Regex(
+                expr -> {
+                    expr.matchRegex().namedSubExpression().nameFirst("word").expression(Regex.quickExpr(subExpr -> subExpr.anyLetterOrDigit().oneOrMore())).__();
+
+                    expr.substitutionRegex().nameSubstitution().attrSubstitutionName("other");
+                });
+    }
+
+    /**
+     * <p>The numberSubstitution of a missing group:
+     * <p>(\w+) replaced by $5
+     * <p>Group numbers are checked against the groups of the match regex when the {@link Regex} is built, like group
+     * names are.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingNumberSubstitutionRegex(){
+        new Regex(
+                expr -> {
+                    expr.matchRegex().subExpression().attrSubExpr(Regex.quickExpr(subExpr -> subExpr.anyLetterOrDigit().oneOrMore()));
+
+                    expr.substitutionRegex().numberSubstitution().attrNumber(5);
+                });
+    }
 }